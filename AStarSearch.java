@@ -0,0 +1,346 @@
+package com.gradescope.spampede;
+
+import java.util.Arrays;
+
+/**
+ * A reusable A* search over the cells of a Board, for the shortest path from
+ * the snake head to the closest of a set of spam cells.
+ *
+ * <p>
+ * Cells are taken from the open set in order of f = g + h, where g is the
+ * length of the path found so far and h is the Manhattan distance to the
+ * nearest target. The Manhattan distance never overestimates the real
+ * distance, so the first target taken from the open set is a closest one,
+ * while cells leading away from every target are rarely expanded at all. On
+ * large boards with few pieces of spam this expands far fewer cells than a
+ * breadth-first search, which grows outwards in every direction.
+ * </p>
+ *
+ * <p>
+ * The open set is a binary min-heap of cell indices, with their priorities
+ * stored alongside, that also records each cell's position in the heap, so a
+ * cell whose path gets shorter moves up in place instead of being added twice.
+ * Like BreadthFirstSearch, every array is allocated once and a generation
+ * number marks which cells the current search has seen, so a search never
+ * allocates.
+ * </p>
+ *
+ * <p>
+ * The heuristic looks at every target each time a cell is added to the open
+ * set, so a search costs more the more targets it has, while a breadth-first
+ * search gets cheaper: with many pieces of spam one of them is usually close.
+ * Callers should therefore only use A* for up to MAX_TARGETS targets, and a
+ * breadth-first search beyond that.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class AStarSearch {
+
+	/**
+	 * The most targets worth searching for with A*. On boards from 50x50 to
+	 * 1000x1000 cells, breadth-first search was faster from about 32 to 64
+	 * pieces of spam on.
+	 */
+	public static final int MAX_TARGETS = 32;
+
+	/** The board being searched. */
+	private final Board board;
+
+	/** For every cell seen by the current search, the length of its best path. */
+	private final int[] pathLengths;
+
+	/** For every cell seen by the current search, the cell it came from. */
+	private final int[] parents;
+
+	/** For every cell, the generation of the last search that saw it. */
+	private final int[] seenStamps;
+
+	/** For every cell, the generation of the last search that expanded it. */
+	private final int[] closedStamps;
+
+	/** The open set, as a binary heap of cells ordered by priority. */
+	private final int[] heap;
+
+	/** The priority of the cell in each slot of the heap. */
+	private final long[] heapPriorities;
+
+	/** For every cell in the open set, its slot in the heap. */
+	private final int[] heapSlots;
+
+	/** The number of cells in the open set. */
+	private int heapSize = 0;
+
+	/** The rows of the targets of the current search. */
+	private int[] targetRows = new int[8];
+
+	/** The columns of the targets of the current search. */
+	private int[] targetColumns = new int[8];
+
+	/** The number of targets of the current search. */
+	private int numTargets = 0;
+
+	/** The generation of the current search. */
+	private int generation = 0;
+
+	/** The cell the current search started from (or -1). */
+	private int start = -1;
+
+	/** The number of cells expanded by all searches so far. */
+	private long nodesExpanded = 0;
+
+	/** The number of cells expanded by the last search. */
+	private int lastNodesExpanded = 0;
+
+	/**
+	 * Creates a new search engine for the given board.
+	 *
+	 * @param board the board to search
+	 */
+	public AStarSearch(Board board) {
+		this.board = board;
+		int size = board.size();
+		this.pathLengths = new int[size];
+		this.parents = new int[size];
+		this.seenStamps = new int[size];
+		this.closedStamps = new int[size];
+		this.heap = new int[size];
+		this.heapPriorities = new long[size];
+		this.heapSlots = new int[size];
+	}
+
+	/* ---------------- */
+	/* Running searches */
+	/* ---------------- */
+
+	/**
+	 * Searches from start through open cells for the closest of the given target
+	 * cells. Each cell added to the open set costs time in proportion to count,
+	 * which is meant to be at most MAX_TARGETS.
+	 *
+	 * @param startIndex the cell to search from, typically the snake head
+	 * @param targets    the cells to search for, typically the spam cells
+	 * @param count      the number of targets (the first count entries of targets)
+	 * @return the index of a closest target, or -1 if no target is reachable
+	 */
+	public int search(int startIndex, int[] targets, int count) {
+		this.setTargets(targets, count);
+		this.generation++;
+		if (this.generation == Integer.MAX_VALUE) {
+			// only happens once every ~2 billion searches
+			Arrays.fill(this.seenStamps, 0);
+			Arrays.fill(this.closedStamps, 0);
+			this.generation = 1;
+		}
+		this.start = startIndex;
+		this.heapSize = 0;
+		this.lastNodesExpanded = 0;
+		if (count == 0) {
+			return -1;
+		}
+
+		this.seenStamps[startIndex] = this.generation;
+		this.pathLengths[startIndex] = 0;
+		this.parents[startIndex] = -1;
+		int estimate = this.heuristic(this.board.rowOf(startIndex), this.board.columnOf(startIndex));
+		this.push(startIndex, priority(estimate, 0));
+
+		int found = -1;
+		while (this.heapSize > 0) {
+			int current = this.pop();
+			this.closedStamps[current] = this.generation;
+			this.lastNodesExpanded++;
+			if (current != startIndex && this.board.isSpam(current) && this.isTarget(current)) {
+				found = current;
+				break;
+			}
+
+			// (working out the row and column once per cell saves three divisions)
+			int length = this.pathLengths[current] + 1;
+			int row = this.board.rowOf(current);
+			int column = current - row * this.board.getNumColumns();
+			this.visit(this.board.north(current), row - 1, column, current, length);
+			this.visit(this.board.south(current), row + 1, column, current, length);
+			this.visit(this.board.east(current), row, column + 1, current, length);
+			this.visit(this.board.west(current), row, column - 1, current, length);
+		}
+		this.nodesExpanded += this.lastNodesExpanded;
+		return found;
+	}
+
+	/**
+	 * Records (or improves) the path to neighbor (in the given row and column)
+	 * through from, if neighbor is open and not yet expanded.
+	 */
+	private void visit(int neighbor, int row, int column, int from, int length) {
+		if (this.closedStamps[neighbor] == this.generation || !this.board.isOpen(neighbor)) {
+			return;
+		}
+		if (this.seenStamps[neighbor] != this.generation) {
+			this.seenStamps[neighbor] = this.generation;
+			this.pathLengths[neighbor] = length;
+			this.parents[neighbor] = from;
+			this.push(neighbor, priority(length + this.heuristic(row, column), length));
+		} else if (length < this.pathLengths[neighbor]) {
+			// the estimate drops by as much as the path gets shorter
+			int slot = this.heapSlots[neighbor];
+			int estimate = (int) ((this.heapPriorities[slot] + this.pathLengths[neighbor]) >> 32);
+			estimate -= this.pathLengths[neighbor] - length;
+			this.pathLengths[neighbor] = length;
+			this.parents[neighbor] = from;
+			this.siftUp(slot, neighbor, priority(estimate, length));
+		}
+	}
+
+	/* --------------------- */
+	/* The Manhattan targets */
+	/* --------------------- */
+
+	/** Copies the coordinates of the targets, so the heuristic is cheap. */
+	private void setTargets(int[] targets, int count) {
+		if (this.targetRows.length < count) {
+			this.targetRows = new int[count];
+			this.targetColumns = new int[count];
+		}
+		for (int i = 0; i < count; i++) {
+			this.targetRows[i] = this.board.rowOf(targets[i]);
+			this.targetColumns[i] = this.board.columnOf(targets[i]);
+		}
+		this.numTargets = count;
+	}
+
+	/** Returns the Manhattan distance from the given cell to the nearest target. */
+	private int heuristic(int row, int column) {
+		int best = Integer.MAX_VALUE;
+		for (int i = 0; i < this.numTargets; i++) {
+			int distance = Math.abs(row - this.targetRows[i]) + Math.abs(column - this.targetColumns[i]);
+			if (distance < best) {
+				best = distance;
+			}
+		}
+		return best;
+	}
+
+	/** Returns true if cell is one of the targets. */
+	private boolean isTarget(int cell) {
+		return this.heuristic(this.board.rowOf(cell), this.board.columnOf(cell)) == 0;
+	}
+
+	/* --------------- */
+	/* The binary heap */
+	/* --------------- */
+
+	/**
+	 * Returns the priority of a cell with the given estimate and path length: the
+	 * smaller estimate first or, on a tie, the longer path so far (which is
+	 * closer to a target). Packing both into one long makes every comparison in
+	 * the heap a single one.
+	 */
+	private static long priority(int estimate, int length) {
+		return ((long) estimate << 32) - length;
+	}
+
+	/** Adds cell to the open set with the given priority. */
+	private void push(int cell, long priority) {
+		int slot = this.heapSize++;
+		this.siftUp(slot, cell, priority);
+	}
+
+	/** Removes and returns the first cell of the open set. */
+	private int pop() {
+		int first = this.heap[0];
+		int lastSlot = --this.heapSize;
+		if (lastSlot > 0) {
+			this.siftDown(0, this.heap[lastSlot], this.heapPriorities[lastSlot]);
+		}
+		return first;
+	}
+
+	/**
+	 * Puts cell, with the given priority, in the given slot or the first one above
+	 * it where its parent comes first.
+	 */
+	private void siftUp(int slot, int cell, long priority) {
+		int[] theHeap = this.heap;
+		long[] priorities = this.heapPriorities;
+		while (slot > 0) {
+			int parentSlot = (slot - 1) >>> 1;
+			long parentPriority = priorities[parentSlot];
+			if (priority >= parentPriority) {
+				break;
+			}
+			int parent = theHeap[parentSlot];
+			theHeap[slot] = parent;
+			priorities[slot] = parentPriority;
+			this.heapSlots[parent] = slot;
+			slot = parentSlot;
+		}
+		theHeap[slot] = cell;
+		priorities[slot] = priority;
+		this.heapSlots[cell] = slot;
+	}
+
+	/**
+	 * Puts cell, with the given priority, in the given slot or the first one below
+	 * it where it comes before its children.
+	 */
+	private void siftDown(int slot, int cell, long priority) {
+		int[] theHeap = this.heap;
+		long[] priorities = this.heapPriorities;
+		int size = this.heapSize;
+		int half = size >>> 1;
+		while (slot < half) {
+			int childSlot = 2 * slot + 1;
+			long childPriority = priorities[childSlot];
+			int rightSlot = childSlot + 1;
+			if (rightSlot < size && priorities[rightSlot] < childPriority) {
+				childSlot = rightSlot;
+				childPriority = priorities[rightSlot];
+			}
+			if (priority <= childPriority) {
+				break;
+			}
+			int child = theHeap[childSlot];
+			theHeap[slot] = child;
+			priorities[slot] = childPriority;
+			this.heapSlots[child] = slot;
+			slot = childSlot;
+		}
+		theHeap[slot] = cell;
+		priorities[slot] = priority;
+		this.heapSlots[cell] = slot;
+	}
+
+	/* ------------------------------ */
+	/* Reading the result of a search */
+	/* ------------------------------ */
+
+	/**
+	 * Follows the parents back from target until we find the cell whose parent is
+	 * the start of the search (and which is therefore adjacent to the start).
+	 *
+	 * @param target a cell reached by the current search
+	 * @return the first step along the path to target
+	 */
+	public int getFirstStep(int target) {
+		if (target == this.start) {
+			return target;
+		}
+		int cell = target;
+		while (this.parents[cell] != this.start) {
+			cell = this.parents[cell];
+		}
+		return cell;
+	}
+
+	/** Returns the number of cells expanded by the last search. */
+	public int getLastNodesExpanded() {
+		return this.lastNodesExpanded;
+	}
+
+	/** Returns the number of cells expanded by all searches so far. */
+	public long getNodesExpanded() {
+		return this.nodesExpanded;
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.gradescope.spampede;
+
+import java.util.SplittableRandom;
+
+/**
+ * Checks AStarSearch: that on random boards, with walls and snake cells that
+ * make the Manhattan estimate a poor guess and so make paths get shorter after
+ * a cell is first seen, every search finds a target as close as a full BFS
+ * says the closest one is, and a first step that starts a shortest path to it.
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.AStarSearchCheck
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class AStarSearchCheck {
+
+	/** The number of random boards. */
+	private static final int NUM_BOARDS = 400;
+
+	/** The number of searches on each board, with a few cells changed in between. */
+	private static final int NUM_SEARCHES = 100;
+
+	private AStarSearchCheck() {
+	}
+
+	public static void main(String[] args) {
+		checkRandomBoards();
+		checkPlayedGames();
+		System.out.println("AStarSearch: all checks passed");
+	}
+
+	/**
+	 * Boards of every shape and density, searched again and again by the same
+	 * engine from random heads for random sets of their spam.
+	 */
+	private static void checkRandomBoards() {
+		SplittableRandom random = new SplittableRandom(1);
+		for (int n = 0; n < NUM_BOARDS; n++) {
+			Board board = new Board(3 + random.nextInt(38), 3 + random.nextInt(38));
+			int blocked = random.nextInt(50);
+			for (int index = 0; index < board.size(); index++) {
+				if (!board.isWall(index)) {
+					board.setType(index, randomType(random, blocked));
+				}
+			}
+			AStarSearch search = new AStarSearch(board);
+			int[] targets = new int[board.size()];
+
+			int rows = board.getNumRows() - 2;
+			int columns = board.getNumColumns() - 2;
+			int head = board.index(1 + random.nextInt(rows), 1 + random.nextInt(columns));
+			for (int i = 0; i < NUM_SEARCHES; i++) {
+				board.setType(head, randomType(random, blocked));
+				head = board.index(1 + random.nextInt(rows), 1 + random.nextInt(columns));
+				board.becomeHead(head);
+				for (int j = 0; j < 3; j++) {
+					int index = board.index(1 + random.nextInt(rows), 1 + random.nextInt(columns));
+					if (index != head) {
+						board.setType(index, randomType(random, blocked));
+					}
+				}
+
+				// some of the spam, up to MAX_TARGETS, with leftovers from earlier searches after them
+				int count = 0;
+				for (int index = 0; index < board.size() && count < AStarSearch.MAX_TARGETS; index++) {
+					if (board.isSpam(index) && random.nextInt(3) > 0) {
+						targets[count++] = index;
+					}
+				}
+				checkSearch(board, search, head, targets, count, "board " + n + " search " + i);
+			}
+		}
+	}
+
+	/** The searches A* makes in games played in AI_ASTAR_MODE. */
+	private static void checkPlayedGames() {
+		for (int seed = 0; seed < 10; seed++) {
+			GameEngine engine = GameEngine.newGame(GameConfig.DEFAULT, new SplittableRandom(seed));
+			engine.submit(GameCommand.AI_ASTAR_MODE);
+			SpampedeData data = engine.getData();
+			Board board = data.getBoard();
+			AStarSearch search = new AStarSearch(board);
+			int[] targets = new int[AStarSearch.MAX_TARGETS];
+			while (!engine.isGameOver() && engine.getCycleNum() < 3000) {
+				engine.step();
+				CellTypeIndex spam = data.getSpamCells();
+				int count = Math.min(spam.size(), targets.length);
+				for (int i = 0; i < count; i++) {
+					targets[i] = spam.get(i);
+				}
+				checkSearch(board, search, data.getSnakeBody().getHead(), targets, count,
+						"game " + seed + " at step " + engine.getCycleNum());
+			}
+		}
+	}
+
+	/** Returns a random type for an interior cell, blocked about blocked percent of the time. */
+	private static CellType randomType(SplittableRandom random, int blocked) {
+		int roll = random.nextInt(100);
+		if (roll < blocked) {
+			return random.nextBoolean() ? CellType.WALL : CellType.BODY;
+		}
+		return roll < blocked + 5 ? CellType.SPAM : CellType.OPEN;
+	}
+
+	/**
+	 * Searches from head for the first count targets and checks the target and
+	 * first step found against a full BFS.
+	 */
+	private static void checkSearch(Board board, AStarSearch search, int head, int[] targets, int count,
+			String what) {
+		int[] fromHead = Checks.bfsDistances(board, cell -> cell == head);
+		int closest = Integer.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			closest = Math.min(closest, fromHead[targets[i]]);
+		}
+
+		int found = search.search(head, targets, count);
+		if (closest == Integer.MAX_VALUE) {
+			Checks.check(found == -1, what + " finds no target when none can be reached");
+			return;
+		}
+		boolean isTarget = false;
+		for (int i = 0; i < count; i++) {
+			isTarget |= targets[i] == found;
+		}
+		Checks.check(isTarget, what + " finds one of its targets");
+		Checks.check(fromHead[found] == closest, what + " finds a target " + closest + " steps away");
+
+		int step = search.getFirstStep(found);
+		boolean adjacent = step == board.north(head) || step == board.south(head) || step == board.east(head)
+				|| step == board.west(head);
+		Checks.check(adjacent && board.isOpen(step), what + " steps from the head to an open neighbor");
+		int[] toTarget = Checks.bfsDistances(board, cell -> cell == found);
+		Checks.check(toTarget[step] == closest - 1, what + " steps along a shortest path");
+	}
+
+}
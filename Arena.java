@@ -0,0 +1,514 @@
+package com.gradescope.spampede;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A game in which several snakes, each with its own mode, share one board and
+ * compete for the same spam, e.g. to play one AI against another.
+ *
+ * <p>
+ * Every step has two phases. First, every snake decides where to move, all at
+ * the same time on the threads of a ForkJoinPool. Nothing changes the board
+ * during this phase, so every decision sees the same frozen board and the
+ * snakes cannot get in each other's way while they think. Then, on one thread,
+ * the moves are checked and made: a snake that moves into a wall or any snake
+ * (including its own tail, as in a game with one snake) crashes, and so do all
+ * the snakes whose heads meet in the same cell. Crashed snakes are taken off
+ * the board. The outcome of a move depends only on the board before the step,
+ * never on which thread decided what or in which order, so a game gives the
+ * same result on any number of threads.
+ * </p>
+ *
+ * <p>
+ * The searches a decision needs are done by engines that belong to a worker
+ * lane rather than to a snake, and snake i is decided by lane i modulo the
+ * number of lanes, so dozens of snakes on a large board need only one set of
+ * engines per thread. AI_MODE searches again before every move rather than
+ * following a cached path, since the other snakes keep changing the board.
+ * AI_HAMILTONIAN_MODE (one cycle cannot be shared) and AI_BITSET_MODE (its
+ * bitsets are rebuilt while it searches) are not available in the arena.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class Arena {
+
+	/** The shared board. */
+	private final Board board;
+
+	/** The size and speed of the game. */
+	private final GameConfig config;
+
+	/** The cells that are open, to place spam in. */
+	private final CellTypeIndex openCells;
+
+	/** The source of randomness for placing snakes and spam. */
+	private final SplittableRandom random;
+
+	/** The spam on the board, in slots 0 to numSpam-1, in no particular order. */
+	private final int[] spam;
+
+	/** The number of pieces of spam on the board. */
+	private int numSpam = 0;
+
+	/** The snakes, by number. */
+	private final Snake[] snakes;
+
+	/** The cell each snake decided to move to in the current step, by number. */
+	private final int[] decisions;
+
+	/** The search engines of each lane of deciders. */
+	private final Lane[] lanes;
+
+	/** The pool the decisions are made on. */
+	private final ForkJoinPool pool;
+
+	/** The distance to spam from every cell, if some snake uses it (or null). */
+	private final DistanceField distanceField;
+
+	/** For every cell, the step in which a snake last decided to move to it. */
+	private final int[] claimStamps;
+
+	/** For every cell, the number of snakes that decided to move to it then. */
+	private final int[] claimCounts;
+
+	/** The number of steps taken so far. */
+	private int cycleNum = 0;
+
+	/** The number of snakes that have not crashed. */
+	private int numAlive;
+
+	/** One snake of the arena. */
+	static final class Snake {
+
+		/** The cells of the snake, from tail to head. */
+		private final SnakeBody body;
+
+		/** The mode of the snake. */
+		private SnakeMode mode;
+
+		/** The number of pieces of spam eaten so far. */
+		private int numSpamEaten = 0;
+
+		/** The step in which the snake crashed, or -1 if it has not. */
+		private int crashCycle = -1;
+
+		private Snake(int capacity, SnakeMode mode) {
+			this.body = new SnakeBody(capacity);
+			this.mode = mode;
+		}
+
+		/** Returns the cells of the snake, from tail to head. */
+		public SnakeBody getBody() {
+			return this.body;
+		}
+
+		/** Returns the mode of the snake. */
+		public SnakeMode getMode() {
+			return this.mode;
+		}
+
+		/** Returns the number of pieces of spam the snake has eaten. */
+		public int getNumSpamEaten() {
+			return this.numSpamEaten;
+		}
+
+		/** Returns true if the snake has crashed. */
+		public boolean isCrashed() {
+			return this.crashCycle >= 0;
+		}
+
+		/** Returns the step in which the snake crashed, or -1 if it has not. */
+		public int getCrashCycle() {
+			return this.crashCycle;
+		}
+	}
+
+	/** The search engines used by one lane of deciders. */
+	private final class Lane extends RecursiveAction {
+
+		private final int number;
+		private final BreadthFirstSearch search;
+		private AStarSearch aStarSearch;
+		private SafePlanner safePlanner;
+
+		Lane(int number) {
+			this.number = number;
+			this.search = new BreadthFirstSearch(Arena.this.board);
+		}
+
+		/** Decides the moves of snakes number, number + lanes, and so on. */
+		@Override
+		protected void compute() {
+			for (int i = this.number; i < Arena.this.snakes.length; i += Arena.this.lanes.length) {
+				if (!Arena.this.snakes[i].isCrashed()) {
+					Arena.this.decisions[i] = Arena.this.decide(Arena.this.snakes[i], this);
+				}
+			}
+		}
+
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Creates an arena with one snake for each of the given modes, each placed at
+	 * a random spot facing east.
+	 *
+	 * @param config the size and speed of the game
+	 * @param modes  the mode of each snake
+	 * @param seed   the seed of the source of randomness that places the snakes
+	 *               and the spam
+	 * @param pool   the pool the snakes decide their moves on
+	 * @throws IllegalArgumentException if a mode is not available in the arena,
+	 *                                  or the snakes do not fit on the board
+	 */
+	public Arena(GameConfig config, SnakeMode[] modes, long seed, ForkJoinPool pool) {
+		this.config = config;
+		this.board = new Board(config.getNumRows(), config.getNumColumns());
+		this.openCells = new CellTypeIndex(this.board, CellType.OPEN);
+		this.board.addListener(this.openCells);
+		this.random = new SplittableRandom(seed);
+		this.spam = new int[this.board.size()];
+		this.pool = pool;
+
+		int size = this.board.size();
+		this.snakes = new Snake[modes.length];
+		this.decisions = new int[modes.length];
+		this.claimStamps = new int[size];
+		this.claimCounts = new int[size];
+		boolean anyDistance = false;
+		for (int i = 0; i < modes.length; i++) {
+			checkMode(modes[i]);
+			anyDistance |= modes[i] == SnakeMode.AI_DISTANCE_MODE;
+			this.snakes[i] = new Snake(size, modes[i]);
+			this.placeSnake(this.snakes[i]);
+		}
+		this.numAlive = modes.length;
+
+		this.lanes = new Lane[Math.max(1, Math.min(modes.length, pool.getParallelism()))];
+		for (int i = 0; i < this.lanes.length; i++) {
+			this.lanes[i] = new Lane(i);
+		}
+		if (anyDistance) {
+			this.distanceField = new DistanceField(this.board);
+			this.board.addListener(this.distanceField);
+		} else {
+			this.distanceField = null;
+		}
+	}
+
+	/**
+	 * Puts a snake of length two at a random open spot, facing east.
+	 */
+	private void placeSnake(Snake snake) {
+		for (int attempt = 0; attempt < 1000; attempt++) {
+			int body = this.openCells.randomCell(this.random);
+			if (body < 0) {
+				break;
+			}
+			int head = this.board.east(body);
+			if (this.board.getType(head) == CellType.OPEN
+					&& this.board.getType(this.board.east(head)) == CellType.OPEN) {
+				snake.body.addHead(body);
+				snake.body.addHead(head);
+				this.board.becomeBody(body);
+				this.board.becomeHead(head);
+				return;
+			}
+		}
+		throw new IllegalArgumentException("No room on the board for " + this.snakes.length + " snakes");
+	}
+
+	/** Throws an exception if the given mode cannot be used in the arena. */
+	private static void checkMode(SnakeMode mode) {
+		if (mode == SnakeMode.AI_HAMILTONIAN_MODE || mode == SnakeMode.AI_BITSET_MODE) {
+			throw new IllegalArgumentException("Not available in the arena: " + mode);
+		}
+	}
+
+	/* ---------------------------------- */
+	/* Access information about the arena */
+	/* ---------------------------------- */
+
+	/** Returns the shared board. */
+	public Board getBoard() {
+		return this.board;
+	}
+
+	/** Returns the number of snakes, crashed or not. */
+	public int getNumSnakes() {
+		return this.snakes.length;
+	}
+
+	/** Returns the snake with the given number. */
+	public Snake getSnake(int i) {
+		return this.snakes[i];
+	}
+
+	/** Returns the number of snakes that have not crashed. */
+	public int getNumAlive() {
+		return this.numAlive;
+	}
+
+	/** Returns the number of steps taken so far. */
+	public int getCycleNum() {
+		return this.cycleNum;
+	}
+
+	/** Returns true if every snake has crashed. */
+	public boolean isOver() {
+		return this.numAlive == 0;
+	}
+
+	/**
+	 * Changes the mode of the snake with the given number from the next step on.
+	 *
+	 * @throws IllegalArgumentException if the mode is not available in the arena
+	 */
+	public void setMode(int i, SnakeMode mode) {
+		checkMode(mode);
+		if (mode == SnakeMode.AI_DISTANCE_MODE && this.distanceField == null) {
+			throw new IllegalArgumentException("The arena was created without a distance field");
+		}
+		this.snakes[i].mode = mode;
+	}
+
+	/* -------- */
+	/* Gameplay */
+	/* -------- */
+
+	/**
+	 * Moves the game forward one step: moves every snake (every REFRESH_RATE
+	 * steps) and adds spam (every SPAM_ADD_RATE steps, or whenever there is
+	 * none).
+	 */
+	public void step() {
+		if (this.cycleNum % this.config.getRefreshRate() == 0 && this.numAlive > 0) {
+			this.decideAll();
+			this.moveAll();
+		}
+		if (this.numSpam == 0 || this.cycleNum % this.config.getSpamAddRate() == 0) {
+			this.addSpam();
+		}
+		this.cycleNum++;
+	}
+
+	/**
+	 * Has every snake decide its move, in parallel unless there is only one lane.
+	 */
+	private void decideAll() {
+		if (this.lanes.length == 1) {
+			this.lanes[0].compute();
+			return;
+		}
+		for (Lane lane : this.lanes) {
+			lane.reinitialize();
+		}
+		this.pool.invoke(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				ForkJoinTask.invokeAll(Arena.this.lanes);
+			}
+
+			private static final long serialVersionUID = 1L;
+		});
+	}
+
+	/**
+	 * Decides where the given snake should move, using the engines of lane. This
+	 * only reads the board.
+	 */
+	private int decide(Snake snake, Lane lane) {
+		int head = snake.body.getHead();
+		int next;
+		switch (snake.mode) {
+		case GOING_NORTH:
+			return this.board.north(head);
+		case GOING_SOUTH:
+			return this.board.south(head);
+		case GOING_EAST:
+			return this.board.east(head);
+		case GOING_WEST:
+			return this.board.west(head);
+		case AI_DISTANCE_MODE:
+			next = this.distanceField.getClosestNeighbor(head);
+			break;
+		case AI_SAFE_MODE:
+			if (lane.safePlanner == null) {
+				lane.safePlanner = new SafePlanner(this.board, null);
+			}
+			next = lane.safePlanner.getNextCell(snake.body, lane.search);
+			break;
+		case AI_ASTAR_MODE:
+			// with much spam, the heuristic costs more than a breadth-first search
+			if (this.numSpam > AStarSearch.MAX_TARGETS) {
+				next = this.searchForSpam(head, lane);
+				break;
+			}
+			if (lane.aStarSearch == null) {
+				lane.aStarSearch = new AStarSearch(this.board);
+			}
+			int closest = lane.aStarSearch.search(head, this.spam, this.numSpam);
+			next = closest < 0 ? -1 : lane.aStarSearch.getFirstStep(closest);
+			break;
+		default:
+			next = this.searchForSpam(head, lane);
+			break;
+		}
+		if (next >= 0) {
+			return next;
+		}
+
+		// if no spam can be reached, move to the first open neighbor (if any)
+		if (this.board.isOpen(this.board.north(head))) {
+			return this.board.north(head);
+		} else if (this.board.isOpen(this.board.south(head))) {
+			return this.board.south(head);
+		} else if (this.board.isOpen(this.board.east(head))) {
+			return this.board.east(head);
+		}
+		return this.board.west(head);
+	}
+
+	/**
+	 * Returns the first step from head along a shortest path to the closest
+	 * spam, found by the breadth-first search of lane, or -1 if no spam can be
+	 * reached.
+	 */
+	private int searchForSpam(int head, Lane lane) {
+		int closestSpam = lane.search.searchForSpam(head);
+		return closestSpam < 0 ? -1 : lane.search.getFirstStep(closestSpam);
+	}
+
+	/**
+	 * Checks the decided moves against the board before the step, then crashes
+	 * the snakes that hit something and moves the others, in order of number.
+	 */
+	private void moveAll() {
+		// count how many snakes are heading for each cell
+		int stamp = this.cycleNum + 1;
+		for (int i = 0; i < this.snakes.length; i++) {
+			if (!this.snakes[i].isCrashed()) {
+				int cell = this.decisions[i];
+				if (this.claimStamps[cell] != stamp) {
+					this.claimStamps[cell] = stamp;
+					this.claimCounts[cell] = 0;
+				}
+				this.claimCounts[cell]++;
+			}
+		}
+
+		// crash every snake that hits a wall, a snake or another head
+		for (int i = 0; i < this.snakes.length; i++) {
+			Snake snake = this.snakes[i];
+			int cell = this.decisions[i];
+			if (!snake.isCrashed() && (!this.board.isOpen(cell) || this.claimCounts[cell] > 1)) {
+				snake.crashCycle = this.cycleNum;
+				this.numAlive--;
+			}
+		}
+
+		for (int i = 0; i < this.snakes.length; i++) {
+			Snake snake = this.snakes[i];
+			if (snake.crashCycle == this.cycleNum) {
+				this.removeSnake(snake);
+			} else if (!snake.isCrashed()) {
+				this.moveSnake(snake, this.decisions[i]);
+			}
+		}
+	}
+
+	/**
+	 * Moves the head of snake to the given open cell, and eats the spam there or
+	 * moves the tail up.
+	 */
+	private void moveSnake(Snake snake, int cell) {
+		SnakeBody body = snake.body;
+		if (this.board.isSpam(cell)) {
+			snake.numSpamEaten++;
+			this.removeSpam(cell);
+		} else {
+			this.board.becomeOpen(body.removeTail());
+		}
+		body.addHead(cell);
+		this.board.becomeBody(body.getNeck());
+		this.board.becomeHead(cell);
+	}
+
+	/** Takes a crashed snake off the board. */
+	private void removeSnake(Snake snake) {
+		SnakeBody body = snake.body;
+		for (int i = 0; i < body.size(); i++) {
+			this.board.becomeOpen(body.get(i));
+		}
+	}
+
+	/* ---- */
+	/* Spam */
+	/* ---- */
+
+	/**
+	 * Adds spam to a random open cell, unless the board is already too full (the
+	 * same rule as SpampedeData.addSpam).
+	 */
+	private void addSpam() {
+		double ratioFree = this.openCells.size() / (double) this.board.size();
+		if (this.openCells.size() == 0 || ratioFree < 0.2) {
+			return;
+		}
+		int cell = this.openCells.randomCell(this.random);
+		this.board.becomeSpam(cell);
+		this.spam[this.numSpam++] = cell;
+	}
+
+	/** Forgets the spam at the given cell, which has just been eaten. */
+	private void removeSpam(int cell) {
+		for (int i = 0; i < this.numSpam; i++) {
+			if (this.spam[i] == cell) {
+				this.spam[i] = this.spam[--this.numSpam];
+				return;
+			}
+		}
+	}
+
+	/* ------- */
+	/* Results */
+	/* ------- */
+
+	/**
+	 * Returns one line per mode with how its snakes did: how many there were, how
+	 * many crashed, and their average score and survival.
+	 */
+	public List<String> summarize() {
+		List<String> lines = new ArrayList<String>();
+		for (SnakeMode mode : SnakeMode.values()) {
+			int count = 0;
+			int crashed = 0;
+			long score = 0;
+			long survival = 0;
+			for (Snake snake : this.snakes) {
+				if (snake.mode == mode) {
+					count++;
+					score += snake.numSpamEaten;
+					if (snake.isCrashed()) {
+						crashed++;
+						survival += snake.crashCycle;
+					} else {
+						survival += this.cycleNum;
+					}
+				}
+			}
+			if (count > 0) {
+				lines.add(String.format("%s: %d snakes, %d crashed, score avg %.2f, survival avg %.1f cycles", mode,
+						count, crashed, (double) score / count, (double) survival / count));
+			}
+		}
+		return lines;
+	}
+
+}
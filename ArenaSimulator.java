@@ -0,0 +1,81 @@
+package com.gradescope.spampede;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Plays one Arena game, without any graphics, and reports how the snakes of
+ * each mode did, e.g. to load-test one AI against another.
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.ArenaSimulator [snakes] [maxCycles]
+ * [seed] [threads] [--key=value...], where snakes lists the modes and how many
+ * snakes play in each, like AI_MODE:10,AI_SAFE_MODE:10, and the --key=value
+ * settings (e.g. --board.width=200) are those of GameConfig.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class ArenaSimulator {
+
+	/** The snakes that play by default. */
+	private static final String DEFAULT_SNAKES = "AI_MODE:4,AI_SAFE_MODE:4,AI_ASTAR_MODE:4,AI_DISTANCE_MODE:4";
+
+	/** The default limit on the length of the game, in cycles. */
+	private static final int DEFAULT_MAX_CYCLES = 100_000;
+
+	private ArenaSimulator() {
+	}
+
+	/**
+	 * Reads a list of modes and counts like AI_MODE:10,AI_SAFE_MODE:10 (a mode
+	 * without a count plays one snake).
+	 *
+	 * @return the mode of each snake
+	 * @throws IllegalArgumentException if the list is malformed
+	 */
+	static SnakeMode[] parseSnakes(String text) {
+		List<SnakeMode> modes = new ArrayList<SnakeMode>();
+		for (String entry : text.split(",")) {
+			String[] parts = entry.trim().split(":");
+			SnakeMode mode = SnakeMode.valueOf(parts[0]);
+			int count = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+			for (int i = 0; i < count; i++) {
+				modes.add(mode);
+			}
+		}
+		return modes.toArray(new SnakeMode[0]);
+	}
+
+	/** Plays an arena game and prints how each mode did. */
+	public static void main(String[] args) {
+		GameConfig config = GameConfig.fromArgs(args);
+		String[] positional = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+		SnakeMode[] modes = parseSnakes(positional.length > 0 ? positional[0] : DEFAULT_SNAKES);
+		int maxCycles = positional.length > 1 ? Integer.parseInt(positional[1]) : DEFAULT_MAX_CYCLES;
+		long seed = positional.length > 2 ? Long.parseLong(positional[2]) : 0L;
+		int threads = positional.length > 3 ? Integer.parseInt(positional[3])
+				: Runtime.getRuntime().availableProcessors();
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			Arena arena = new Arena(config, modes, seed, pool);
+			System.out.println(modes.length + " snakes on " + threads + " threads, " + config);
+			long startTime = System.nanoTime();
+			while (!arena.isOver() && arena.getCycleNum() < maxCycles) {
+				arena.step();
+			}
+			long elapsed = System.nanoTime() - startTime;
+			for (String line : arena.summarize()) {
+				System.out.println(line);
+			}
+			System.out.printf("%d cycles, board %016x, %.2f s (%.0f cycles/sec)%n", arena.getCycleNum(),
+					arena.getBoard().contentHash(), elapsed / 1e9, arena.getCycleNum() * 1e9 / Math.max(1, elapsed));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+}
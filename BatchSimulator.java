@@ -0,0 +1,273 @@
+package com.gradescope.spampede;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many independent AI games in parallel, without any graphics, and
+ * summarizes how well the AI did.
+ *
+ * <p>
+ * Game i is seeded with baseSeed + i and owns its own GameEngine and
+ * SpampedeData, so games share no mutable state and a batch gives the same
+ * results no matter how many threads play it. The games are split recursively
+ * across a ForkJoinPool, and the per-game results are merged on the way back
+ * up.
+ * </p>
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.BatchSimulator [games] [threads] [mode]
+ * [seed] [--key=value...], where mode is one of the AI modes of SnakeMode and
+ * the --key=value settings (e.g. --board.width=200) are those of GameConfig.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class BatchSimulator {
+
+	/** Games per task below which a task plays its games itself. */
+	private static final int GAMES_PER_TASK = 4;
+
+	/** The default limit on the length of one game, in cycles. */
+	public static final int DEFAULT_MAX_CYCLES = 1_000_000;
+
+	/** The number of games to play. */
+	private final int numGames;
+
+	/** The seed of the first game; game i uses baseSeed + i. */
+	private final long baseSeed;
+
+	/** The AI mode every game is played in. */
+	private final SnakeMode mode;
+
+	/** Games still running after this many cycles are stopped. */
+	private final int maxCycles;
+
+	/** The size and speed of every game. */
+	private final GameConfig config;
+
+	/**
+	 * Creates a new batch of games.
+	 *
+	 * @param numGames  the number of games to play
+	 * @param baseSeed  the seed of the first game
+	 * @param mode      the AI mode every game is played in
+	 * @param maxCycles the limit on the length of one game, in cycles
+	 */
+	public BatchSimulator(int numGames, long baseSeed, SnakeMode mode, int maxCycles) {
+		this(numGames, baseSeed, mode, maxCycles, GameConfig.DEFAULT);
+	}
+
+	/**
+	 * Creates a new batch of games of the size and speed given by config.
+	 *
+	 * @param numGames  the number of games to play
+	 * @param baseSeed  the seed of the first game
+	 * @param mode      the AI mode every game is played in
+	 * @param maxCycles the limit on the length of one game, in cycles
+	 * @param config    the size and speed of every game
+	 */
+	public BatchSimulator(int numGames, long baseSeed, SnakeMode mode, int maxCycles, GameConfig config) {
+		if (!mode.isAI()) {
+			throw new IllegalArgumentException("Not an AI mode: " + mode);
+		}
+		this.numGames = numGames;
+		this.baseSeed = baseSeed;
+		this.mode = mode;
+		this.maxCycles = maxCycles;
+		this.config = config;
+	}
+
+	/* ----------------- */
+	/* Playing the games */
+	/* ----------------- */
+
+	/**
+	 * Plays every game of this batch on the given pool.
+	 *
+	 * @return the combined results of all the games
+	 */
+	public Summary run(ForkJoinPool pool) {
+		long startTime = System.nanoTime();
+		Summary summary = pool.invoke(new GamesTask(0, this.numGames));
+		summary.elapsedNanos = System.nanoTime() - startTime;
+		return summary;
+	}
+
+	/**
+	 * Plays a single game until the snake crashes or maxCycles have passed.
+	 *
+	 * @param gameNum the number of the game within this batch
+	 * @return the results of that one game
+	 */
+	Summary playGame(int gameNum) {
+		GameEngine engine = GameEngine.newGame(this.config, new SplittableRandom(this.baseSeed + gameNum));
+		engine.getData().setMode(this.mode);
+		while (!engine.isGameOver() && engine.getCycleNum() < this.maxCycles) {
+			engine.step();
+		}
+
+		Summary result = new Summary();
+		result.add(engine);
+		return result;
+	}
+
+	/**
+	 * Plays the games numbered from start (inclusive) to end (exclusive),
+	 * splitting the range in half until it is small.
+	 */
+	private final class GamesTask extends RecursiveTask<Summary> {
+
+		private final int start;
+		private final int end;
+
+		GamesTask(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected Summary compute() {
+			if (this.end - this.start <= GAMES_PER_TASK) {
+				Summary summary = new Summary();
+				for (int gameNum = this.start; gameNum < this.end; gameNum++) {
+					summary.merge(BatchSimulator.this.playGame(gameNum));
+				}
+				return summary;
+			}
+
+			int middle = (this.start + this.end) >>> 1;
+			GamesTask left = new GamesTask(this.start, middle);
+			left.fork();
+			Summary summary = new GamesTask(middle, this.end).compute();
+			summary.merge(left.join());
+			return summary;
+		}
+
+		private static final long serialVersionUID = 1L;
+	}
+
+	/* ----------------------- */
+	/* Summarizing the results */
+	/* ----------------------- */
+
+	/**
+	 * The combined results of a number of games.
+	 */
+	static final class Summary {
+		private int games = 0;
+		private int gamesOver = 0;
+		private long totalCycles = 0;
+		private long totalMoves = 0;
+		private long totalScore = 0;
+		private int minScore = Integer.MAX_VALUE;
+		private int maxScore = 0;
+		private int minCycles = Integer.MAX_VALUE;
+		private int maxCycles = 0;
+
+		/** The wall-clock time taken to play the games (set by run). */
+		private long elapsedNanos = 0;
+
+		/** Adds the results of the game run by engine. */
+		void add(GameEngine engine) {
+			int score = engine.getNumSpamEaten();
+			int cycles = engine.getCycleNum();
+			this.games++;
+			if (engine.isGameOver()) {
+				this.gamesOver++;
+			}
+			this.totalCycles += cycles;
+			this.totalMoves += engine.getNumMoves();
+			this.totalScore += score;
+			this.minScore = Math.min(this.minScore, score);
+			this.maxScore = Math.max(this.maxScore, score);
+			this.minCycles = Math.min(this.minCycles, cycles);
+			this.maxCycles = Math.max(this.maxCycles, cycles);
+		}
+
+		/** Adds the results of other to these results. */
+		void merge(Summary other) {
+			this.games += other.games;
+			this.gamesOver += other.gamesOver;
+			this.totalCycles += other.totalCycles;
+			this.totalMoves += other.totalMoves;
+			this.totalScore += other.totalScore;
+			this.minScore = Math.min(this.minScore, other.minScore);
+			this.maxScore = Math.max(this.maxScore, other.maxScore);
+			this.minCycles = Math.min(this.minCycles, other.minCycles);
+			this.maxCycles = Math.max(this.maxCycles, other.maxCycles);
+		}
+
+		/** Returns the number of games played. */
+		public int getGames() {
+			return this.games;
+		}
+
+		/** Returns the average number of pieces of spam eaten per game. */
+		public double getAverageScore() {
+			return this.games == 0 ? 0 : (double) this.totalScore / this.games;
+		}
+
+		/** Returns the average number of cycles a game lasted. */
+		public double getAverageCycles() {
+			return this.games == 0 ? 0 : (double) this.totalCycles / this.games;
+		}
+
+		/** Returns the average number of moves the snake made per spam eaten. */
+		public double getMovesPerSpam() {
+			return this.totalScore == 0 ? 0 : (double) this.totalMoves / this.totalScore;
+		}
+
+		/** Returns the number of games played per second of wall-clock time. */
+		public double getGamesPerSecond() {
+			return this.games * 1e9 / Math.max(1, this.elapsedNanos);
+		}
+
+		/** Returns the number of cycles simulated per second of wall-clock time. */
+		public double getCyclesPerSecond() {
+			return this.totalCycles * 1e9 / Math.max(1, this.elapsedNanos);
+		}
+
+		/** Returns the results as a short, human-readable report. */
+		@Override
+		public String toString() {
+			return String.format(
+					"games: %d (%d crashed, %d hit the cycle limit)%n"
+							+ "score: avg %.2f, min %d, max %d%n"
+							+ "survival (cycles): avg %.1f, min %d, max %d%n"
+							+ "moves per spam: %.2f%n"
+							+ "throughput: %.1f games/sec, %.0f ticks/sec (%.2f s)",
+					this.games, this.gamesOver, this.games - this.gamesOver, this.getAverageScore(),
+					this.games == 0 ? 0 : this.minScore, this.maxScore, this.getAverageCycles(),
+					this.games == 0 ? 0 : this.minCycles, this.maxCycles, this.getMovesPerSpam(),
+					this.getGamesPerSecond(), this.getCyclesPerSecond(), this.elapsedNanos / 1e9);
+		}
+	}
+
+	/* ----------- */
+	/* Entry point */
+	/* ----------- */
+
+	/** Plays a batch of games and prints the summary. */
+	public static void main(String[] args) {
+		GameConfig config = GameConfig.fromArgs(args);
+		String[] positional = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+		int games = positional.length > 0 ? Integer.parseInt(positional[0]) : 1000;
+		int threads = positional.length > 1 ? Integer.parseInt(positional[1])
+				: Runtime.getRuntime().availableProcessors();
+		SnakeMode mode = positional.length > 2 ? SnakeMode.valueOf(positional[2]) : SnakeMode.AI_MODE;
+		long seed = positional.length > 3 ? Long.parseLong(positional[3]) : 0L;
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			BatchSimulator batch = new BatchSimulator(games, seed, mode, DEFAULT_MAX_CYCLES, config);
+			System.out.println(mode + " on " + threads + " threads, " + config);
+			System.out.println(batch.run(pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,282 @@
+package com.gradescope.spampede;
+
+import java.util.Arrays;
+
+/**
+ * A breadth-first search that works on 64 cells at a time, for very large
+ * boards.
+ *
+ * <p>
+ * Every row of the board is stored as a row of bits in long words: one bitset
+ * for the cells the snake can move through (open or spam) and one for the spam.
+ * Both are kept up to date as a BoardListener. A search keeps its frontier
+ * (the cells first reached at the current distance) as a bitset too, and grows
+ * it by one step for a whole word at a time: shifting a word left or right by
+ * one bit moves its cells east or west, and the same word of the rows above
+ * and below moves them north or south. Only the words the frontier touches
+ * are expanded, so a frontier that runs along a row costs one step per 64
+ * cells instead of one per cell.
+ * </p>
+ *
+ * <p>
+ * To find the next move, the flood starts from every spam cell at once and
+ * grows until it hits one of the head's neighbors. That neighbor is the one
+ * closest to any spam, so it is the first step of a shortest path from the
+ * head to the closest spam, and one flood is enough (a flood from the head
+ * would need a second one back from the spam it found to recover the step).
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class BitsetSearch implements BoardListener {
+
+	/** The board being searched. */
+	private final Board board;
+
+	/** The number of long words per row. */
+	private final int wordsPerRow;
+
+	/** The cells the snake can move through (open or spam). */
+	private final long[] passable;
+
+	/** The cells that contain spam. */
+	private final long[] spam;
+
+	/** The cells reached by the current flood. */
+	private final long[] visited;
+
+	/** The cells first reached at the current distance. */
+	private long[] frontier;
+
+	/** The cells first reached at the next distance. */
+	private long[] next;
+
+	/** The words of frontier that have any bits set, in slots 0 to frontierSize-1. */
+	private int[] frontierWords;
+
+	/** The number of words of the frontier that have any bits set. */
+	private int frontierSize = 0;
+
+	/** The words of next that have any bits set, in slots 0 to nextSize-1. */
+	private int[] nextWords;
+
+	/** The number of words of next that have any bits set. */
+	private int nextSize = 0;
+
+	/** For every word, the last step of a flood that expanded it. */
+	private final int[] nextStamps;
+
+	/** The current step of the current flood. */
+	private int stamp = 0;
+
+	/** The cells the backward flood is looking for (the head's neighbors). */
+	private final long[] goals;
+
+	/** Scratch space for the neighbors of the head. */
+	private final int[] neighbors = new int[4];
+
+	/** The number of words expanded by all floods so far. */
+	private long wordsExpanded = 0;
+
+	/**
+	 * Creates the bitsets for the given board. The caller should register the
+	 * search as a listener of the board to keep them up to date.
+	 *
+	 * @param board the board to search
+	 */
+	public BitsetSearch(Board board) {
+		this.board = board;
+		// one extra word per row, always empty, so words never carry bits across rows
+		this.wordsPerRow = ((board.getNumColumns() + 63) >>> 6) + 1;
+		int words = board.getNumRows() * this.wordsPerRow;
+		this.passable = new long[words];
+		this.spam = new long[words];
+		this.visited = new long[words];
+		this.frontier = new long[words];
+		this.next = new long[words];
+		this.frontierWords = new int[words];
+		this.nextWords = new int[words];
+		this.nextStamps = new int[words];
+		this.goals = new long[words];
+		int size = board.size();
+		for (int index = 0; index < size; index++) {
+			this.cellChanged(index, CellType.WALL, board.getType(index));
+		}
+	}
+
+	/* ------------------------------ */
+	/* Keeping the bitsets up to date */
+	/* ------------------------------ */
+
+	@Override
+	public void cellChanged(int index, CellType oldType, CellType newType) {
+		int word = this.wordOf(index);
+		long bit = 1L << this.board.columnOf(index);
+		if (newType == CellType.OPEN || newType == CellType.SPAM) {
+			this.passable[word] |= bit;
+		} else {
+			this.passable[word] &= ~bit;
+		}
+		if (newType == CellType.SPAM) {
+			this.spam[word] |= bit;
+		} else {
+			this.spam[word] &= ~bit;
+		}
+	}
+
+	/** Returns the word holding the bit of the given cell. */
+	private int wordOf(int index) {
+		return this.board.rowOf(index) * this.wordsPerRow + (this.board.columnOf(index) >>> 6);
+	}
+
+	/* ---------------- */
+	/* Finding the move */
+	/* ---------------- */
+
+	/**
+	 * Finds the first step along a shortest path from start to the closest spam.
+	 *
+	 * @param start the cell to search from, typically the snake head
+	 * @return the index of the neighbor of start to move to, or -1 if no spam is
+	 *         reachable
+	 */
+	public int getFirstStep(int start) {
+		this.board.getNeighbors(start, this.neighbors);
+		for (int neighbor : this.neighbors) {
+			if (this.board.isSpam(neighbor)) {
+				return neighbor;
+			}
+		}
+
+		// mark the open neighbors of the start as goals, and flood from the spam
+		boolean anyGoals = false;
+		for (int neighbor : this.neighbors) {
+			if (this.board.isOpen(neighbor)) {
+				this.goals[this.wordOf(neighbor)] |= 1L << this.board.columnOf(neighbor);
+				anyGoals = true;
+			}
+		}
+		int step = anyGoals ? this.floodFromSpam(this.goals) : -1;
+		for (int neighbor : this.neighbors) {
+			this.goals[this.wordOf(neighbor)] = 0;
+		}
+		return step;
+	}
+
+	/** Returns the number of words expanded by all floods so far. */
+	public long getWordsExpanded() {
+		return this.wordsExpanded;
+	}
+
+	/* ----------------------- */
+	/* The word-parallel flood */
+	/* ----------------------- */
+
+	/**
+	 * Floods outwards from every spam cell at once through passable cells, one
+	 * distance at a time, until the frontier reaches a cell whose bit is set in
+	 * targets.
+	 *
+	 * @return the target closest to any spam (the one with the lowest index, if
+	 *         several are equally close), or -1 if no target can be reached
+	 */
+	private int floodFromSpam(long[] targets) {
+		this.frontierSize = 0;
+		for (int i = 0; i < this.spam.length; i++) {
+			long bits = this.spam[i];
+			this.visited[i] = bits;
+			if (bits != 0) {
+				this.frontier[i] = bits;
+				this.frontierWords[this.frontierSize++] = i;
+			}
+		}
+
+		int found = -1;
+		while (this.frontierSize > 0 && found < 0) {
+			this.nextSize = 0;
+			this.stamp++;
+			if (this.stamp == Integer.MAX_VALUE) {
+				Arrays.fill(this.nextStamps, 0);
+				this.stamp = 1;
+			}
+			for (int k = 0; k < this.frontierSize; k++) {
+				// a word of the frontier can only reach itself and the words around it
+				int i = this.frontierWords[k];
+				long f = this.frontier[i];
+				found = this.expand(i, targets, found);
+				if ((f & 1L) != 0) {
+					found = this.expand(i - 1, targets, found); // its westmost cell
+				}
+				if (f < 0) {
+					found = this.expand(i + 1, targets, found); // its eastmost cell
+				}
+				found = this.expand(i - this.wordsPerRow, targets, found);
+				found = this.expand(i + this.wordsPerRow, targets, found);
+			}
+
+			// the old frontier becomes the (empty) next buffer
+			for (int k = 0; k < this.frontierSize; k++) {
+				this.frontier[this.frontierWords[k]] = 0L;
+			}
+			long[] swapBits = this.frontier;
+			this.frontier = this.next;
+			this.next = swapBits;
+			int[] swapWords = this.frontierWords;
+			this.frontierWords = this.nextWords;
+			this.nextWords = swapWords;
+			this.frontierSize = this.nextSize;
+		}
+
+		// leave the frontier empty for the next flood
+		for (int k = 0; k < this.frontierSize; k++) {
+			this.frontier[this.frontierWords[k]] = 0L;
+		}
+		this.frontierSize = 0;
+		return found;
+	}
+
+	/**
+	 * Works out which cells of word i the frontier reaches in one step, all 64 at
+	 * once: shifting the word itself by one bit moves its cells east or west
+	 * (with the bits carried over from the words before and after), and the same
+	 * word of the rows above and below moves their cells south or north.
+	 *
+	 * @return the target found so far (or -1)
+	 */
+	private int expand(int i, long[] targets, int found) {
+		if (this.nextStamps[i] == this.stamp || this.passable[i] == 0) {
+			return found; // already done for this step, or nothing to reach
+		}
+		this.nextStamps[i] = this.stamp;
+		this.wordsExpanded++;
+
+		long[] bits = this.frontier;
+		long f = bits[i];
+		long grown = (f << 1) | (f >>> 1) | (bits[i - 1] >>> 63) | (bits[i + 1] << 63) | bits[i - this.wordsPerRow]
+				| bits[i + this.wordsPerRow];
+		long reached = grown & this.passable[i] & ~this.visited[i];
+		if (reached == 0) {
+			return found;
+		}
+		this.visited[i] |= reached;
+		this.next[i] = reached;
+		this.nextWords[this.nextSize++] = i;
+
+		long hit = reached & targets[i];
+		if (hit != 0) {
+			int cell = this.cellOf(i, Long.numberOfTrailingZeros(hit));
+			if (found < 0 || cell < found) {
+				found = cell;
+			}
+		}
+		return found;
+	}
+
+	/** Returns the index of the cell held by the given bit of word i. */
+	private int cellOf(int i, int bit) {
+		int row = i / this.wordsPerRow;
+		int column = ((i - row * this.wordsPerRow) << 6) + bit;
+		return this.board.index(row, column);
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.gradescope.spampede;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * Checks BitsetSearch: that on random boards up to a few words wide, kept up
+ * to date as cells change, the flood from the spam picks a neighbor of the
+ * head that a full BFS says is as close to spam as any, or none when no spam
+ * can be reached.
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.BitsetSearchCheck
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class BitsetSearchCheck {
+
+	/** The number of random boards. */
+	private static final int NUM_BOARDS = 300;
+
+	/** The number of searches on each board, with a few cells changed in between. */
+	private static final int NUM_SEARCHES = 100;
+
+	private BitsetSearchCheck() {
+	}
+
+	public static void main(String[] args) {
+		checkRandomBoards();
+		checkPlayedGames();
+		System.out.println("BitsetSearch: all checks passed");
+	}
+
+	/**
+	 * Boards from 1 to 4 words wide and of every density, whose floods cross the
+	 * edges of words, searched from random heads as cells change.
+	 */
+	private static void checkRandomBoards() {
+		SplittableRandom random = new SplittableRandom(1);
+		for (int n = 0; n < NUM_BOARDS; n++) {
+			Board board = new Board(3 + random.nextInt(30), 3 + random.nextInt(200));
+			int blocked = random.nextInt(50);
+			int spam = 1 + random.nextInt(10);
+			for (int index = 0; index < board.size(); index++) {
+				if (!board.isWall(index)) {
+					board.setType(index, randomType(random, blocked, spam));
+				}
+			}
+			BitsetSearch search = new BitsetSearch(board);
+			board.addListener(search);
+
+			int rows = board.getNumRows() - 2;
+			int columns = board.getNumColumns() - 2;
+			int head = board.index(1 + random.nextInt(rows), 1 + random.nextInt(columns));
+			for (int i = 0; i < NUM_SEARCHES; i++) {
+				board.setType(head, randomType(random, blocked, spam));
+				head = board.index(1 + random.nextInt(rows), 1 + random.nextInt(columns));
+				board.becomeHead(head);
+				for (int j = 0; j < 5; j++) {
+					int index = board.index(1 + random.nextInt(rows), 1 + random.nextInt(columns));
+					if (index != head) {
+						board.setType(index, randomType(random, blocked, spam));
+					}
+				}
+				checkStep(board, search, head, "board " + n + " search " + i);
+			}
+		}
+	}
+
+	/** The moves of games played on a board wider than a word. */
+	private static void checkPlayedGames() {
+		Properties settings = new Properties();
+		settings.setProperty(GameConfig.BOARD_HEIGHT, "40");
+		settings.setProperty(GameConfig.BOARD_WIDTH, "150");
+		GameConfig config = GameConfig.fromProperties(settings);
+		for (int seed = 0; seed < 6; seed++) {
+			GameEngine engine = GameEngine.newGame(config, new SplittableRandom(seed));
+			engine.submit(GameCommand.AI_BITSET_MODE);
+			SpampedeData data = engine.getData();
+			Board board = data.getBoard();
+			BitsetSearch search = new BitsetSearch(board);
+			board.addListener(search);
+			while (!engine.isGameOver() && engine.getCycleNum() < 3000) {
+				engine.step();
+				checkStep(board, search, data.getSnakeBody().getHead(),
+						"game " + seed + " at step " + engine.getCycleNum());
+			}
+		}
+	}
+
+	/**
+	 * Returns a random type for an interior cell, blocked about blocked percent
+	 * of the time and spam about spam percent of the time.
+	 */
+	private static CellType randomType(SplittableRandom random, int blocked, int spam) {
+		int roll = random.nextInt(100);
+		if (roll < blocked) {
+			return random.nextBoolean() ? CellType.WALL : CellType.BODY;
+		}
+		return roll < blocked + spam ? CellType.SPAM : CellType.OPEN;
+	}
+
+	/** Checks the first step from head against a full BFS from every spam cell. */
+	private static void checkStep(Board board, BitsetSearch search, int head, String what) {
+		int[] toSpam = Checks.bfsDistances(board, board::isSpam);
+		int[] neighbors = board.getNeighbors(head, new int[4]);
+		int closest = Integer.MAX_VALUE;
+		for (int neighbor : neighbors) {
+			if (board.isOpen(neighbor)) {
+				closest = Math.min(closest, toSpam[neighbor]);
+			}
+		}
+
+		int step = search.getFirstStep(head);
+		if (closest == Integer.MAX_VALUE) {
+			Checks.check(step == -1, what + " finds no step when no spam can be reached");
+			return;
+		}
+		boolean adjacent = step == neighbors[0] || step == neighbors[1] || step == neighbors[2]
+				|| step == neighbors[3];
+		Checks.check(adjacent && board.isOpen(step), what + " steps from the head to an open neighbor");
+		Checks.check(toSpam[step] == closest, what + " steps to a neighbor " + closest + " steps from spam");
+	}
+
+}
@@ -0,0 +1,304 @@
+package com.gradescope.spampede;
+
+import java.util.Arrays;
+
+/**
+ * A compact representation of the board. The type of every cell is stored in
+ * a single flat byte array indexed by row * numColumns + column, so scanning
+ * the board walks contiguous memory instead of one object per cell.
+ *
+ * <p>
+ * Cells are usually referred to by their index. BoardCell objects are only
+ * thin views onto a Board (see getCell).
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class Board {
+
+	/** All cell types, indexed by the byte stored for each cell. */
+	private static final CellType[] TYPES = CellType.values();
+
+	private static final byte WALL = (byte) CellType.WALL.ordinal();
+	private static final byte OPEN = (byte) CellType.OPEN.ordinal();
+	private static final byte SPAM = (byte) CellType.SPAM.ordinal();
+	private static final byte HEAD = (byte) CellType.HEAD.ordinal();
+	private static final byte BODY = (byte) CellType.BODY.ordinal();
+
+	/** The height of this board (including walls) in cells. */
+	private final int numRows;
+
+	/** The width of this board (including walls) in cells. */
+	private final int numColumns;
+
+	/** The type of every cell, stored as a CellType ordinal. */
+	private final byte[] cellTypes;
+
+	/** The observers told about every change to the contents of a cell. */
+	private BoardListener[] listeners = new BoardListener[0];
+
+	/** The search engine for this board, created when first needed. */
+	private BreadthFirstSearch search;
+
+	/**
+	 * Creates a new board with walls on the boundary and open cells in the
+	 * interior.
+	 *
+	 * @param numRows    the height of the board (including walls), at least 3
+	 * @param numColumns the width of the board (including walls), at least 3
+	 */
+	public Board(int numRows, int numColumns) {
+		this.numRows = numRows;
+		this.numColumns = numColumns;
+		int size = numRows * numColumns;
+		this.cellTypes = new byte[size];
+
+		// WALL is the default (zero) value, so only the interior needs filling
+		for (int row = 1; row < numRows - 1; row++) {
+			int start = row * numColumns;
+			Arrays.fill(this.cellTypes, start + 1, start + numColumns - 1, OPEN);
+		}
+	}
+
+	/* ------------------------------------ */
+	/* Access basic information about cells */
+	/* ------------------------------------ */
+
+	/** Returns the height of this board (including walls) in cells. */
+	public int getNumRows() {
+		return this.numRows;
+	}
+
+	/** Returns the width of this board (including walls) in cells. */
+	public int getNumColumns() {
+		return this.numColumns;
+	}
+
+	/** Returns the total number of cells (including walls). */
+	public int size() {
+		return this.cellTypes.length;
+	}
+
+	/** Returns the index of the cell at row r and column c. */
+	public int index(int r, int c) {
+		return r * this.numColumns + c;
+	}
+
+	/** Returns the row of the cell with the given index. */
+	public int rowOf(int index) {
+		return index / this.numColumns;
+	}
+
+	/** Returns the column of the cell with the given index. */
+	public int columnOf(int index) {
+		return index % this.numColumns;
+	}
+
+	/** Returns true if the given row and column lie on this board. */
+	public boolean inBounds(int r, int c) {
+		return r >= 0 && c >= 0 && r < this.numRows && c < this.numColumns;
+	}
+
+	/** Returns a BoardCell view of the cell at row r and column c. */
+	public BoardCell getCell(int r, int c) {
+		return new BoardCell(this, r, c);
+	}
+
+	/** Returns a BoardCell view of the cell with the given index. */
+	public BoardCell getCell(int index) {
+		return new BoardCell(this, this.rowOf(index), this.columnOf(index));
+	}
+
+	/** Returns the contents of the cell with the given index. */
+	public CellType getType(int index) {
+		return TYPES[this.cellTypes[index]];
+	}
+
+	/** Returns true if the cell is a wall. */
+	public boolean isWall(int index) {
+		return this.cellTypes[index] == WALL;
+	}
+
+	/** Returns true if the cell is open (not a wall or a snake body part). */
+	public boolean isOpen(int index) {
+		byte type = this.cellTypes[index];
+		return type == OPEN || type == SPAM;
+	}
+
+	/** Returns true if the cell contains spam. */
+	public boolean isSpam(int index) {
+		return this.cellTypes[index] == SPAM;
+	}
+
+	/** Returns true if the cell contains a snake body part (not the head). */
+	public boolean isBody(int index) {
+		return this.cellTypes[index] == BODY;
+	}
+
+	/** Returns true if the cell contains the head of the snake. */
+	public boolean isHead(int index) {
+		return this.cellTypes[index] == HEAD;
+	}
+
+	/* ---------------------------- */
+	/* Modify the contents of cells */
+	/* ---------------------------- */
+
+	/** Sets the contents of the cell with the given index. */
+	public void setType(int index, CellType type) {
+		byte oldType = this.cellTypes[index];
+		byte newType = (byte) type.ordinal();
+		if (oldType == newType) {
+			return;
+		}
+		this.cellTypes[index] = newType;
+		for (BoardListener listener : this.listeners) {
+			listener.cellChanged(index, TYPES[oldType], type);
+		}
+	}
+
+	/** Marks the cell as a wall. */
+	public void becomeWall(int index) {
+		this.setType(index, CellType.WALL);
+	}
+
+	/** Marks the cell as spam. */
+	public void becomeSpam(int index) {
+		this.setType(index, CellType.SPAM);
+	}
+
+	/** Marks the cell as open. */
+	public void becomeOpen(int index) {
+		this.setType(index, CellType.OPEN);
+	}
+
+	/** Marks the cell as the snake's head. */
+	public void becomeHead(int index) {
+		this.setType(index, CellType.HEAD);
+	}
+
+	/** Marks the cell as part of the snake's body. */
+	public void becomeBody(int index) {
+		this.setType(index, CellType.BODY);
+	}
+
+	/**
+	 * Makes every cell of this board the same type as in other, which must have
+	 * the same size. Listeners are NOT told about the changes, so this is meant
+	 * for scratch boards that nobody watches.
+	 */
+	public void copyFrom(Board other) {
+		System.arraycopy(other.cellTypes, 0, this.cellTypes, 0, this.cellTypes.length);
+	}
+
+	/**
+	 * Copies the type of every cell, as the ordinal of its CellType, into types,
+	 * which must have room for size() cells.
+	 */
+	public void copyTypesTo(byte[] types) {
+		System.arraycopy(this.cellTypes, 0, types, 0, this.cellTypes.length);
+	}
+
+	/**
+	 * Returns a 64-bit FNV-1a hash of the size and the contents of every cell, so
+	 * two boards can be compared (e.g. at the end of a replay) without storing
+	 * either one.
+	 */
+	public long contentHash() {
+		long hash = 0xcbf29ce484222325L;
+		hash = (hash ^ this.numRows) * 0x100000001b3L;
+		hash = (hash ^ this.numColumns) * 0x100000001b3L;
+		for (byte type : this.cellTypes) {
+			hash = (hash ^ type) * 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/* --------- */
+	/* Listeners */
+	/* --------- */
+
+	/**
+	 * Registers a listener that is told about every later change to the contents
+	 * of a cell.
+	 */
+	public void addListener(BoardListener listener) {
+		BoardListener[] newListeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+		newListeners[this.listeners.length] = listener;
+		this.listeners = newListeners;
+	}
+
+	/* --------- */
+	/* Neighbors */
+	/* --------- */
+
+	/**
+	 * Returns the index of the cell north of the given cell, which must not be on
+	 * the boundary.
+	 */
+	public int north(int index) {
+		return index - this.numColumns;
+	}
+
+	/**
+	 * Returns the index of the cell south of the given cell, which must not be on
+	 * the boundary.
+	 */
+	public int south(int index) {
+		return index + this.numColumns;
+	}
+
+	/**
+	 * Returns the index of the cell east of the given cell, which must not be on
+	 * the boundary.
+	 */
+	public int east(int index) {
+		return index + 1;
+	}
+
+	/**
+	 * Returns the index of the cell west of the given cell, which must not be on
+	 * the boundary.
+	 */
+	public int west(int index) {
+		return index - 1;
+	}
+
+	/**
+	 * Writes the four neighbors of the given cell (north, south, east, west) into
+	 * the first four slots of result, so that callers can reuse one array.
+	 *
+	 * @return result
+	 */
+	public int[] getNeighbors(int index, int[] result) {
+		result[0] = this.north(index);
+		result[1] = this.south(index);
+		result[2] = this.east(index);
+		result[3] = this.west(index);
+		return result;
+	}
+
+	/* ------ */
+	/* Search */
+	/* ------ */
+
+	/**
+	 * Returns the breadth-first search engine for this board. The engine is
+	 * created on first use and reused by every later search.
+	 */
+	public BreadthFirstSearch getSearch() {
+		if (this.search == null) {
+			this.search = new BreadthFirstSearch(this);
+		}
+		return this.search;
+	}
+
+	/**
+	 * Returns the number of cells expanded by the engine of getSearch so far,
+	 * without creating the engine if it has not been used.
+	 */
+	public long getNodesExpanded() {
+		return this.search == null ? 0 : this.search.getNodesExpanded();
+	}
+
+}
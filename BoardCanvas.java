@@ -0,0 +1,83 @@
+package com.gradescope.spampede;
+
+import java.awt.Canvas;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+
+/**
+ * Shows the off-screen image on a heavyweight canvas with a BufferStrategy,
+ * for the raster renderer (see GameConfig.isRasterRendering).
+ *
+ * <p>
+ * The strategy flips pages when the platform can, and otherwise copies from a
+ * back buffer kept in video memory (a VolatileImage), so showing a frame is a
+ * single image copy that skips Swing's own repaint machinery. The back buffer
+ * may hold an older frame after a flip, so the whole image is copied every
+ * time rather than just the cells that changed.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class BoardCanvas extends Canvas {
+
+	/** The image shown, whose pixels a SpampedeDisplay writes. */
+	private final BufferedImage image;
+
+	/** Creates a canvas the size of the given image, which it shows. */
+	public BoardCanvas(BufferedImage image) {
+		this.image = image;
+		super.setPreferredSize(new Dimension(image.getWidth(), image.getHeight()));
+
+		// key presses go to the applet, not the canvas
+		super.setFocusable(false);
+	}
+
+	/** Returns the image shown. */
+	public BufferedImage getImage() {
+		return this.image;
+	}
+
+	/**
+	 * Copies the image to the screen. Must be called on the Swing event thread,
+	 * and does nothing until the canvas is on screen.
+	 */
+	public void present() {
+		if (!this.isDisplayable()) {
+			return;
+		}
+		BufferStrategy strategy = this.getBufferStrategy();
+		if (strategy == null) {
+			this.createBufferStrategy(2);
+			strategy = this.getBufferStrategy();
+		}
+
+		// video memory can be lost at any time, in which case the frame is redone
+		do {
+			do {
+				Graphics graphics = strategy.getDrawGraphics();
+				graphics.drawImage(this.image, 0, 0, null);
+				graphics.dispose();
+			} while (strategy.contentsRestored());
+			strategy.show();
+		} while (strategy.contentsLost());
+		Toolkit.getDefaultToolkit().sync();
+	}
+
+	/** Shows the image again, e.g. after the window was covered. */
+	@Override
+	public void paint(Graphics graphicsObj) {
+		this.present();
+	}
+
+	/** Shows the image without clearing the canvas first, to avoid flicker. */
+	@Override
+	public void update(Graphics graphicsObj) {
+		this.paint(graphicsObj);
+	}
+
+	/** Added to avoid a warning - not used! */
+	private static final long serialVersionUID = 1L;
+}
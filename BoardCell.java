@@ -3,7 +3,11 @@ package com.gradescope.spampede;
 import java.awt.Color;
 
 /**
- * Represents a single cell within a board.
+ * Represents a single cell within a board. A BoardCell is a thin view onto a
+ * Board: it only remembers its location, and all of its contents live in the
+ * Board's arrays. Board.getCell makes a new view on every call, so two views
+ * of the same location are equal but not the same object: compare them with
+ * equals, not ==.
  * 
  * @author Isaac Chung with the help of professors
  */
@@ -13,36 +17,30 @@ class BoardCell {
 	/* Basic contents of a BoardCell */
 	/* ----------------------------- */
 
+	/** The board that holds the contents of this cell. */
+	private final Board board;
+
 	/** The row of this cell within the board (non-negative). */
 	private final int row;
 
 	/** The column of this cell within the board (non-negative). */
 	private final int column;
 
-	/** The current contents of this cell. */
-	private CellType myCellType;
-
-	/* ---------------------------- */
-	/* Variables used during search */
-	/* ---------------------------- */
-
-	/** Has this cell been added to the search queue yet? */
-	private boolean addedToSearchList = false;
-
-	/** Where did we came from, when search first reached this BoardCell? */
-	private BoardCell parent = null;
+	/** The index of this cell within the board's arrays. */
+	private final int index;
 
 	/**
-	 * Creates a new BoardCell.
+	 * Creates a new view of a cell of a board.
 	 * 
+	 * @param board       the board that holds the contents of this cell
 	 * @param inputRow    the row of this cell
 	 * @param inputColumn the column of this cell
-	 * @param type        the initial contents of this cell
 	 */
-	public BoardCell(int inputRow, int inputColumn, CellType type) {
+	public BoardCell(Board board, int inputRow, int inputColumn) {
+		this.board = board;
 		this.row = inputRow;
 		this.column = inputColumn;
-		this.myCellType = type;
+		this.index = board.index(inputRow, inputColumn);
 	}
 
 	/* ------------------------------------- */
@@ -59,44 +57,58 @@ class BoardCell {
 		return this.column;
 	}
 
+	/** Returns the index of this cell within its board. */
+	public int getIndex() {
+		return this.index;
+	}
+
+	/** Returns the contents of this cell. */
+	public CellType getCellType() {
+		return this.board.getType(this.index);
+	}
+
 	/** Returns true if this cell is a wall. */
 	public boolean isWall() {
-		return this.myCellType == CellType.WALL;
+		return this.board.isWall(this.index);
 	}
 
 	/** Returns true if this cell is open (not a wall or a snake body part). */
 	public boolean isOpen() {
-		return this.myCellType == CellType.OPEN || this.isSpam();
+		return this.board.isOpen(this.index);
 	}
 
 	/** Returns true if this cell contains spam. */
 	public boolean isSpam() {
-		return this.myCellType == CellType.SPAM;
+		return this.board.isSpam(this.index);
 	}
 
 	/** Returns true if this cell contains a snake body part (not the head). */
 	public boolean isBody() {
-		return this.myCellType == CellType.BODY;
+		return this.board.isBody(this.index);
 	}
 
 	/** Returns true if this cell contains the head of the snake. */
 	public boolean isHead() {
-		return this.myCellType == CellType.HEAD;
+		return this.board.isHead(this.index);
 	}
 
 	/** Returns the color for drawing this cell. */
 	public Color getCellColor() {
-		if (this.isWall()) {
+		return BoardCell.getColor(this.getCellType());
+	}
+
+	/** Returns the color for drawing a cell with the given contents. */
+	public static Color getColor(CellType type) {
+		switch (type) {
+		case WALL:
 			return Preferences.COLOR_WALL;
-		} else if (this.isSpam()) {
+		case SPAM:
 			return Preferences.COLOR_SPAM;
-		} else if (this.isOpen()) {
-			return Preferences.COLOR_OPEN;
-		} else if (this.isHead()) {
+		case HEAD:
 			return Preferences.COLOR_HEAD;
-		} else if (this.isBody()) {
+		case BODY:
 			return Preferences.COLOR_BODY;
-		} else {
+		default:
 			return Preferences.COLOR_OPEN;
 		}
 	}
@@ -107,57 +119,77 @@ class BoardCell {
 
 	/** Marks this BoardCell as spam. */
 	public void becomeWall() {
-		this.myCellType = CellType.WALL;
+		this.board.becomeWall(this.index);
 	}
 	
 	/** Marks this BoardCell as spam. */
 	public void becomeSpam() {
-		this.myCellType = CellType.SPAM;
+		this.board.becomeSpam(this.index);
 	}
 
 	/** Marks this BoardCell as open. */
 	public void becomeOpen() {
-		this.myCellType = CellType.OPEN;
+		this.board.becomeOpen(this.index);
 	}
 
 	/** Marks this BoardCell as the snake's head. */
 	public void becomeHead() {
-		this.myCellType = CellType.HEAD;
+		this.board.becomeHead(this.index);
 	}
 
 	/** Marks this BoardCell as part of the snake's body. */
 	public void becomeBody() {
-		this.myCellType = CellType.BODY;
+		this.board.becomeBody(this.index);
 	}
 
-	/* -------------------------- */
-	/* Access and set search info */
-	/* -------------------------- */
+	/* ------------------ */
+	/* Access search info */
+	/* ------------------ */
 
-	/** Marks this cell as having been added to our BFS search queue. */
+	/**
+	 * Marks this cell as reached by the latest BFS search.
+	 * 
+	 * @deprecated the search is run by Board.getSearch, which marks the cells
+	 *             it reaches itself
+	 */
+	@Deprecated
 	public void setAddedToSearchList() {
-		this.addedToSearchList = true;
+		this.board.getSearch().markReached(this.index);
 	}
 
-	/** Returns true if this cell has been added to our BFS search queue. */
+	/** Returns true if this cell has been reached by the latest BFS search. */
 	public boolean inSearchListAlready() {
-		return this.addedToSearchList;
+		return this.board.getSearch().wasReached(this.index);
 	}
 
-	/** Clear the search-related info for this cell (to allow a new search). */
-	public void clear_RestartSearch() {
-		this.addedToSearchList = false;
-		this.parent = null;
+	/** Returns the parent of this cell in the latest BFS search (or null). */
+	public BoardCell getParent() {
+		int parent = this.board.getSearch().getParent(this.index);
+		return parent < 0 ? null : this.board.getCell(parent);
 	}
 
-	/** Sets the parent of this cell in our BFS search. */
+	/**
+	 * Sets the parent of this cell in the latest BFS search (or null), which
+	 * also marks this cell as reached by it.
+	 * 
+	 * @deprecated the search is run by Board.getSearch, which sets the parents
+	 *             of the cells it reaches itself
+	 */
+	@Deprecated
 	public void setParent(BoardCell p) {
-		this.parent = p;
+		this.board.getSearch().setParent(this.index, p == null ? -1 : p.getIndex());
 	}
 
-	/** Returns the parent of this cell in our BFS search. */
-	public BoardCell getParent() {
-		return this.parent;
+	/**
+	 * Clears the search info of this cell, so the latest BFS search no longer
+	 * counts it as reached.
+	 * 
+	 * @deprecated every search starts by forgetting the previous one in O(1)
+	 *             time, so there is no need to clear cells one by one
+	 */
+	@Deprecated
+	public void clear_RestartSearch() {
+		this.board.getSearch().forget(this.index);
 	}
 
 	/* ---------------------------- */
@@ -171,16 +203,32 @@ class BoardCell {
 
 	/** Returns the contents of this cell, as a single character. */
 	public String toStringType() {
-		return this.myCellType.getDisplayChar();
+		return this.getCellType().getDisplayChar();
 	}
 
 	/** Returns the parent of this cell, as a string "[null]" or "[row, col]". */
 	public String toStringParent() {
-		if (this.parent == null) {
+		int parent = this.board.getSearch().getParent(this.index);
+		if (parent < 0) {
 			return "[null]";
 		} else {
-			return "[" + this.parent.row + ", " + this.parent.column + "]";
+			return "[" + this.board.rowOf(parent) + ", " + this.board.columnOf(parent) + "]";
+		}
+	}
+
+	/** Returns true if other is a view of the same cell of the same board. */
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof BoardCell)) {
+			return false;
 		}
+		BoardCell that = (BoardCell) other;
+		return this.board == that.board && this.index == that.index;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.index;
 	}
 
 }
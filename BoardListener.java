@@ -0,0 +1,19 @@
+package com.gradescope.spampede;
+
+/**
+ * An observer that is told whenever the contents of a cell of a Board change.
+ * 
+ * @author Isaac Chung with the help of professors
+ */
+interface BoardListener {
+
+	/**
+	 * Called after the contents of a cell have changed.
+	 * 
+	 * @param index   the index of the cell within the board
+	 * @param oldType the previous contents of the cell
+	 * @param newType the new contents of the cell
+	 */
+	void cellChanged(int index, CellType oldType, CellType newType);
+
+}
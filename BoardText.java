@@ -0,0 +1,318 @@
+package com.gradescope.spampede;
+
+import java.util.SplittableRandom;
+
+/**
+ * Converts a game to and from text: one line per row of the board and one
+ * character per cell, as given by CellType.getDisplayChar.
+ *
+ * <p>
+ * Encoding writes every character into one array of exactly the right size,
+ * so it takes time linear in the size of the board. The text written by
+ * encodeWithSnake ends with a line giving the order of the snake's cells, and
+ * parses back to exactly the same game. Plain pictures, such as the boards of
+ * TestGame, do not say in which order the snake's cells were added, so the
+ * parser follows the body from the head, which only works when there is a
+ * single way to go at each cell; where the snake touches itself, parsing fails
+ * rather than guess. Either way the spam is added in reading order.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class BoardText {
+
+	/** The start of the optional line giving the order of the snake's cells. */
+	private static final String SNAKE_LINE = "snake ";
+
+	/** The character of each cell type, by ordinal. */
+	private static final char[] CHARS = new char[CellType.values().length];
+
+	static {
+		for (CellType type : CellType.values()) {
+			CHARS[type.ordinal()] = type.getDisplayChar().charAt(0);
+		}
+	}
+
+	private BoardText() {
+	}
+
+	/* -------- */
+	/* Encoding */
+	/* -------- */
+
+	/**
+	 * Returns the board of data as text, each row followed by a newline.
+	 */
+	public static String encode(SpampedeData data) {
+		Board board = data.getBoard();
+		int numRows = board.getNumRows();
+		int numColumns = board.getNumColumns();
+		char[] text = new char[numRows * (numColumns + 1)];
+		int position = 0;
+		int index = 0;
+		for (int r = 0; r < numRows; r++) {
+			for (int c = 0; c < numColumns; c++) {
+				text[position++] = CHARS[board.getType(index++).ordinal()];
+			}
+			text[position++] = '\n';
+		}
+		return new String(text);
+	}
+
+	/**
+	 * Same as encode, followed by a line that gives the order of the snake's
+	 * cells: "snake", the row and column of the tail, and one letter (N, S, E or
+	 * W) for the direction of each next cell towards the head. Parsing text with
+	 * this line gives back exactly the same snake.
+	 */
+	public static String encodeWithSnake(SpampedeData data) {
+		Board board = data.getBoard();
+		SnakeBody snake = data.getSnakeBody();
+		String cells = encode(data);
+		if (snake.size() == 0) {
+			return cells;
+		}
+		StringBuilder text = new StringBuilder(cells.length() + snake.size() + 32);
+		text.append(cells).append(SNAKE_LINE);
+		int tail = snake.getTail();
+		text.append(board.rowOf(tail)).append(' ').append(board.columnOf(tail)).append(' ');
+		int numColumns = board.getNumColumns();
+		for (int i = 1; i < snake.size(); i++) {
+			int step = snake.get(i) - snake.get(i - 1);
+			text.append(step == -numColumns ? 'N' : step == numColumns ? 'S' : step == 1 ? 'E' : 'W');
+		}
+		return text.append('\n').toString();
+	}
+
+	/**
+	 * Returns the parent of every cell in the latest search, as "[row, col]" or
+	 * "[null]" followed by a tab, with each row followed by a newline.
+	 */
+	public static String encodeParents(SpampedeData data) {
+		Board board = data.getBoard();
+		BreadthFirstSearch search = board.getSearch();
+		int numRows = board.getNumRows();
+		int numColumns = board.getNumColumns();
+		StringBuilder text = new StringBuilder(numRows * (numColumns * 8 + 1));
+		int index = 0;
+		for (int r = 0; r < numRows; r++) {
+			for (int c = 0; c < numColumns; c++) {
+				int parent = search.getParent(index++);
+				if (parent < 0) {
+					text.append("[null]");
+				} else {
+					text.append('[').append(board.rowOf(parent)).append(", ");
+					text.append(board.columnOf(parent)).append(']');
+				}
+				text.append('\t');
+			}
+			text.append('\n');
+		}
+		return text.toString();
+	}
+
+	/* ------- */
+	/* Parsing */
+	/* ------- */
+
+	/**
+	 * Builds a game from text in the form written by encode or encodeWithSnake.
+	 *
+	 * @param text   the rows of the board, each followed by a newline (the last
+	 *               one may be left out), and optionally the line of the snake
+	 * @param random the source of randomness the game places spam with
+	 * @return the game
+	 * @throws IllegalArgumentException if text is not a valid board
+	 */
+	public static SpampedeData parse(CharSequence text, SplittableRandom random) {
+		int numColumns = 0;
+		while (numColumns < text.length() && text.charAt(numColumns) != '\n') {
+			numColumns++;
+		}
+		int lineLength = numColumns + 1;
+		int numRows = (boardLength(text) + 1) / lineLength;
+		if (numColumns < 3 || numRows < 3 || numColumns > GameConfig.MAX_BOARD_SIDE
+				|| numRows > GameConfig.MAX_BOARD_SIDE) {
+			throw new IllegalArgumentException("Board must be between 3 and " + GameConfig.MAX_BOARD_SIDE
+					+ " cells on each side");
+		}
+		SpampedeData data = new SpampedeData(numRows, numColumns, random);
+		parseInto(text, data);
+		return data;
+	}
+
+	/**
+	 * Fills data, which must be a new game of the same size as the board in text,
+	 * with the walls, spam and snake in text.
+	 *
+	 * @throws IllegalArgumentException if text is not a valid board of that size
+	 */
+	static void parseInto(CharSequence text, SpampedeData data) {
+		Board board = data.getBoard();
+		int numRows = board.getNumRows();
+		int numColumns = board.getNumColumns();
+		int lineLength = numColumns + 1;
+		int length = boardLength(text);
+		if (length != numRows * lineLength && length != numRows * lineLength - 1) {
+			throw new IllegalArgumentException("Board must have " + numRows + " rows of " + numColumns + " cells");
+		}
+
+		// the cells, row by row
+		int head = -1;
+		int index = 0;
+		for (int r = 0; r < numRows; r++) {
+			int start = r * lineLength;
+			for (int c = 0; c < numColumns; c++) {
+				char ch = text.charAt(start + c);
+				if (ch == CHARS[CellType.WALL.ordinal()]) {
+					board.becomeWall(index);
+				} else if (ch == CHARS[CellType.OPEN.ordinal()]) {
+					board.becomeOpen(index);
+				} else if (ch == CHARS[CellType.SPAM.ordinal()]) {
+					data.addSpam(index);
+				} else if (ch == CHARS[CellType.BODY.ordinal()]) {
+					board.becomeBody(index);
+				} else if (ch == CHARS[CellType.HEAD.ordinal()]) {
+					if (head >= 0) {
+						throw new IllegalArgumentException("Board has more than one head");
+					}
+					board.becomeBody(index); // relabeled once the snake is built
+					head = index;
+				} else {
+					throw new IllegalArgumentException("Unexpected '" + ch + "' at row " + r + ", column " + c);
+				}
+				boolean boundary = r == 0 || c == 0 || r == numRows - 1 || c == numColumns - 1;
+				if (boundary && !board.isWall(index)) {
+					throw new IllegalArgumentException("Board must be surrounded by walls");
+				}
+				index++;
+			}
+			if (start + numColumns < length && text.charAt(start + numColumns) != '\n') {
+				throw new IllegalArgumentException("Row " + r + " is not " + numColumns + " cells wide");
+			}
+		}
+
+		if (length < text.length()) {
+			readSnake(board, data.getSnakeBody(), head, text, length + SNAKE_LINE.length());
+		} else {
+			buildSnake(board, data.getSnakeBody(), head);
+		}
+	}
+
+	/**
+	 * Returns the length of the part of text that holds the cells, i.e. all of it
+	 * unless it has the line of the snake.
+	 */
+	private static int boardLength(CharSequence text) {
+		int snakeLine = text.toString().indexOf("\n" + SNAKE_LINE);
+		return snakeLine < 0 ? text.length() : snakeLine + 1;
+	}
+
+	/**
+	 * Adds the snake given by the line of the snake, which starts at the given
+	 * position of text, to snake, and labels its head, which must be head.
+	 */
+	private static void readSnake(Board board, SnakeBody snake, int head, CharSequence text, int position) {
+		String[] fields = text.subSequence(position, text.length()).toString().trim().split(" ");
+		int cell;
+		try {
+			cell = board.index(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]));
+		} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Bad line of the snake", e);
+		}
+		String directions = fields.length > 2 ? fields[2] : "";
+		int numColumns = board.getNumColumns();
+		for (int i = 0; i <= directions.length(); i++) {
+			if (i > 0) {
+				switch (directions.charAt(i - 1)) {
+				case 'N':
+					cell -= numColumns;
+					break;
+				case 'S':
+					cell += numColumns;
+					break;
+				case 'E':
+					cell++;
+					break;
+				case 'W':
+					cell--;
+					break;
+				default:
+					throw new IllegalArgumentException("Bad direction in the line of the snake");
+				}
+			}
+			if (cell < 0 || cell >= board.size() || !board.isBody(cell)) {
+				throw new IllegalArgumentException("The line of the snake leaves its body");
+			}
+			snake.addHead(cell);
+		}
+		if (cell != head) {
+			throw new IllegalArgumentException("The line of the snake does not end at its head");
+		}
+		int numBody = 0;
+		for (int index = 0; index < board.size(); index++) {
+			if (board.isBody(index)) {
+				numBody++;
+			}
+		}
+		if (numBody != snake.size()) {
+			throw new IllegalArgumentException("The line of the snake does not cover its body");
+		}
+		board.becomeHead(head);
+	}
+
+	/**
+	 * Adds the snake to snake by following the body cells of board from head
+	 * (or -1 if there is none) to the tail, and labels the head. Each cell on
+	 * the way must have exactly one body neighbor the walk has not used yet,
+	 * except the tail, which has none; a snake that touches itself fits more
+	 * than one order and needs the line of the snake instead.
+	 */
+	private static void buildSnake(Board board, SnakeBody snake, int head) {
+		int size = board.size();
+		int numBody = 0; // including the head, which is still labeled as body
+		for (int index = 0; index < size; index++) {
+			if (board.isBody(index)) {
+				numBody++;
+			}
+		}
+		if (head < 0) {
+			if (numBody > 0) {
+				throw new IllegalArgumentException("Board has a snake body but no head");
+			}
+			return;
+		}
+
+		// cells[0] is the head, and each next cell the only way on from the last
+		int[] cells = new int[numBody];
+		boolean[] used = new boolean[size];
+		int[] neighbors = new int[4];
+		int length = 0;
+		int cell = head;
+		while (cell >= 0) {
+			cells[length++] = cell;
+			used[cell] = true;
+			int next = -1;
+			board.getNeighbors(cell, neighbors);
+			for (int neighbor : neighbors) {
+				if (board.isBody(neighbor) && !used[neighbor]) {
+					if (next >= 0) {
+						throw new IllegalArgumentException(
+								"The snake touches itself, so its order must be given by a line of the snake");
+					}
+					next = neighbor;
+				}
+			}
+			cell = next;
+		}
+		if (length != numBody) {
+			throw new IllegalArgumentException("Some of the snake body is not connected to its head");
+		}
+
+		for (int i = numBody - 1; i >= 0; i--) {
+			snake.addHead(cells[i]);
+		}
+		board.becomeHead(head);
+	}
+
+}
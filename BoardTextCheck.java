@@ -0,0 +1,120 @@
+package com.gradescope.spampede;
+
+import java.util.SplittableRandom;
+
+/**
+ * Checks BoardText: that the boards of TestGame and games part way through
+ * come back exactly as they were, that a snake touching itself needs the line
+ * of the snake, and that text which is not a valid board is rejected with an
+ * IllegalArgumentException.
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.BoardTextCheck
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class BoardTextCheck {
+
+	/** A snake coiled around its head, which fits more than one order. */
+	private static final String COILED = String.join("\n",
+			"******",
+			"*BBB *",
+			"*BHB *",
+			"*    *",
+			"*    *",
+			"******") + "\n";
+
+	/** Text that is not a valid board, and what is wrong with it. */
+	private static final String[][] BAD_TEXT = {
+			{ "***\n* *\n", "a board less than 3 rows tall" },
+			{ "*****\n*   *\n*  *\n*   *\n*****\n", "rows of different widths" },
+			{ "*****\n* ? *\n*****\n", "an unknown character" },
+			{ "*****\n*    \n*****\n", "a board not surrounded by walls" },
+			{ "*****\n*HBH*\n*****\n", "two heads" },
+			{ "*****\n*B  *\n*****\n", "a body without a head" },
+			{ "******\n*HB B*\n******\n", "a body not connected to its head" },
+			{ "*****\n*HB *\n*****\nsnake 1 2 E\n", "a line of the snake that leaves its body" },
+			{ "*****\n*HB *\n*****\nsnake 1 1 E\n", "a line of the snake that does not end at its head" } };
+
+	private BoardTextCheck() {
+	}
+
+	public static void main(String[] args) {
+		checkTestGames();
+		checkPlayedGames();
+		checkCoiledSnake();
+		checkBadText();
+		System.out.println("BoardText: all checks passed");
+	}
+
+	/** Every board of TestGame encodes back to its own picture, snake and all. */
+	private static void checkTestGames() {
+		for (TestGame game : TestGame.values()) {
+			SpampedeData data = new SpampedeData(game);
+			Checks.check(BoardText.encode(data).equals(game.getText()), game.name() + " encodes to its picture");
+			SpampedeData copy = BoardText.parse(game.getText(), new SplittableRandom());
+			Checks.check(sameSnake(data, copy), game.name() + " parses to the same snake");
+			String withSnake = BoardText.encodeWithSnake(data);
+			Checks.check(BoardText.encodeWithSnake(BoardText.parse(withSnake, new SplittableRandom())).equals(withSnake),
+					game.name() + " comes back from encodeWithSnake");
+		}
+	}
+
+	/** Games in which the snake has grown long come back from encodeWithSnake. */
+	private static void checkPlayedGames() {
+		for (int seed = 0; seed < 20; seed++) {
+			GameEngine engine = GameEngine.newGame(GameConfig.DEFAULT, new SplittableRandom(seed));
+			engine.submit(seed % 2 == 0 ? GameCommand.AI_SAFE_MODE : GameCommand.AI_MODE);
+			while (!engine.isGameOver() && engine.getCycleNum() < 5000) {
+				engine.step();
+			}
+			SpampedeData data = engine.getData();
+			String text = BoardText.encodeWithSnake(data);
+			SpampedeData copy = BoardText.parse(text, new SplittableRandom());
+			Checks.check(BoardText.encode(copy).equals(BoardText.encode(data)), "game " + seed + " has the same cells");
+			Checks.check(sameSnake(data, copy), "game " + seed + " has the same snake");
+		}
+	}
+
+	/**
+	 * A plain picture of a coiled snake is rejected rather than guessed at, but
+	 * parses once the line of the snake gives its order.
+	 */
+	private static void checkCoiledSnake() {
+		Checks.checkThrows(IllegalArgumentException.class, () -> BoardText.parse(COILED, new SplittableRandom()),
+				"a coiled snake without the line of the snake");
+
+		// from the tail at (2, 1), up, then around clockwise to the head at (2, 2)
+		SpampedeData data = BoardText.parse(COILED + "snake 2 1 NEESW\n", new SplittableRandom());
+		SnakeBody snake = data.getSnakeBody();
+		Board board = data.getBoard();
+		Checks.check(snake.size() == 6, "the coiled snake has all its cells");
+		Checks.check(snake.getTail() == board.index(2, 1) && snake.getHead() == board.index(2, 2),
+				"the coiled snake runs from its tail to its head");
+		Checks.check(BoardText.encode(data).equals(COILED), "the coiled snake encodes to its picture");
+	}
+
+	/** Text that is not a valid board is rejected. */
+	private static void checkBadText() {
+		for (String[] bad : BAD_TEXT) {
+			Checks.checkThrows(IllegalArgumentException.class, () -> BoardText.parse(bad[0], new SplittableRandom()), bad[1]);
+		}
+	}
+
+	/** Returns true if both games have the same snake, cell for cell. */
+	private static boolean sameSnake(SpampedeData data, SpampedeData copy) {
+		SnakeBody snake = data.getSnakeBody();
+		SnakeBody snakeCopy = copy.getSnakeBody();
+		if (snakeCopy.size() != snake.size()) {
+			return false;
+		}
+		for (int i = 0; i < snake.size(); i++) {
+			if (snakeCopy.get(i) != snake.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,272 @@
+package com.gradescope.spampede;
+
+import java.util.Arrays;
+
+/**
+ * A reusable breadth-first search over the cells of a Board.
+ *
+ * <p>
+ * All of the memory a search needs is allocated once, when the engine is
+ * created: an int queue, an int array of parents and an int array of "visited"
+ * stamps. Instead of clearing every cell before a search, each search bumps a
+ * generation number, and a cell counts as visited only if its stamp matches the
+ * current generation. Starting a new search is therefore O(1) and a search
+ * never allocates.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class BreadthFirstSearch {
+
+	/** The board being searched. */
+	private final Board board;
+
+	/**
+	 * The search queue. Every cell is added at most once per search, so the queue
+	 * never needs more room than there are cells on the board.
+	 */
+	private final int[] queue;
+
+	/** For every cell reached by the current search, the cell it came from. */
+	private final int[] parents;
+
+	/** For every cell, the generation of the last search that reached it. */
+	private final int[] visitedStamps;
+
+	/** The generation of the current search. */
+	private int generation = 0;
+
+	/** The cell the current search started from (or -1). */
+	private int start = -1;
+
+	/** The number of cells expanded by all searches so far. */
+	private long nodesExpanded = 0;
+
+	/** The number of cells expanded by the last search. */
+	private int lastNodesExpanded = 0;
+
+	/**
+	 * Creates a new search engine for the given board.
+	 *
+	 * @param board the board to search
+	 */
+	public BreadthFirstSearch(Board board) {
+		this.board = board;
+		int size = board.size();
+		this.queue = new int[size];
+		this.parents = new int[size];
+		this.visitedStamps = new int[size];
+	}
+
+	/* ---------------- */
+	/* Running searches */
+	/* ---------------- */
+
+	/**
+	 * Forgets the previous search, in O(1) time.
+	 */
+	public void reset() {
+		this.generation++;
+		if (this.generation == Integer.MAX_VALUE) {
+			// only happens once every ~2 billion searches
+			Arrays.fill(this.visitedStamps, 0);
+			this.generation = 1;
+		}
+		this.start = -1;
+	}
+
+	/**
+	 * Searches outwards from start through open cells for the closest spam.
+	 *
+	 * @param startIndex the cell to search from, typically the snake head
+	 * @return the index of the closest spam cell, or -1 if no spam is reachable
+	 */
+	public int searchForSpam(int startIndex) {
+		this.reset();
+		this.start = startIndex;
+		this.visitedStamps[startIndex] = this.generation;
+		this.parents[startIndex] = -1;
+
+		int[] theQueue = this.queue;
+		int head = 0;
+		int tail = 0;
+		theQueue[tail++] = startIndex;
+
+		while (head < tail) {
+			int current = theQueue[head++];
+			if (this.board.isSpam(current)) {
+				this.countExpanded(head);
+				return current;
+			}
+
+			// same order as Board.getNeighbors: north, south, east, west
+			tail = this.visit(this.board.north(current), current, tail);
+			tail = this.visit(this.board.south(current), current, tail);
+			tail = this.visit(this.board.east(current), current, tail);
+			tail = this.visit(this.board.west(current), current, tail);
+		}
+		this.countExpanded(head);
+		return -1;
+	}
+
+	/**
+	 * Searches outwards from start through open cells for the given target cell,
+	 * which may itself be of any type (e.g. the snake's tail).
+	 *
+	 * @param startIndex  the cell to search from
+	 * @param targetIndex the cell to search for
+	 * @return true if target can be reached from start
+	 */
+	public boolean searchForCell(int startIndex, int targetIndex) {
+		this.reset();
+		this.start = startIndex;
+		this.visitedStamps[startIndex] = this.generation;
+		this.parents[startIndex] = -1;
+
+		int[] theQueue = this.queue;
+		int head = 0;
+		int tail = 0;
+		theQueue[tail++] = startIndex;
+
+		while (head < tail) {
+			int current = theQueue[head++];
+			if (current == targetIndex) {
+				this.countExpanded(head);
+				return true;
+			}
+			tail = this.visitOrTarget(this.board.north(current), current, tail, targetIndex);
+			tail = this.visitOrTarget(this.board.south(current), current, tail, targetIndex);
+			tail = this.visitOrTarget(this.board.east(current), current, tail, targetIndex);
+			tail = this.visitOrTarget(this.board.west(current), current, tail, targetIndex);
+		}
+		this.countExpanded(head);
+		return false;
+	}
+
+	/** Records that the search just finished expanded the given number of cells. */
+	private void countExpanded(int count) {
+		this.lastNodesExpanded = count;
+		this.nodesExpanded += count;
+	}
+
+	/**
+	 * Adds neighbor to the queue if it is the target, or open, and not yet
+	 * visited.
+	 *
+	 * @return the new tail of the queue
+	 */
+	private int visitOrTarget(int neighbor, int from, int tail, int targetIndex) {
+		if (neighbor == targetIndex && this.visitedStamps[neighbor] != this.generation) {
+			this.visitedStamps[neighbor] = this.generation;
+			this.parents[neighbor] = from;
+			this.queue[tail++] = neighbor;
+			return tail;
+		}
+		return this.visit(neighbor, from, tail);
+	}
+
+	/**
+	 * Adds neighbor to the queue if it is open and not yet visited.
+	 *
+	 * @return the new tail of the queue
+	 */
+	private int visit(int neighbor, int from, int tail) {
+		if (this.visitedStamps[neighbor] != this.generation && this.board.isOpen(neighbor)) {
+			this.visitedStamps[neighbor] = this.generation;
+			this.parents[neighbor] = from;
+			this.queue[tail++] = neighbor;
+		}
+		return tail;
+	}
+
+	/* ------------------------------ */
+	/* Reading the result of a search */
+	/* ------------------------------ */
+
+	/**
+	 * Follows the parents back from target until we find the cell whose parent is
+	 * the start of the search (and which is therefore adjacent to the start).
+	 *
+	 * @param target a cell reached by the current search
+	 * @return the first step along the shortest path to target
+	 */
+	public int getFirstStep(int target) {
+		if (target == this.start) {
+			return target;
+		}
+		int cell = target;
+		while (this.parents[cell] != this.start) {
+			cell = this.parents[cell];
+		}
+		return cell;
+	}
+
+	/**
+	 * Returns the number of steps from the start of the current search to target,
+	 * which the search must have reached.
+	 */
+	public int getPathLength(int target) {
+		int length = 0;
+		for (int cell = target; cell != this.start; cell = this.parents[cell]) {
+			length++;
+		}
+		return length;
+	}
+
+	/** Returns the number of cells expanded by the last search. */
+	public int getLastNodesExpanded() {
+		return this.lastNodesExpanded;
+	}
+
+	/** Returns the number of cells expanded by all searches so far. */
+	public long getNodesExpanded() {
+		return this.nodesExpanded;
+	}
+
+	/** Returns true if the current search has reached the given cell. */
+	public boolean wasReached(int index) {
+		// no stamp matches generation 0, which is the one before any search
+		return this.visitedStamps[index] == this.generation && this.generation > 0;
+	}
+
+	/**
+	 * Returns the cell from which the current search first reached the given
+	 * cell, or -1 if it was not reached (or is the start of the search).
+	 */
+	public int getParent(int index) {
+		return this.wasReached(index) ? this.parents[index] : -1;
+	}
+
+	/* --------------------- */
+	/* Marking cells by hand */
+	/* --------------------- */
+
+	/**
+	 * Marks the given cell as reached by the current search, with no parent
+	 * (for the search methods BoardCell used to have).
+	 */
+	void markReached(int index) {
+		if (this.generation == 0) {
+			this.reset();
+		}
+		this.visitedStamps[index] = this.generation;
+		this.parents[index] = -1;
+	}
+
+	/**
+	 * Records parent (or -1) as the cell the current search reached the given
+	 * cell from, marking the cell as reached if it was not.
+	 */
+	void setParent(int index, int parent) {
+		if (!this.wasReached(index)) {
+			this.markReached(index);
+		}
+		this.parents[index] = parent;
+	}
+
+	/** Marks the given cell as not reached by the current search. */
+	void forget(int index) {
+		this.visitedStamps[index] = 0;
+	}
+
+}
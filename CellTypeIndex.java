@@ -0,0 +1,188 @@
+package com.gradescope.spampede;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The set of cells of one type of a Board, e.g. the open cells (cells of type
+ * OPEN, i.e. not spam) or the cells that contain spam.
+ * 
+ * <p>
+ * The cells are kept in a dense array, and every cell remembers its position
+ * in that array, so adding a cell, removing a cell and picking a uniformly
+ * random cell all take O(1) time. As a BoardListener, the index stays in sync
+ * with every change to the board.
+ * </p>
+ * 
+ * <p>
+ * The array of positions has an int for every cell of the board. Since a cell
+ * has only one type, the index of a second type (see indexAlso) shares it, so
+ * e.g. open cells and spam cost one array of positions between them. The
+ * dense array of cells only grows as cells of the type are added.
+ * </p>
+ * 
+ * @author Isaac Chung with the help of professors
+ */
+final class CellTypeIndex implements BoardListener {
+
+	/** The least room for cells of the type, e.g. for spam, of which there is little. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The board whose cells are indexed. */
+	private final Board board;
+
+	/** The type of the cells in the set. */
+	private final CellType type;
+
+	/**
+	 * The cells of that type, in no particular order, in slots 0 to size-1. It
+	 * grows as needed, up to the size of the board.
+	 */
+	private int[] cells;
+
+	/**
+	 * For every cell, its slot in the cells of its own type (in this index or in
+	 * other), or -1 if it is of neither type.
+	 */
+	private final int[] positions;
+
+	/** The number of cells of that type. */
+	private int size = 0;
+
+	/** The index of another type that shares positions and is kept in sync by this one (or null). */
+	private CellTypeIndex other;
+
+	/**
+	 * Creates the index of the cells of the given type of the given board. The
+	 * caller should register the index as a listener of the board to keep it up
+	 * to date.
+	 * 
+	 * @param board the board whose cells to index
+	 * @param type  the type of the cells to index
+	 */
+	public CellTypeIndex(Board board, CellType type) {
+		this(board, type, new int[board.size()]);
+		Arrays.fill(this.positions, -1);
+		this.addAll();
+	}
+
+	/** Creates an empty index that records its positions in the given array. */
+	private CellTypeIndex(Board board, CellType type, int[] positions) {
+		this.board = board;
+		this.type = type;
+		this.positions = positions;
+		int count = 0;
+		for (int index = 0; index < board.size(); index++) {
+			if (board.getType(index) == type) {
+				count++;
+			}
+		}
+		this.cells = new int[Math.min(Math.max(count, INITIAL_CAPACITY), board.size())];
+	}
+
+	/**
+	 * Creates the index of the cells of another type of the same board, which
+	 * shares this index's positions. Only this index should be registered as a
+	 * listener of the board: it keeps both up to date.
+	 * 
+	 * @param otherType the type of the cells to index, not the type of this index
+	 * @return the new index
+	 * @throws IllegalStateException if this index already shares its positions
+	 */
+	public CellTypeIndex indexAlso(CellType otherType) {
+		if (this.other != null || otherType == this.type) {
+			throw new IllegalStateException("Cannot index " + otherType + " along with " + this.type);
+		}
+		this.other = new CellTypeIndex(this.board, otherType, this.positions);
+		this.other.addAll();
+		return this.other;
+	}
+
+	/* ---------------- */
+	/* Access the cells */
+	/* ---------------- */
+
+	/** Returns the number of cells in the set. */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the cell in the given slot, between 0 and size()-1. Slots change
+	 * whenever a cell is removed.
+	 */
+	public int get(int slot) {
+		return this.cells[slot];
+	}
+
+	/** Returns true if the given cell is in the set. */
+	public boolean contains(int index) {
+		return this.positions[index] >= 0 && this.board.getType(index) == this.type;
+	}
+
+	/**
+	 * Returns a cell of the set chosen uniformly at random, or -1 if there are
+	 * none.
+	 */
+	public int randomCell(SplittableRandom random) {
+		if (this.size == 0) {
+			return -1;
+		}
+		return this.cells[random.nextInt(this.size)];
+	}
+
+	/* ---------------------- */
+	/* Keep the index in sync */
+	/* ---------------------- */
+
+	@Override
+	public void cellChanged(int index, CellType oldType, CellType newType) {
+		// leave the old set before joining the new one, as they share positions
+		if (oldType == this.type) {
+			this.remove(index);
+		} else if (this.other != null && oldType == this.other.type) {
+			this.other.remove(index);
+		}
+		if (newType == this.type) {
+			this.add(index);
+		} else if (this.other != null && newType == this.other.type) {
+			this.other.add(index);
+		}
+	}
+
+	/** Adds every cell of the board of the type to the set. */
+	private void addAll() {
+		for (int index = 0; index < this.board.size(); index++) {
+			if (this.board.getType(index) == this.type) {
+				this.add(index);
+			}
+		}
+	}
+
+	/** Adds a cell to the set, if it is not there already. */
+	private void add(int index) {
+		if (this.positions[index] >= 0) {
+			return;
+		}
+		if (this.size == this.cells.length) {
+			this.cells = Arrays.copyOf(this.cells, Math.min(2 * this.size, this.board.size()));
+		}
+		this.cells[this.size] = index;
+		this.positions[index] = this.size;
+		this.size++;
+	}
+
+	/** Removes a cell from the set by moving the last cell into its slot. */
+	private void remove(int index) {
+		int position = this.positions[index];
+		if (position < 0) {
+			return;
+		}
+		this.size--;
+		int last = this.cells[this.size];
+		this.cells[position] = last;
+		this.positions[last] = position;
+		this.positions[index] = -1;
+	}
+
+}
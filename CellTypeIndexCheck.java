@@ -0,0 +1,131 @@
+package com.gradescope.spampede;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Checks CellTypeIndex: that after every change to a board, an index holds
+ * exactly the cells of its type that a scan of the board finds, both for an
+ * index of its own and for two indexes sharing their positions (open cells and
+ * spam, as in a game).
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.CellTypeIndexCheck
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class CellTypeIndexCheck {
+
+	/** The types a random change can give a cell. */
+	private static final CellType[] TYPES = CellType.values();
+
+	/** The number of random boards. */
+	private static final int NUM_BOARDS = 300;
+
+	/** The number of random changes made to each board. */
+	private static final int NUM_CHANGES = 400;
+
+	private CellTypeIndexCheck() {
+	}
+
+	public static void main(String[] args) {
+		checkRandomChanges();
+		checkPlayedGames();
+		checkSharedTwice();
+		System.out.println("CellTypeIndex: all checks passed");
+	}
+
+	/**
+	 * Boards of every shape, with cells changed at random to any type, so cells
+	 * move between the two sharing indexes both ways and the slots of removed
+	 * cells are filled from every position.
+	 */
+	private static void checkRandomChanges() {
+		SplittableRandom random = new SplittableRandom(1);
+		for (int n = 0; n < NUM_BOARDS; n++) {
+			Board board = new Board(3 + random.nextInt(18), 3 + random.nextInt(18));
+			for (int index = 0; index < board.size(); index++) {
+				if (!board.isWall(index) && random.nextBoolean()) {
+					board.setType(index, TYPES[random.nextInt(TYPES.length)]);
+				}
+			}
+			CellTypeIndex open = new CellTypeIndex(board, CellType.OPEN);
+			board.addListener(open);
+			CellTypeIndex spam = open.indexAlso(CellType.SPAM);
+			CellTypeIndex body = new CellTypeIndex(board, CellType.BODY);
+			board.addListener(body);
+
+			int rows = board.getNumRows() - 2;
+			int columns = board.getNumColumns() - 2;
+			for (int i = 0; i < NUM_CHANGES; i++) {
+				String what = "board " + n + " after change " + i;
+				checkSame(board, open, CellType.OPEN, what, random);
+				checkSame(board, spam, CellType.SPAM, what, random);
+				checkSame(board, body, CellType.BODY, what, random);
+				int index = board.index(1 + random.nextInt(rows), 1 + random.nextInt(columns));
+				board.setType(index, TYPES[random.nextInt(TYPES.length)]);
+			}
+		}
+	}
+
+	/** The open cells and spam of games, in which spam comes and goes. */
+	private static void checkPlayedGames() {
+		SplittableRandom random = new SplittableRandom(2);
+		for (int seed = 0; seed < 10; seed++) {
+			GameEngine engine = GameEngine.newGame(GameConfig.DEFAULT, new SplittableRandom(seed));
+			engine.submit(GameCommand.AI_MODE);
+			SpampedeData data = engine.getData();
+			Board board = data.getBoard();
+			CellTypeIndex open = new CellTypeIndex(board, CellType.OPEN);
+			board.addListener(open);
+			while (!engine.isGameOver() && engine.getCycleNum() < 3000) {
+				engine.step();
+				if (engine.getCycleNum() % 7 == 0) {
+					String what = "game " + seed + " at step " + engine.getCycleNum();
+					checkSame(board, data.getSpamCells(), CellType.SPAM, what, random);
+					checkSame(board, open, CellType.OPEN, what, random);
+				}
+			}
+		}
+	}
+
+	/** An index shares its positions with at most one other, of another type. */
+	private static void checkSharedTwice() {
+		CellTypeIndex open = new CellTypeIndex(new Board(5, 5), CellType.OPEN);
+		Checks.checkThrows(IllegalStateException.class, () -> open.indexAlso(CellType.OPEN),
+				"indexing the same type twice");
+		open.indexAlso(CellType.SPAM);
+		Checks.checkThrows(IllegalStateException.class, () -> open.indexAlso(CellType.BODY),
+				"sharing positions with a third index");
+	}
+
+	/** Checks that index holds exactly the cells of the given type on board. */
+	private static void checkSame(Board board, CellTypeIndex index, CellType type, String what,
+			SplittableRandom random) {
+		Set<Integer> expected = new HashSet<>();
+		boolean containsRightCells = true;
+		for (int cell = 0; cell < board.size(); cell++) {
+			boolean ofType = board.getType(cell) == type;
+			if (ofType) {
+				expected.add(cell);
+			}
+			containsRightCells &= index.contains(cell) == ofType;
+		}
+		Checks.check(containsRightCells, what + ": the index contains every " + type + " cell and no other");
+
+		Set<Integer> slots = new HashSet<>();
+		boolean noRepeats = true;
+		for (int slot = 0; slot < index.size(); slot++) {
+			noRepeats &= slots.add(index.get(slot));
+		}
+		Checks.check(noRepeats, what + ": no " + type + " cell is in two slots");
+		Checks.check(slots.equals(expected), what + ": the slots hold every " + type + " cell");
+
+		int chosen = index.randomCell(random);
+		Checks.check(expected.isEmpty() ? chosen == -1 : expected.contains(chosen),
+				what + ": a random cell is a " + type + " cell");
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.gradescope.spampede;
+
+import java.util.function.IntPredicate;
+
+/**
+ * The assertions shared by the check programs (CommandQueueCheck,
+ * ReplayLogCheck, GameSnapshotCheck, BoardTextCheck and the rest), which run
+ * without a test framework and stop at the first thing that is wrong.
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class Checks {
+
+	/** Code that is expected to throw. */
+	interface Action {
+		void run() throws Exception;
+	}
+
+	private Checks() {
+	}
+
+	/** Throws an AssertionError saying what should have been true if it is not. */
+	static void check(boolean condition, String expectation) {
+		if (!condition) {
+			throw new AssertionError(expectation);
+		}
+	}
+
+	/**
+	 * Runs action and throws an AssertionError unless it throws an exception of
+	 * the given type, e.g. because its input is rejected.
+	 *
+	 * @param type   the type of exception expected
+	 * @param action the code to run
+	 * @param what   what action does, e.g. "a log cut off after 3 bytes"
+	 */
+	static void checkThrows(Class<? extends Exception> type, Action action, String what) {
+		try {
+			action.run();
+		} catch (Exception e) {
+			if (type.isInstance(e)) {
+				return;
+			}
+			throw new AssertionError(what + " throws " + type.getSimpleName() + ", not " + e, e);
+		}
+		throw new AssertionError(what + " throws " + type.getSimpleName());
+	}
+
+	/**
+	 * Returns, for every cell of board, the length of the shortest path through
+	 * open cells from the nearest source cell, worked out from scratch by a plain
+	 * breadth-first search, for checking the faster searches against.
+	 *
+	 * @param board    the board to search
+	 * @param isSource which cells to start from (at distance 0, whatever their type)
+	 * @return the distance of every cell, or Integer.MAX_VALUE where no source is
+	 *         reached
+	 */
+	static int[] bfsDistances(Board board, IntPredicate isSource) {
+		int[] distances = new int[board.size()];
+		int[] queue = new int[board.size()];
+		int head = 0;
+		int tail = 0;
+		for (int index = 0; index < board.size(); index++) {
+			distances[index] = Integer.MAX_VALUE;
+			if (isSource.test(index)) {
+				distances[index] = 0;
+				queue[tail++] = index;
+			}
+		}
+		int[] neighbors = new int[4];
+		while (head < tail) {
+			int cell = queue[head++];
+			for (int neighbor : board.getNeighbors(cell, neighbors)) {
+				if (board.isOpen(neighbor) && distances[neighbor] == Integer.MAX_VALUE) {
+					distances[neighbor] = distances[cell] + 1;
+					queue[tail++] = neighbor;
+				}
+			}
+		}
+		return distances;
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.gradescope.spampede;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free queue of commands from one producer thread (e.g. the
+ * Swing event thread handling key presses) to one consumer thread (the game
+ * loop), stored in a ring buffer.
+ *
+ * <p>
+ * Only the producer moves the tail and only the consumer moves the head, so
+ * neither end needs a lock or a compare-and-set: each side publishes its
+ * counter with a release write (lazySet) after touching the slot, and reads
+ * the other side's counter to see how far it may go. Each side also remembers
+ * the last value it read of the other's counter, so most calls read no shared
+ * counter at all. Offering and polling never allocate.
+ * </p>
+ *
+ * <p>
+ * Calls to offer must not overlap, and neither may calls to poll, though each
+ * side may move from one thread to another as long as the calls are ordered
+ * (e.g. a game started on one thread and stepped on another).
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class CommandQueue {
+
+	/** The ring buffer; its length is a power of two. */
+	private final GameCommand[] slots;
+
+	/** The length of slots minus one, to turn a counter into a slot. */
+	private final int mask;
+
+	/** The number of commands ever taken out (only moved by the consumer). */
+	private final AtomicLong head = new AtomicLong();
+
+	/** The number of commands ever put in (only moved by the producer). */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** The producer's last reading of head. */
+	private long cachedHead = 0;
+
+	/** The consumer's last reading of tail. */
+	private long cachedTail = 0;
+
+	/**
+	 * Creates an empty queue.
+	 *
+	 * @param capacity the most commands the queue holds at once (rounded up to a
+	 *                 power of two)
+	 */
+	public CommandQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		this.slots = new GameCommand[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Adds a command to the end of the queue. Must only be called by the
+	 * producer.
+	 *
+	 * @return true if the command was added, false if the queue was full
+	 */
+	public boolean offer(GameCommand command) {
+		long position = this.tail.get();
+		if (position - this.cachedHead >= this.slots.length) {
+			this.cachedHead = this.head.get();
+			if (position - this.cachedHead >= this.slots.length) {
+				return false;
+			}
+		}
+		this.slots[(int) position & this.mask] = command;
+		this.tail.lazySet(position + 1);
+		return true;
+	}
+
+	/**
+	 * Takes the command at the front of the queue. Must only be called by the
+	 * consumer.
+	 *
+	 * @return the command, or null if the queue is empty
+	 */
+	public GameCommand poll() {
+		long position = this.head.get();
+		if (position >= this.cachedTail) {
+			this.cachedTail = this.tail.get();
+			if (position >= this.cachedTail) {
+				return null;
+			}
+		}
+		int slot = (int) position & this.mask;
+		GameCommand command = this.slots[slot];
+		this.slots[slot] = null;
+		this.head.lazySet(position + 1);
+		return command;
+	}
+
+	/**
+	 * Returns the number of commands waiting, which another thread may change as
+	 * soon as it is read.
+	 */
+	public int size() {
+		return (int) (this.tail.get() - this.head.get());
+	}
+
+	/** Returns the most commands the queue holds at once. */
+	public int capacity() {
+		return this.slots.length;
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.gradescope.spampede;
+
+/**
+ * Checks CommandQueue: that it rounds its capacity up, reports when it is
+ * empty or full, keeps commands in order as its counters wrap around the ring
+ * buffer, and hands every command from a producer thread to a consumer thread
+ * exactly once.
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.CommandQueueCheck
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class CommandQueueCheck {
+
+	/** The commands offered, in turn. */
+	private static final GameCommand[] COMMANDS = GameCommand.values();
+
+	/** The number of commands handed from one thread to the other. */
+	private static final int NUM_HANDED_OVER = 1_000_000;
+
+	private CommandQueueCheck() {
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		checkCapacity();
+		checkEmptyAndFull();
+		checkWrapAround();
+		checkTwoThreads();
+		System.out.println("CommandQueue: all checks passed");
+	}
+
+	/** A queue holds a power of two commands, at least as many as asked for. */
+	private static void checkCapacity() {
+		Checks.check(new CommandQueue(5).capacity() == 8, "a capacity of 5 is rounded up to 8");
+		Checks.check(new CommandQueue(64).capacity() == 64, "a capacity of 64 stays 64");
+		Checks.check(new CommandQueue(65).capacity() == 128, "a capacity of 65 is rounded up to 128");
+	}
+
+	/** An empty queue has nothing to poll, and a full one takes no more. */
+	private static void checkEmptyAndFull() {
+		CommandQueue queue = new CommandQueue(4);
+		Checks.check(queue.poll() == null, "a new queue is empty");
+		for (int i = 0; i < queue.capacity(); i++) {
+			Checks.check(queue.offer(COMMANDS[i]), "a queue takes up to its capacity");
+		}
+		Checks.check(queue.size() == queue.capacity(), "a full queue has capacity commands");
+		Checks.check(!queue.offer(GameCommand.REVERSE), "a full queue takes no more");
+		Checks.check(queue.poll() == COMMANDS[0], "the first command comes out first");
+		Checks.check(queue.offer(GameCommand.REVERSE), "polling makes room");
+		for (int i = 1; i < queue.capacity(); i++) {
+			Checks.check(queue.poll() == COMMANDS[i], "commands come out in order");
+		}
+		Checks.check(queue.poll() == GameCommand.REVERSE, "the last command comes out last");
+		Checks.check(queue.poll() == null && queue.size() == 0, "an emptied queue is empty");
+	}
+
+	/**
+	 * Filling and emptying the queue by different amounts moves the counters
+	 * around the ring buffer many times over.
+	 */
+	private static void checkWrapAround() {
+		CommandQueue queue = new CommandQueue(8);
+		int offered = 0;
+		int polled = 0;
+		for (int round = 0; round < 1000; round++) {
+			int toOffer = round % (queue.capacity() + 1);
+			for (int i = 0; i < toOffer; i++) {
+				if (queue.offer(COMMANDS[offered % COMMANDS.length])) {
+					offered++;
+				} else {
+					Checks.check(queue.size() == queue.capacity(), "only a full queue turns commands away");
+				}
+			}
+			int toPoll = (round * 7) % (queue.capacity() + 1);
+			for (int i = 0; i < toPoll; i++) {
+				GameCommand command = queue.poll();
+				if (command == null) {
+					Checks.check(polled == offered, "only an empty queue has nothing to poll");
+					break;
+				}
+				Checks.check(command == COMMANDS[polled % COMMANDS.length], "commands come out in order after wrapping");
+				polled++;
+			}
+			Checks.check(queue.size() == offered - polled, "the size is the number of commands waiting");
+		}
+		Checks.check(offered > 10 * queue.capacity(), "the counters went around the ring several times");
+	}
+
+	/** A producer thread and a consumer thread see every command once, in order. */
+	private static void checkTwoThreads() throws InterruptedException {
+		CommandQueue queue = new CommandQueue(16);
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < NUM_HANDED_OVER; i++) {
+				while (!queue.offer(COMMANDS[i % COMMANDS.length])) {
+					Thread.yield();
+				}
+			}
+		}, "CommandQueueCheck producer");
+		producer.start();
+
+		int received = 0;
+		while (received < NUM_HANDED_OVER) {
+			GameCommand command = queue.poll();
+			if (command == null) {
+				Thread.yield();
+				continue;
+			}
+			Checks.check(command == COMMANDS[received % COMMANDS.length], "command " + received + " arrived in order");
+			received++;
+		}
+		producer.join();
+		Checks.check(queue.poll() == null, "no command arrived twice");
+	}
+
+}
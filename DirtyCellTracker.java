@@ -0,0 +1,60 @@
+package com.gradescope.spampede;
+
+/**
+ * Remembers which cells of a Board have changed since they were last drawn.
+ * 
+ * <p>
+ * Each cell is recorded at most once, however often it changes, so a move of
+ * the snake usually leaves just three dirty cells (the new head, the old head
+ * and the old tail) plus any new spam.
+ * </p>
+ * 
+ * @author Isaac Chung with the help of professors
+ */
+final class DirtyCellTracker implements BoardListener {
+
+	/** The dirty cells, in slots 0 to size-1. */
+	private final int[] cells;
+
+	/** For every cell, whether it is in the dirty list. */
+	private final boolean[] dirty;
+
+	/** The number of dirty cells. */
+	private int size = 0;
+
+	/**
+	 * Creates a tracker for the given board. The caller should register the
+	 * tracker as a listener of the board.
+	 */
+	public DirtyCellTracker(Board board) {
+		this.cells = new int[board.size()];
+		this.dirty = new boolean[board.size()];
+	}
+
+	@Override
+	public void cellChanged(int index, CellType oldType, CellType newType) {
+		if (!this.dirty[index]) {
+			this.dirty[index] = true;
+			this.cells[this.size++] = index;
+		}
+	}
+
+	/** Returns the number of dirty cells. */
+	public int size() {
+		return this.size;
+	}
+
+	/** Returns the i-th dirty cell, for i between 0 and size-1. */
+	public int get(int i) {
+		return this.cells[i];
+	}
+
+	/** Marks every cell as clean again. */
+	public void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.dirty[this.cells[i]] = false;
+		}
+		this.size = 0;
+	}
+
+}
@@ -0,0 +1,281 @@
+package com.gradescope.spampede;
+
+import java.util.Arrays;
+
+/**
+ * For every open cell of a Board, the length of the shortest path through open
+ * cells to the nearest spam.
+ *
+ * <p>
+ * The field is built once with a multi-source BFS seeded from every spam cell,
+ * and afterwards it is repaired incrementally as a BoardListener:
+ * </p>
+ * <ul>
+ * <li>new spam, or a cell that opens up (e.g. when the tail moves), can only
+ * shorten distances, so we relax outwards from that cell;</li>
+ * <li>spam that is eaten or a cell that gets blocked (e.g. by the head) can
+ * only lengthen the distances of the cells whose shortest path ran through it.
+ * Every cell remembers the neighbor it got its distance from, so we reset just
+ * that subtree, re-seed it from its untouched border and relax again.</li>
+ * </ul>
+ * <p>
+ * The work per change is proportional to the number of cells whose distance
+ * actually changes, not to the size of the board.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class DistanceField implements BoardListener {
+
+	/** The distance of a cell from which no spam can be reached. */
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	/** The board whose distances are stored. */
+	private final Board board;
+
+	/** For every cell, the distance to the nearest spam (or UNREACHABLE). */
+	private final int[] distances;
+
+	/** For every cell, the neighbor it got its distance from (or -1). */
+	private final int[] parents;
+
+	/** The relaxation queue, used as a ring buffer. */
+	private final int[] queue;
+
+	/** For every cell, whether it is currently in the queue. */
+	private final boolean[] queued;
+
+	/** Scratch space for the cells whose distance is being reset. */
+	private final int[] affected;
+
+	/** The front of the queue. */
+	private int queueHead = 0;
+
+	/** The number of cells in the queue. */
+	private int queueSize = 0;
+
+	/**
+	 * Creates the distance field for the given board, computing every distance
+	 * from scratch. The caller should register the field as a listener of the
+	 * board to keep it up to date.
+	 *
+	 * @param board the board whose distances to compute
+	 */
+	public DistanceField(Board board) {
+		this.board = board;
+		int size = board.size();
+		this.distances = new int[size];
+		this.parents = new int[size];
+		this.queue = new int[size];
+		this.queued = new boolean[size];
+		this.affected = new int[size];
+		this.rebuild();
+	}
+
+	/* ----------------- */
+	/* Reading the field */
+	/* ----------------- */
+
+	/**
+	 * Returns the length of the shortest path from the given cell to the nearest
+	 * spam, or UNREACHABLE if there is no such path (or the cell is not open).
+	 */
+	public int getDistance(int index) {
+		return this.distances[index];
+	}
+
+	/**
+	 * Returns the neighbor of center with the smallest distance to spam, trying
+	 * north, south, east and west in that order to break ties.
+	 *
+	 * @return the index of that neighbor, or -1 if no spam can be reached from any
+	 *         neighbor
+	 */
+	public int getClosestNeighbor(int center) {
+		int best = -1;
+		int bestDistance = UNREACHABLE;
+		int neighbor = this.board.north(center);
+		if (this.distances[neighbor] < bestDistance) {
+			best = neighbor;
+			bestDistance = this.distances[neighbor];
+		}
+		neighbor = this.board.south(center);
+		if (this.distances[neighbor] < bestDistance) {
+			best = neighbor;
+			bestDistance = this.distances[neighbor];
+		}
+		neighbor = this.board.east(center);
+		if (this.distances[neighbor] < bestDistance) {
+			best = neighbor;
+			bestDistance = this.distances[neighbor];
+		}
+		neighbor = this.board.west(center);
+		if (this.distances[neighbor] < bestDistance) {
+			best = neighbor;
+		}
+		return best;
+	}
+
+	/* ------------------ */
+	/* Building the field */
+	/* ------------------ */
+
+	/**
+	 * Recomputes every distance with a multi-source BFS from all spam cells.
+	 */
+	public void rebuild() {
+		Arrays.fill(this.distances, UNREACHABLE);
+		Arrays.fill(this.parents, -1);
+		int size = this.board.size();
+		for (int index = 0; index < size; index++) {
+			if (this.board.isSpam(index)) {
+				this.distances[index] = 0;
+				this.enqueue(index);
+			}
+		}
+		this.relax();
+	}
+
+	/* --------------------------------------- */
+	/* Repairing the field when a cell changes */
+	/* --------------------------------------- */
+
+	@Override
+	public void cellChanged(int index, CellType oldType, CellType newType) {
+		boolean wasOpen = oldType == CellType.OPEN || oldType == CellType.SPAM;
+		boolean isOpen = newType == CellType.OPEN || newType == CellType.SPAM;
+		boolean wasSpam = oldType == CellType.SPAM;
+		boolean isSpam = newType == CellType.SPAM;
+
+		if (wasOpen && (!isOpen || (wasSpam && !isSpam))) {
+			// distances that depended on this cell can only get longer
+			this.invalidateFrom(index);
+		}
+
+		if (isSpam && !wasSpam) {
+			// a new source: distances around it can only get shorter
+			this.distances[index] = 0;
+			this.parents[index] = -1;
+			this.enqueue(index);
+		} else if (isOpen && !wasOpen) {
+			// a newly opened cell: take the best of its neighbors
+			this.seedFromNeighbors(index);
+		}
+		this.relax();
+	}
+
+	/**
+	 * Resets the distance of root and of every cell whose shortest path ran
+	 * through root, then re-seeds those cells from their neighbors whose distances
+	 * are still valid. The caller must call relax afterwards.
+	 */
+	private void invalidateFrom(int root) {
+		// collect the subtree of root (children point to their parent)
+		int count = 0;
+		this.affected[count++] = root;
+		for (int i = 0; i < count; i++) {
+			int cell = this.affected[i];
+			count = this.collectChild(this.board.north(cell), cell, count);
+			count = this.collectChild(this.board.south(cell), cell, count);
+			count = this.collectChild(this.board.east(cell), cell, count);
+			count = this.collectChild(this.board.west(cell), cell, count);
+		}
+
+		// forget their distances...
+		for (int i = 0; i < count; i++) {
+			int cell = this.affected[i];
+			this.distances[cell] = UNREACHABLE;
+			this.parents[cell] = -1;
+		}
+
+		// ...and re-seed them from the rest of the field
+		for (int i = 0; i < count; i++) {
+			this.seedFromNeighbors(this.affected[i]);
+		}
+	}
+
+	/**
+	 * Adds child to the affected list if its distance came from parent.
+	 *
+	 * @return the new number of affected cells
+	 */
+	private int collectChild(int child, int parent, int count) {
+		if (this.parents[child] == parent && this.distances[child] != UNREACHABLE) {
+			this.affected[count++] = child;
+		}
+		return count;
+	}
+
+	/**
+	 * Gives an open, non-spam cell the best distance offered by its neighbors and
+	 * queues it for relaxation.
+	 */
+	private void seedFromNeighbors(int cell) {
+		if (!this.board.isOpen(cell) || this.board.isSpam(cell)) {
+			return;
+		}
+		int neighbor = this.getClosestNeighbor(cell);
+		if (neighbor >= 0) {
+			this.distances[cell] = this.distances[neighbor] + 1;
+			this.parents[cell] = neighbor;
+			this.enqueue(cell);
+		}
+	}
+
+	/**
+	 * Propagates shorter distances outwards from the queued cells until no
+	 * distance can be improved.
+	 */
+	private void relax() {
+		while (this.queueSize > 0) {
+			int cell = this.dequeue();
+			int distance = this.distances[cell] + 1;
+			this.improve(this.board.north(cell), cell, distance);
+			this.improve(this.board.south(cell), cell, distance);
+			this.improve(this.board.east(cell), cell, distance);
+			this.improve(this.board.west(cell), cell, distance);
+		}
+	}
+
+	/**
+	 * Lowers the distance of neighbor (reached from cell) if that is shorter.
+	 */
+	private void improve(int neighbor, int cell, int distance) {
+		if (distance < this.distances[neighbor] && this.board.isOpen(neighbor)) {
+			this.distances[neighbor] = distance;
+			this.parents[neighbor] = cell;
+			this.enqueue(neighbor);
+		}
+	}
+
+	/* --------------------- */
+	/* The ring-buffer queue */
+	/* --------------------- */
+
+	/** Adds cell to the back of the queue, unless it is already queued. */
+	private void enqueue(int cell) {
+		if (this.queued[cell]) {
+			return;
+		}
+		this.queued[cell] = true;
+		int tail = this.queueHead + this.queueSize;
+		if (tail >= this.queue.length) {
+			tail -= this.queue.length;
+		}
+		this.queue[tail] = cell;
+		this.queueSize++;
+	}
+
+	/** Removes and returns the cell at the front of the queue. */
+	private int dequeue() {
+		int cell = this.queue[this.queueHead];
+		this.queueHead++;
+		if (this.queueHead == this.queue.length) {
+			this.queueHead = 0;
+		}
+		this.queueSize--;
+		this.queued[cell] = false;
+		return cell;
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.gradescope.spampede;
+
+import java.util.SplittableRandom;
+
+/**
+ * Checks DistanceField: that after every change to a board, the distances it
+ * has repaired incrementally are the ones a full BFS from every spam cell
+ * finds, both on random boards with random changes and in played games.
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.DistanceFieldCheck
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class DistanceFieldCheck {
+
+	/** The types a random change can give a cell. */
+	private static final CellType[] TYPES = CellType.values();
+
+	/** The number of random boards. */
+	private static final int NUM_BOARDS = 300;
+
+	/** The number of random changes made to each board. */
+	private static final int NUM_CHANGES = 400;
+
+	private DistanceFieldCheck() {
+	}
+
+	public static void main(String[] args) {
+		checkRandomChanges();
+		checkPlayedGames();
+		System.out.println("DistanceField: all checks passed");
+	}
+
+	/**
+	 * Boards of every shape, with cells changed at random to any type, so that
+	 * spam comes and goes and paths are cut and opened in every order.
+	 */
+	private static void checkRandomChanges() {
+		SplittableRandom random = new SplittableRandom(1);
+		for (int n = 0; n < NUM_BOARDS; n++) {
+			Board board = new Board(3 + random.nextInt(18), 3 + random.nextInt(18));
+			for (int index = 0; index < board.size(); index++) {
+				if (!board.isWall(index)) {
+					board.setType(index, randomType(random));
+				}
+			}
+			DistanceField field = new DistanceField(board);
+			board.addListener(field);
+			checkDistances(board, field, "board " + n);
+
+			int rows = board.getNumRows() - 2;
+			int columns = board.getNumColumns() - 2;
+			for (int i = 0; i < NUM_CHANGES; i++) {
+				int index = board.index(1 + random.nextInt(rows), 1 + random.nextInt(columns));
+				board.setType(index, randomType(random));
+				checkDistances(board, field, "board " + n + " after change " + i);
+			}
+		}
+	}
+
+	/** Games in which the snake chases the field's own distances. */
+	private static void checkPlayedGames() {
+		for (int seed = 0; seed < 10; seed++) {
+			GameEngine engine = GameEngine.newGame(GameConfig.DEFAULT, new SplittableRandom(seed));
+			engine.submit(seed % 2 == 0 ? GameCommand.AI_DISTANCE_MODE : GameCommand.AI_MODE);
+			Board board = engine.getData().getBoard();
+			DistanceField field = new DistanceField(board);
+			board.addListener(field);
+			while (!engine.isGameOver() && engine.getCycleNum() < 3000) {
+				engine.step();
+				checkDistances(board, field, "game " + seed + " at step " + engine.getCycleNum());
+			}
+		}
+	}
+
+	/** Returns a random cell type, more often open than anything else. */
+	private static CellType randomType(SplittableRandom random) {
+		return random.nextInt(3) == 0 ? CellType.OPEN : TYPES[random.nextInt(TYPES.length)];
+	}
+
+	/** Checks every distance of field against a full BFS of board. */
+	private static void checkDistances(Board board, DistanceField field, String what) {
+		int[] expected = Checks.bfsDistances(board, board::isSpam);
+		for (int index = 0; index < board.size(); index++) {
+			if (field.getDistance(index) != expected[index]) {
+				throw new AssertionError(what + ": cell " + index + " is " + expected[index] + " from spam, not "
+						+ field.getDistance(index));
+			}
+		}
+	}
+
+}
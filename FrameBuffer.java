@@ -0,0 +1,111 @@
+package com.gradescope.spampede;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands snapshots of a game from the thread that runs it to the thread that
+ * draws it, through three FrameSnapshots that take turns.
+ *
+ * <p>
+ * At any time the simulation owns one snapshot (the back one), which it fills
+ * in, and the renderer owns another (the front one), which it draws. The third
+ * one is the latest snapshot published and not yet taken. Publishing swaps the
+ * back snapshot with that one, and acquiring swaps the front one with it if it
+ * is newer, both with a single atomic getAndSet. Neither side ever waits for
+ * the other or sees a snapshot while it is being filled in, the renderer
+ * always draws the latest step published, and steps published while it is
+ * busy are simply skipped.
+ * </p>
+ *
+ * <p>
+ * Only the cells that changed are copied when a snapshot is filled in: one
+ * DirtyCellTracker per snapshot remembers the cells that changed since that
+ * snapshot was last filled in, and only the tiles above them are summarized
+ * again (see FrameSnapshot).
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class FrameBuffer {
+
+	/** The bit of middle that is set while it holds a snapshot not yet acquired. */
+	private static final int FRESH = 4;
+
+	/** The game being published. */
+	private final SpampedeData theData;
+
+	/** The three snapshots. */
+	private final FrameSnapshot[] snapshots = new FrameSnapshot[3];
+
+	/** For each snapshot, the cells that changed since it was last filled in. */
+	private final DirtyCellTracker[] changes = new DirtyCellTracker[3];
+
+	/** The snapshot owned by the simulation (only used by the simulation). */
+	private int back = 0;
+
+	/** The snapshot owned by the renderer (only used by the renderer). */
+	private int front = 1;
+
+	/** The snapshot in between, plus FRESH if it has not been acquired. */
+	private final AtomicInteger middle = new AtomicInteger(2);
+
+	/** The number of snapshots published so far (only used by the simulation). */
+	private long published = 0;
+
+	/**
+	 * Creates the buffer for the given game, with every snapshot showing the game
+	 * as it is now. The game must then only change on the thread that publishes.
+	 */
+	public FrameBuffer(SpampedeData theData) {
+		this.theData = theData;
+		Board board = theData.getBoard();
+		for (int i = 0; i < this.snapshots.length; i++) {
+			this.snapshots[i] = new FrameSnapshot(board.getNumRows(), board.getNumColumns());
+			board.copyTypesTo(this.snapshots[i].cells);
+			this.snapshots[i].updateAllTiles();
+			this.snapshots[i].gameOver = theData.getGameOver();
+			this.changes[i] = new DirtyCellTracker(board);
+			board.addListener(this.changes[i]);
+		}
+	}
+
+	/* --------------------- */
+	/* The simulation's side */
+	/* --------------------- */
+
+	/**
+	 * Takes a snapshot of the game as it is now and makes it the latest one. Must
+	 * only be called by the thread that runs the game.
+	 */
+	public void publish() {
+		FrameSnapshot snapshot = this.snapshots[this.back];
+		DirtyCellTracker changed = this.changes[this.back];
+		Board board = this.theData.getBoard();
+		for (int i = 0; i < changed.size(); i++) {
+			int cell = changed.get(i);
+			snapshot.cells[cell] = (byte) board.getType(cell).ordinal();
+			snapshot.updateTiles(cell);
+		}
+		changed.clear();
+		snapshot.gameOver = this.theData.getGameOver();
+		snapshot.sequence = this.published++;
+
+		this.back = this.middle.getAndSet(this.back | FRESH) & ~FRESH;
+	}
+
+	/* ------------------- */
+	/* The renderer's side */
+	/* ------------------- */
+
+	/**
+	 * Returns the latest snapshot published, which stays the renderer's to read
+	 * until the next call. Must only be called by the thread that draws.
+	 */
+	public FrameSnapshot acquire() {
+		if ((this.middle.get() & FRESH) != 0) {
+			this.front = this.middle.getAndSet(this.front) & ~FRESH;
+		}
+		return this.snapshots[this.front];
+	}
+
+}
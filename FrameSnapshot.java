@@ -0,0 +1,186 @@
+package com.gradescope.spampede;
+
+/**
+ * What the board looked like at the end of one step of the game: everything
+ * needed to draw a frame, without touching the game itself.
+ *
+ * <p>
+ * Snapshots are filled in by the simulation and handed to the renderer by a
+ * FrameBuffer. Once a snapshot has been handed over, nothing changes it until
+ * the renderer gives it back, so it can be drawn on another thread while the
+ * game goes on.
+ * </p>
+ *
+ * <p>
+ * For drawing huge boards zoomed out, a snapshot also keeps a summary of the
+ * board at every level of detail: level k splits the board into tiles of 2^k
+ * by 2^k cells and stores, for each tile, the most noticeable type of cell in
+ * it (the head, then spam, then body, then wall, then open). Level 0 is the
+ * cells themselves, and each level is worked out from the four tiles below
+ * it, so a changed cell only updates one tile per level.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class FrameSnapshot {
+
+	/** The height of the board (including walls) in cells. */
+	private final int numRows;
+
+	/** The width of the board (including walls) in cells. */
+	private final int numColumns;
+
+	/** The type of every cell, as the ordinal of its CellType, row by row. */
+	final byte[] cells;
+
+	/**
+	 * The tiles of every level of detail, row by row, each the ordinal of the
+	 * most noticeable CellType in it (levels[0] is cells).
+	 */
+	final byte[][] levels;
+
+	/** Whether the game was over. */
+	boolean gameOver;
+
+	/** The number of snapshots published before this one. */
+	long sequence;
+
+	/** All cell types, indexed by ordinal. */
+	private static final CellType[] TYPES = CellType.values();
+
+	/** How noticeable each type of cell is, indexed by ordinal (see levels). */
+	private static final int[] RANK = new int[TYPES.length];
+
+	static {
+		CellType[] byRank = { CellType.OPEN, CellType.WALL, CellType.BODY, CellType.SPAM, CellType.HEAD };
+		for (int rank = 0; rank < byRank.length; rank++) {
+			RANK[byRank[rank].ordinal()] = rank;
+		}
+	}
+
+	/** Creates a blank snapshot of a board of the given size. */
+	FrameSnapshot(int numRows, int numColumns) {
+		this.numRows = numRows;
+		this.numColumns = numColumns;
+		this.levels = new byte[levelCount(numRows, numColumns)][];
+		for (int level = 0; level < this.levels.length; level++) {
+			this.levels[level] = new byte[tilesAlong(numRows, level) * tilesAlong(numColumns, level)];
+		}
+		this.cells = this.levels[0];
+	}
+
+	/** Returns the height of the board (including walls) in cells. */
+	public int getNumRows() {
+		return this.numRows;
+	}
+
+	/** Returns the width of the board (including walls) in cells. */
+	public int getNumColumns() {
+		return this.numColumns;
+	}
+
+	/** Returns the type of the cell with the given index. */
+	public CellType getType(int index) {
+		return TYPES[this.cells[index]];
+	}
+
+	/** Returns true if the game was over. */
+	public boolean isGameOver() {
+		return this.gameOver;
+	}
+
+	/** Returns the number of snapshots published before this one. */
+	public long getSequence() {
+		return this.sequence;
+	}
+
+	/* ---------------- */
+	/* Levels of detail */
+	/* ---------------- */
+
+	/** Returns the number of levels of detail, the last being a single tile. */
+	public int getLevelCount() {
+		return this.levels.length;
+	}
+
+	/** Returns the number of columns of tiles at the given level of detail. */
+	public int getLevelColumns(int level) {
+		return tilesAlong(this.numColumns, level);
+	}
+
+	/**
+	 * Returns the most noticeable type of cell in the tile with the given index
+	 * (row by row) at the given level of detail.
+	 */
+	public CellType getTile(int level, int index) {
+		return TYPES[this.levels[level][index]];
+	}
+
+	/**
+	 * Returns the number of levels of detail of a board of the given size: one
+	 * more than the number of times it can be halved until it is a single tile.
+	 */
+	static int levelCount(int numRows, int numColumns) {
+		return 33 - Integer.numberOfLeadingZeros(Math.max(numRows, numColumns) - 1);
+	}
+
+	/** Returns the number of tiles along a side of the given number of cells. */
+	static int tilesAlong(int cells, int level) {
+		return (cells + (1 << level) - 1) >> level;
+	}
+
+	/**
+	 * Brings the tiles above the given cell up to date with it, stopping at the
+	 * first level that does not change.
+	 */
+	void updateTiles(int cell) {
+		int row = cell / this.numColumns;
+		int column = cell % this.numColumns;
+		for (int level = 1; level < this.levels.length; level++) {
+			row >>= 1;
+			column >>= 1;
+			int index = row * this.getLevelColumns(level) + column;
+			byte summary = this.summarize(level, row, column);
+			if (this.levels[level][index] == summary) {
+				return;
+			}
+			this.levels[level][index] = summary;
+		}
+	}
+
+	/** Works out every tile of every level from the cells. */
+	void updateAllTiles() {
+		for (int level = 1; level < this.levels.length; level++) {
+			int rows = tilesAlong(this.numRows, level);
+			int columns = this.getLevelColumns(level);
+			for (int row = 0; row < rows; row++) {
+				for (int column = 0; column < columns; column++) {
+					this.levels[level][row * columns + column] = this.summarize(level, row, column);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the most noticeable of the (up to) four tiles one level down that
+	 * make up the given tile.
+	 */
+	private byte summarize(int level, int row, int column) {
+		byte[] below = this.levels[level - 1];
+		int rowsBelow = tilesAlong(this.numRows, level - 1);
+		int columnsBelow = this.getLevelColumns(level - 1);
+		int lastRow = Math.min(2 * row + 2, rowsBelow);
+		int lastColumn = Math.min(2 * column + 2, columnsBelow);
+		byte summary = below[2 * row * columnsBelow + 2 * column];
+		for (int r = 2 * row; r < lastRow; r++) {
+			for (int c = 2 * column; c < lastColumn; c++) {
+				byte type = below[r * columnsBelow + c];
+				if (RANK[type] > RANK[summary]) {
+					summary = type;
+				}
+			}
+		}
+		return summary;
+	}
+
+}
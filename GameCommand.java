@@ -0,0 +1,62 @@
+package com.gradescope.spampede;
+
+/**
+ * An input to a game: a key press that changes how the snake moves.
+ *
+ * <p>
+ * Commands are handed to GameEngine.submit and applied at the start of the
+ * next step, so a game is fully determined by its seed and the step at which
+ * each command was applied. That is what a ReplayLog records. The position of
+ * each command is its code in replay logs, so new commands must be added at
+ * the end.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+enum GameCommand {
+	REVERSE(null), GO_NORTH(SnakeMode.GOING_NORTH), GO_SOUTH(SnakeMode.GOING_SOUTH), GO_EAST(SnakeMode.GOING_EAST),
+	GO_WEST(SnakeMode.GOING_WEST), AI_MODE(SnakeMode.AI_MODE), AI_DISTANCE_MODE(SnakeMode.AI_DISTANCE_MODE),
+	AI_SAFE_MODE(SnakeMode.AI_SAFE_MODE), AI_HAMILTONIAN_MODE(SnakeMode.AI_HAMILTONIAN_MODE),
+	AI_ASTAR_MODE(SnakeMode.AI_ASTAR_MODE), AI_BITSET_MODE(SnakeMode.AI_BITSET_MODE);
+
+	/** All commands, indexed by their code. */
+	private static final GameCommand[] COMMANDS = GameCommand.values();
+
+	/** The mode this command switches to (or null to reverse the snake). */
+	private final SnakeMode mode;
+
+	private GameCommand(SnakeMode mode) {
+		this.mode = mode;
+	}
+
+	/** Makes the change this command stands for to the given game. */
+	public void applyTo(SpampedeData data) {
+		if (this.mode == null) {
+			data.reverseSnake();
+		} else {
+			data.setMode(this.mode);
+		}
+	}
+
+	/** Returns the command that switches the snake to the given mode. */
+	public static GameCommand forMode(SnakeMode mode) {
+		for (GameCommand command : COMMANDS) {
+			if (command.mode == mode) {
+				return command;
+			}
+		}
+		throw new IllegalArgumentException("No command for mode: " + mode);
+	}
+
+	/**
+	 * Returns the command with the given code (its position in this enum).
+	 *
+	 * @throws IllegalArgumentException if there is no such command
+	 */
+	public static GameCommand fromCode(int code) {
+		if (code < 0 || code >= COMMANDS.length) {
+			throw new IllegalArgumentException("Unknown command code: " + code);
+		}
+		return COMMANDS[code];
+	}
+}
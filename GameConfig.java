@@ -0,0 +1,316 @@
+package com.gradescope.spampede;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * The size and timing of a game of Spampede, chosen when the game starts
+ * rather than compiled in.
+ *
+ * <p>
+ * Every setting has a key (e.g. "board.width") and defaults to the matching
+ * constant in Preferences. Settings can be read from a Properties object or
+ * file, from command-line arguments of the form --key=value, or (for the
+ * applet) from applet parameters with the same keys. Times are given in
+ * milliseconds but may be fractional, so ticks can be shorter than a
+ * millisecond.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class GameConfig {
+
+	/* ---- */
+	/* Keys */
+	/* ---- */
+
+	/** The number of columns of the board, walls included. */
+	public static final String BOARD_WIDTH = "board.width";
+
+	/** The number of rows of the board, walls included. */
+	public static final String BOARD_HEIGHT = "board.height";
+
+	/** The size of one cell on the screen, in pixels. */
+	public static final String CELL_SIZE = "cell.size";
+
+	/** The time between two game steps, in (possibly fractional) milliseconds. */
+	public static final String TICK_MILLIS = "tick.ms";
+
+	/** The time between two rendered frames, in (possibly fractional) milliseconds. */
+	public static final String FRAME_MILLIS = "frame.ms";
+
+	/** The most steps run in a row, when the game falls behind, before a frame. */
+	public static final String MAX_FRAME_SKIP = "frame.maxSkip";
+
+	/** The snake moves once every this many steps. */
+	public static final String REFRESH_RATE = "snake.refreshRate";
+
+	/** Spam is added once every this many steps. */
+	public static final String SPAM_ADD_RATE = "spam.addRate";
+
+	/** A file the metrics of the game loop are written to as CSV (none if unset). */
+	public static final String METRICS_CSV = "metrics.csv";
+
+	/** The time between two lines of the metrics file, in (possibly fractional) milliseconds. */
+	public static final String METRICS_MILLIS = "metrics.ms";
+
+	/** Whether cells are written straight into the pixels of a page-flipped canvas. */
+	public static final String RASTER_RENDERING = "render.raster";
+
+	/** Every key understood by GameConfig. */
+	public static final String[] KEYS = { BOARD_WIDTH, BOARD_HEIGHT, CELL_SIZE, TICK_MILLIS, FRAME_MILLIS,
+			MAX_FRAME_SKIP, REFRESH_RATE, SPAM_ADD_RATE, METRICS_CSV, METRICS_MILLIS, RASTER_RENDERING };
+
+	/** The largest number of cells along either side of the board. */
+	public static final int MAX_BOARD_SIDE = 8192;
+
+	/** The configuration made entirely of the constants in Preferences. */
+	public static final GameConfig DEFAULT = new GameConfig(new Properties());
+
+	/* -------- */
+	/* Settings */
+	/* -------- */
+
+	private final int numRows;
+	private final int numColumns;
+	private final int cellSize;
+	private final long tickNanos;
+	private final long frameNanos;
+	private final int maxFrameSkip;
+	private final int refreshRate;
+	private final int spamAddRate;
+	private final Path metricsFile;
+	private final long metricsNanos;
+	private final boolean rasterRendering;
+
+	/**
+	 * Reads the settings from the given properties, using the constants in
+	 * Preferences for missing keys.
+	 *
+	 * @throws IllegalArgumentException if a setting is malformed or out of range
+	 */
+	private GameConfig(Properties settings) {
+		this.numColumns = readInt(settings, BOARD_WIDTH, Preferences.NUM_CELLS_WIDE, 4, MAX_BOARD_SIDE);
+		this.numRows = readInt(settings, BOARD_HEIGHT, Preferences.NUM_CELLS_TALL, 3, MAX_BOARD_SIDE);
+		this.cellSize = readInt(settings, CELL_SIZE, Preferences.CELL_SIZE, 1, 100);
+		this.tickNanos = readNanos(settings, TICK_MILLIS, Preferences.SLEEP_TIME);
+		this.frameNanos = readNanos(settings, FRAME_MILLIS, Preferences.FRAME_TIME);
+		this.maxFrameSkip = readInt(settings, MAX_FRAME_SKIP, Preferences.MAX_FRAME_SKIP, 1, Integer.MAX_VALUE);
+		this.refreshRate = readInt(settings, REFRESH_RATE, Preferences.REFRESH_RATE, 1, Integer.MAX_VALUE);
+		this.spamAddRate = readInt(settings, SPAM_ADD_RATE, Preferences.SPAM_ADD_RATE, 1, Integer.MAX_VALUE);
+		this.metricsFile = readPath(settings, METRICS_CSV);
+		this.metricsNanos = readNanos(settings, METRICS_MILLIS, Preferences.METRICS_PERIOD);
+		this.rasterRendering = readBoolean(settings, RASTER_RENDERING, Preferences.RASTER_RENDERING);
+	}
+
+	/**
+	 * Creates a configuration from the given properties; keys that are missing
+	 * keep their defaults.
+	 *
+	 * @throws IllegalArgumentException if a setting is malformed or out of range
+	 */
+	public static GameConfig fromProperties(Properties settings) {
+		return new GameConfig(settings);
+	}
+
+	/**
+	 * Reads a configuration from a properties file.
+	 *
+	 * @throws IOException              if the file cannot be read
+	 * @throws IllegalArgumentException if a setting is malformed or out of range
+	 */
+	public static GameConfig load(Path file) throws IOException {
+		Properties settings = new Properties();
+		try (Reader reader = Files.newBufferedReader(file)) {
+			settings.load(reader);
+		}
+		return new GameConfig(settings);
+	}
+
+	/**
+	 * Creates a configuration from the arguments of the form --key=value among
+	 * args; any other arguments are ignored, so callers can mix settings with
+	 * their own positional arguments.
+	 *
+	 * @throws IllegalArgumentException if a setting is malformed or out of range
+	 */
+	public static GameConfig fromArgs(String[] args) {
+		Properties settings = new Properties();
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+			if (arg.startsWith("--") && equals > 2) {
+				settings.setProperty(arg.substring(2, equals), arg.substring(equals + 1));
+			}
+		}
+		return new GameConfig(settings);
+	}
+
+	/* -------------------- */
+	/* Reading the settings */
+	/* -------------------- */
+
+	/** Returns the number of rows of the board, walls included. */
+	public int getNumRows() {
+		return this.numRows;
+	}
+
+	/** Returns the number of columns of the board, walls included. */
+	public int getNumColumns() {
+		return this.numColumns;
+	}
+
+	/** Returns the size of one cell on the screen, in pixels. */
+	public int getCellSize() {
+		return this.cellSize;
+	}
+
+	/** Returns the height of the game board on the screen, in pixels. */
+	public int getBoardHeightPixels() {
+		return this.numRows * this.cellSize + Preferences.SPACE_FOR_BUTTONS;
+	}
+
+	/** Returns the time between two game steps, in nanoseconds. */
+	public long getTickNanos() {
+		return this.tickNanos;
+	}
+
+	/** Returns the time between two rendered frames, in nanoseconds. */
+	public long getFrameNanos() {
+		return this.frameNanos;
+	}
+
+	/** Returns the most steps run in a row before a frame is rendered. */
+	public int getMaxFrameSkip() {
+		return this.maxFrameSkip;
+	}
+
+	/** Returns the number of steps between two moves of the snake. */
+	public int getRefreshRate() {
+		return this.refreshRate;
+	}
+
+	/** Returns the number of steps between two additions of spam. */
+	public int getSpamAddRate() {
+		return this.spamAddRate;
+	}
+
+	/**
+	 * Returns the file the metrics of the game loop are written to as CSV, or
+	 * null if they are not written.
+	 */
+	public Path getMetricsFile() {
+		return this.metricsFile;
+	}
+
+	/** Returns the time between two lines of the metrics file, in nanoseconds. */
+	public long getMetricsNanos() {
+		return this.metricsNanos;
+	}
+
+	/**
+	 * Returns whether the board is drawn by writing cells straight into the
+	 * pixels of the image, which a page-flipped canvas shows, rather than with
+	 * Graphics calls into an image shown by a Swing panel.
+	 */
+	public boolean isRasterRendering() {
+		return this.rasterRendering;
+	}
+
+	/** Returns the settings in the --key=value form understood by fromArgs. */
+	@Override
+	public String toString() {
+		String metrics = this.metricsFile == null ? ""
+				: String.format(" --%s=%s --%s=%s", METRICS_CSV, this.metricsFile, METRICS_MILLIS,
+						this.metricsNanos / 1e6);
+		return String.format("--%s=%d --%s=%d --%s=%d --%s=%s --%s=%s --%s=%d --%s=%d --%s=%d --%s=%b", BOARD_WIDTH,
+				this.numColumns, BOARD_HEIGHT, this.numRows, CELL_SIZE, this.cellSize, TICK_MILLIS,
+				this.tickNanos / 1e6, FRAME_MILLIS, this.frameNanos / 1e6, MAX_FRAME_SKIP, this.maxFrameSkip,
+				REFRESH_RATE, this.refreshRate, SPAM_ADD_RATE, this.spamAddRate, RASTER_RENDERING,
+				this.rasterRendering) + metrics;
+	}
+
+	/* ------- */
+	/* Parsing */
+	/* ------- */
+
+	/**
+	 * Reads an integer setting between min and max (inclusive).
+	 */
+	private static int readInt(Properties settings, String key, int defaultValue, int min, int max) {
+		String text = settings.getProperty(key);
+		if (text == null) {
+			return defaultValue;
+		}
+		int value;
+		try {
+			value = Integer.parseInt(text.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(key + " is not a whole number: " + text, e);
+		}
+		if (value < min || value > max) {
+			throw new IllegalArgumentException(key + " must be between " + min + " and " + max + ": " + value);
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a true/false setting.
+	 */
+	private static boolean readBoolean(Properties settings, String key, boolean defaultValue) {
+		String text = settings.getProperty(key);
+		if (text == null) {
+			return defaultValue;
+		}
+		String value = text.trim();
+		if (value.equalsIgnoreCase("true")) {
+			return true;
+		}
+		if (value.equalsIgnoreCase("false")) {
+			return false;
+		}
+		throw new IllegalArgumentException(key + " must be true or false: " + text);
+	}
+
+	/**
+	 * Reads a file name setting, or returns null if it is not set.
+	 */
+	private static Path readPath(Properties settings, String key) {
+		String text = settings.getProperty(key);
+		if (text == null || text.trim().isEmpty()) {
+			return null;
+		}
+		try {
+			return Paths.get(text.trim());
+		} catch (InvalidPathException e) {
+			throw new IllegalArgumentException(key + " is not a file name: " + text, e);
+		}
+	}
+
+	/**
+	 * Reads a positive time setting given in (possibly fractional) milliseconds,
+	 * and returns it in nanoseconds.
+	 */
+	private static long readNanos(Properties settings, String key, int defaultMillis) {
+		String text = settings.getProperty(key);
+		if (text == null) {
+			return defaultMillis * 1_000_000L;
+		}
+		double millis;
+		try {
+			millis = Double.parseDouble(text.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(key + " is not a number: " + text, e);
+		}
+		long nanos = Math.round(millis * 1e6);
+		if (!(nanos >= 1 && nanos <= 60_000_000_000L)) {
+			throw new IllegalArgumentException(key + " must be between 0.000001 and 60000 ms: " + text);
+		}
+		return nanos;
+	}
+
+}
@@ -0,0 +1,278 @@
+package com.gradescope.spampede;
+
+import java.util.SplittableRandom;
+
+/**
+ * Runs the logic of a game of Spampede one step at a time, without any
+ * graphics. SpampedeBrain drives an engine from its animation loop, but an
+ * engine can just as well be stepped as fast as possible, e.g. on a server or
+ * in a batch job.
+ * 
+ * @author Isaac Chung with the help of professors
+ */
+final class GameEngine {
+
+	/** The "model" in MVC. */
+	private final SpampedeData theData;
+
+	/** How often the snake moves and spam is added. */
+	private final GameConfig config;
+
+	/** The number of steps taken so far. */
+	private int cycleNum = 0;
+
+	/** The number of times the snake has moved so far. */
+	private int numMoves = 0;
+
+	/** The number of pieces of spam eaten so far. */
+	private int numSpamEaten = 0;
+
+	/** Told about spam being eaten and the game ending (may be null). */
+	private GameListener listener;
+
+	/** The most commands that can wait for the next step. */
+	private static final int MAX_PENDING_COMMANDS = 64;
+
+	/** The commands submitted since the last step, e.g. from the keyboard. */
+	private final CommandQueue commands = new CommandQueue(MAX_PENDING_COMMANDS);
+
+	/** Records the commands applied to this game (or null if not recorded). */
+	private ReplayLog replayLog;
+
+	/** Where the time taken by each step is recorded (or null if it is not). */
+	private GameMetrics metrics;
+
+	/**
+	 * Creates an engine that runs the game stored in theData.
+	 * 
+	 * @param theData the board, snake and spam of the game
+	 */
+	public GameEngine(SpampedeData theData) {
+		this(theData, GameConfig.DEFAULT);
+	}
+
+	/**
+	 * Creates an engine that runs the game stored in theData, at the rates given
+	 * by config.
+	 * 
+	 * @param theData the board, snake and spam of the game
+	 * @param config  how often the snake moves and spam is added
+	 */
+	public GameEngine(SpampedeData theData, GameConfig config) {
+		this.theData = theData;
+		this.config = config;
+	}
+
+	/**
+	 * Creates an engine for a new game, with the snake at its start location.
+	 */
+	public static GameEngine newGame() {
+		return GameEngine.newGame(new SplittableRandom());
+	}
+
+	/**
+	 * Creates an engine for a new game, with the snake at its start location, that
+	 * places spam using the given source of randomness.
+	 */
+	public static GameEngine newGame(SplittableRandom random) {
+		return GameEngine.newGame(GameConfig.DEFAULT, random);
+	}
+
+	/**
+	 * Creates an engine for a new game of the size and speed given by config, with
+	 * the snake at its start location, that places spam using the given source of
+	 * randomness.
+	 */
+	public static GameEngine newGame(GameConfig config, SplittableRandom random) {
+		SpampedeData data = new SpampedeData(config, random);
+		data.placeSnakeAtStartLocation();
+		data.setStartDirection();
+		return new GameEngine(data, config);
+	}
+
+	/**
+	 * Creates an engine for a new game of the size and speed given by config,
+	 * with spam placed by a SplittableRandom with the given seed, that records
+	 * every command applied to it in a ReplayLog (see getReplayLog).
+	 */
+	public static GameEngine newGame(GameConfig config, long seed) {
+		GameEngine engine = GameEngine.newGame(config, new SplittableRandom(seed));
+		engine.replayLog = new ReplayLog(config, seed);
+		return engine;
+	}
+
+	/* ------------------------------- */
+	/* Access information about a game */
+	/* ------------------------------- */
+
+	/** Returns the data of the game being run. */
+	public SpampedeData getData() {
+		return this.theData;
+	}
+
+	/** Returns the size and speed of the game being run. */
+	public GameConfig getConfig() {
+		return this.config;
+	}
+
+	/** Returns the number of steps taken so far. */
+	public int getCycleNum() {
+		return this.cycleNum;
+	}
+
+	/** Returns the number of times the snake has moved so far. */
+	public int getNumMoves() {
+		return this.numMoves;
+	}
+
+	/** Returns the number of pieces of spam eaten so far. */
+	public int getNumSpamEaten() {
+		return this.numSpamEaten;
+	}
+
+	/** Returns true if the snake has hit a wall or itself. */
+	public boolean isGameOver() {
+		return this.theData.getGameOver();
+	}
+
+	/**
+	 * Returns the log of the commands applied to this game so far, or null if the
+	 * game is not being recorded.
+	 */
+	public ReplayLog getReplayLog() {
+		return this.replayLog;
+	}
+
+	/** Sets the listener told about the events of this game (or null). */
+	public void setListener(GameListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets where the time taken by each step, the cells searched by the AI and
+	 * the spam placed are recorded (or null to record nothing).
+	 */
+	public void setMetrics(GameMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/* -------- */
+	/* Gameplay */
+	/* -------- */
+
+	/**
+	 * Hands a command to the game, to be applied at the start of the next step.
+	 * This may be called from another thread than the one stepping the game,
+	 * e.g. the one handling key presses, but only from one thread at a time (see
+	 * CommandQueue). Commands are applied exactly once, in the order they were
+	 * submitted.
+	 * 
+	 * @return true if the command was queued, false if MAX_PENDING_COMMANDS were
+	 *         already waiting and it was dropped
+	 */
+	public boolean submit(GameCommand command) {
+		return this.commands.offer(command);
+	}
+
+	/**
+	 * Moves the game forward one step: applies the commands submitted since the
+	 * last step, moves the snake (every REFRESH_RATE steps) and adds spam (every
+	 * SPAM_ADD_RATE steps, or whenever there is none).
+	 */
+	public void step() {
+		GameMetrics metrics = this.metrics;
+		long start = metrics == null ? 0 : System.nanoTime();
+
+		GameCommand command;
+		while ((command = this.commands.poll()) != null) {
+			command.applyTo(this.theData);
+			if (this.replayLog != null) {
+				this.replayLog.record(this.cycleNum, command);
+			}
+		}
+
+		if (metrics == null) {
+			this.updateSnake();
+			this.updateSpam();
+		} else {
+			long nodesBefore = this.theData.getNodesExpanded();
+			long snakeStart = System.nanoTime();
+			this.updateSnake();
+			long spamStart = System.nanoTime();
+			this.updateSpam();
+			long end = System.nanoTime();
+			metrics.record(GameMetrics.Phase.UPDATE_SNAKE, spamStart - snakeStart);
+			metrics.record(GameMetrics.Phase.UPDATE_SPAM, end - spamStart);
+			metrics.record(GameMetrics.Phase.CYCLE, end - start);
+			metrics.add(GameMetrics.Counter.NODES_EXPANDED, this.theData.getNodesExpanded() - nodesBefore);
+		}
+		this.cycleNum++;
+	}
+
+	/**
+	 * Moves the snake once every REFRESH_RATE cycles, either in the current
+	 * direction, or as directed by the AI of the current AI mode.
+	 */
+	public void updateSnake() {
+		if (this.cycleNum % this.config.getRefreshRate() == 0) {
+			int nextCell;
+			if (this.theData.inAImode()) {
+				nextCell = this.theData.getNextCellIndexFromAI();
+			} else {
+				nextCell = this.theData.getNextCellIndexInDir();
+			}
+			this.advanceTheSnake(nextCell);
+		}
+	}
+
+	/**
+	 * Moves the snake to the next cell (and possibly eat spam).
+	 * 
+	 * @param nextCell - the index of the new location of the snake head (which
+	 *                 must be horizontally or vertically adjacent to the old
+	 *                 location of the snake head)
+	 */
+	private void advanceTheSnake(int nextCell) {
+		Board board = this.theData.getBoard();
+
+		// oops...we hit something
+		if (board.isWall(nextCell) || board.isBody(nextCell)) {
+			this.theData.setGameOver();
+			if (this.listener != null) {
+				this.listener.gameOver();
+			}
+			return;
+		}
+
+		// the snake ate spam!
+		if (board.isSpam(nextCell)) {
+			this.numSpamEaten++;
+			if (this.listener != null) {
+				this.listener.spamEaten();
+			}
+		}
+
+		this.theData.moveSnakeForward(nextCell);
+		this.numMoves++;
+	}
+
+	/**
+	 * Adds more spam every SPAM_ADD_RATE cycles.
+	 */
+	public void updateSpam() {
+		if (this.theData.noSpam()) {
+			this.addSpam();
+		} else if (this.cycleNum % this.config.getSpamAddRate() == 0) {
+			this.addSpam();
+		}
+	}
+
+	/** Adds spam to a random open cell, and counts whether there was room. */
+	private void addSpam() {
+		boolean added = this.theData.addSpam();
+		if (this.metrics != null) {
+			this.metrics.increment(added ? GameMetrics.Counter.SPAM_PLACED : GameMetrics.Counter.SPAM_SKIPPED);
+		}
+	}
+
+}
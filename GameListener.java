@@ -0,0 +1,16 @@
+package com.gradescope.spampede;
+
+/**
+ * An observer that is told about the events of a game run by a GameEngine.
+ * 
+ * @author Isaac Chung with the help of professors
+ */
+interface GameListener {
+
+	/** Called when the snake eats a piece of spam. */
+	void spamEaten();
+
+	/** Called when the snake hits a wall or itself. */
+	void gameOver();
+
+}
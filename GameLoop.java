@@ -0,0 +1,255 @@
+package com.gradescope.spampede;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A fixed-timestep game loop running on its own thread.
+ *
+ * <p>
+ * The simulation advances in ticks of exactly tickNanos, measured with
+ * System.nanoTime, regardless of how long each tick or frame takes. If the
+ * loop falls behind (e.g. under CPU contention) it catches up by running
+ * several ticks in a row, but at most maxFrameSkip of them between two frames;
+ * any backlog beyond that is dropped (and counted) rather than letting the game
+ * spiral. Frames are rendered every frameNanos, independently of the ticks,
+ * together with how far the current time lies between the last tick and the
+ * next one, so the simulation can run faster or slower than the display.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class GameLoop implements Runnable {
+
+	/** What the loop drives. */
+	interface Game {
+		/** Advances the simulation by one tick. */
+		void tick();
+
+		/**
+		 * Draws a frame.
+		 *
+		 * @param interpolation how far (between 0 and 1) the current time lies
+		 *                      between the last tick and the next one
+		 */
+		void render(double interpolation);
+	}
+
+	/** The game being driven. */
+	private final Game game;
+
+	/** The length of one simulation tick in nanoseconds. */
+	private final long tickNanos;
+
+	/** The time between two rendered frames in nanoseconds. */
+	private final long frameNanos;
+
+	/** The most ticks run back to back before a frame is rendered. */
+	private final int maxFrameSkip;
+
+	/** The thread running the loop (or null if it is not running). */
+	private volatile Thread thread;
+
+	/** Whether the loop should keep running. */
+	private volatile boolean running = false;
+
+	/** Whether the loop is paused. */
+	private volatile boolean paused = false;
+
+	/** When the next tick is due, in System.nanoTime units. */
+	private long nextTick;
+
+	/** When the next frame is due, in System.nanoTime units. */
+	private long nextFrame;
+
+	/** The number of ticks dropped because the loop fell too far behind. */
+	private volatile long droppedTicks = 0;
+
+	/** Where dropped ticks and frames are counted (or null if they are not). */
+	private volatile GameMetrics metrics;
+
+	/** A task waiting to run on the loop thread between two ticks (or null). */
+	private final AtomicReference<Runnable> pendingTask = new AtomicReference<>();
+
+	/**
+	 * Creates a new (stopped) loop.
+	 *
+	 * @param game         the game to drive
+	 * @param tickNanos    the length of one simulation tick in nanoseconds
+	 * @param frameNanos   the time between two rendered frames in nanoseconds
+	 * @param maxFrameSkip the most ticks run back to back before a frame is
+	 *                     rendered (at least 1)
+	 */
+	public GameLoop(Game game, long tickNanos, long frameNanos, int maxFrameSkip) {
+		this.game = game;
+		this.tickNanos = tickNanos;
+		this.frameNanos = frameNanos;
+		this.maxFrameSkip = Math.max(1, maxFrameSkip);
+	}
+
+	/* --------------------- */
+	/* Starting and stopping */
+	/* --------------------- */
+
+	/**
+	 * Starts the loop on a new thread, or resumes it if it is already running.
+	 */
+	public synchronized void start() {
+		this.paused = false;
+		if (this.thread == null || !this.running) {
+			// (a stopped thread that has not finished yet just exits)
+			this.running = true;
+			this.thread = new Thread(this, "Spampede game loop");
+			this.thread.setDaemon(true);
+			this.thread.start();
+		} else {
+			LockSupport.unpark(this.thread);
+		}
+	}
+
+	/**
+	 * Pauses the loop. No ticks or frames happen until start is called again.
+	 */
+	public void pause() {
+		this.paused = true;
+	}
+
+	/** Returns true if the loop is paused. */
+	public boolean isPaused() {
+		return this.paused;
+	}
+
+	/**
+	 * Stops the loop altogether. Its thread finishes after the current tick.
+	 */
+	public synchronized void stop() {
+		this.running = false;
+		Thread loopThread = this.thread;
+		if (loopThread != null) {
+			LockSupport.unpark(loopThread);
+		}
+	}
+
+	/**
+	 * Runs task between two ticks, on the loop thread, even while the loop is
+	 * paused, so it sees the game as a tick left it. If the loop is not running,
+	 * nothing else is ticking, and task is run right away on the calling thread.
+	 *
+	 * @return false (and does nothing) if an earlier task has not run yet
+	 */
+	public synchronized boolean runBetweenTicks(Runnable task) {
+		if (this.thread == null) {
+			task.run();
+			return true;
+		}
+		if (!this.pendingTask.compareAndSet(null, task)) {
+			return false;
+		}
+		LockSupport.unpark(this.thread);
+		return true;
+	}
+
+	/** Returns the number of ticks dropped because the loop fell behind. */
+	public long getDroppedTicks() {
+		return this.droppedTicks;
+	}
+
+	/**
+	 * Sets where the ticks and frames dropped because the loop fell behind are
+	 * counted (or null to count them only in getDroppedTicks).
+	 */
+	public void setMetrics(GameMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/* -------- */
+	/* The loop */
+	/* -------- */
+
+	@Override
+	public void run() {
+		this.nextTick = System.nanoTime();
+		this.nextFrame = this.nextTick;
+
+		while (this.running && this.thread == Thread.currentThread()) {
+			this.runPendingTask();
+			if (this.paused) {
+				LockSupport.park(this);
+				// don't try to catch up on the time spent paused
+				this.nextTick = System.nanoTime();
+				this.nextFrame = this.nextTick;
+				continue;
+			}
+
+			long now = System.nanoTime();
+			boolean pausedByTick = this.runDueTicks(now);
+
+			if (now - this.nextFrame >= 0 || pausedByTick) {
+				double interpolation = 1.0 - (double) (this.nextTick - now) / this.tickNanos;
+				this.game.render(Math.max(0.0, Math.min(1.0, interpolation)));
+				this.nextFrame += this.frameNanos;
+				if (now - this.nextFrame >= 0) {
+					GameMetrics metrics = this.metrics;
+					if (metrics != null) {
+						long missed = (now - this.nextFrame) / this.frameNanos + 1;
+						metrics.add(GameMetrics.Counter.DROPPED_FRAMES, missed);
+					}
+					this.nextFrame = now + this.frameNanos;
+				}
+			}
+
+			// sleep until the next tick or frame is due
+			long wakeUp = (this.nextTick - this.nextFrame < 0) ? this.nextTick : this.nextFrame;
+			long delay = wakeUp - System.nanoTime();
+			if (delay > 0 && !this.paused) {
+				LockSupport.parkNanos(this, delay);
+			}
+		}
+
+		synchronized (this) {
+			if (this.thread == Thread.currentThread()) {
+				// a task handed over while the loop was stopping still runs
+				this.runPendingTask();
+				this.thread = null;
+			}
+		}
+	}
+
+	/** Runs the task handed to runBetweenTicks, if there is one. */
+	private void runPendingTask() {
+		if (this.pendingTask.get() != null) {
+			this.pendingTask.getAndSet(null).run();
+		}
+	}
+
+	/**
+	 * Runs every tick that is due at time now, up to maxFrameSkip of them, and
+	 * drops the rest.
+	 *
+	 * @return true if a tick paused the loop (e.g. because the game is over)
+	 */
+	private boolean runDueTicks(long now) {
+		int ticks = 0;
+		while (now - this.nextTick >= 0 && ticks < this.maxFrameSkip) {
+			this.game.tick();
+			this.nextTick += this.tickNanos;
+			ticks++;
+			if (this.paused) {
+				return true;
+			}
+		}
+
+		if (now - this.nextTick >= 0) {
+			// too far behind: skip the backlog instead of spiralling
+			long behind = (now - this.nextTick) / this.tickNanos + 1;
+			this.droppedTicks += behind;
+			GameMetrics metrics = this.metrics;
+			if (metrics != null) {
+				metrics.add(GameMetrics.Counter.DROPPED_TICKS, behind);
+			}
+			this.nextTick += behind * this.tickNanos;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,317 @@
+package com.gradescope.spampede;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timings and counts of what happens in the game loop: how long each phase of
+ * a step takes, how many cells the AI searched, how much spam was placed and
+ * how far the loop fell behind.
+ *
+ * <p>
+ * Recording is meant for the hot loop: it only reads the clock and updates
+ * preallocated arrays, and never allocates. Like LatencyHistogram, each
+ * histogram and counter is recorded on one thread (the game loop's, except
+ * UPDATE_GRAPHICS, which the Swing event thread records) and may be read from
+ * others.
+ * The numbers can be watched live over JMX (register) or written to a CSV file
+ * every so often (startCsvDump), e.g. to compare two versions of the AI.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class GameMetrics implements GameMetricsMBean {
+
+	/** The parts of the game loop that are timed. */
+	enum Phase {
+		/** A whole step of the engine (the commands, the snake and the spam). */
+		CYCLE,
+		/** Moving the snake, including the AI's decision. */
+		UPDATE_SNAKE,
+		/** Adding spam. */
+		UPDATE_SPAM,
+		/** Drawing the board. */
+		UPDATE_GRAPHICS
+	}
+
+	/** The events that are counted. */
+	enum Counter {
+		/** Cells expanded by the searches of the AI. */
+		NODES_EXPANDED,
+		/** Pieces of spam placed on the board. */
+		SPAM_PLACED,
+		/** Times spam was due but the board was too full to add it. */
+		SPAM_SKIPPED,
+		/** Steps dropped because the game loop fell too far behind. */
+		DROPPED_TICKS,
+		/** Frames missed because the game loop was late to draw them. */
+		DROPPED_FRAMES
+	}
+
+	/** The JMX domain the metrics are registered under. */
+	public static final String JMX_DOMAIN = "com.gradescope.spampede";
+
+	private static final Phase[] PHASES = Phase.values();
+	private static final Counter[] COUNTERS = Counter.values();
+
+	/** The times of each phase, by ordinal. */
+	private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+
+	/** The value of each counter, by ordinal. */
+	private final long[] counts = new long[COUNTERS.length];
+
+	/** Writes the CSV file every period (or null if it is not being written). */
+	private ScheduledExecutorService csvDumper;
+
+	/** The CSV file being written (or null). */
+	private Writer csvOut;
+
+	/** When the CSV dump started, in System.currentTimeMillis units. */
+	private long csvStart;
+
+	/** Creates a registry with every count at zero. */
+	public GameMetrics() {
+		for (Phase phase : PHASES) {
+			this.histograms[phase.ordinal()] = new LatencyHistogram();
+		}
+	}
+
+	/* --------- */
+	/* Recording */
+	/* --------- */
+
+	/** Records that the given phase took the given number of nanoseconds. */
+	public void record(Phase phase, long nanos) {
+		this.histograms[phase.ordinal()].record(nanos);
+	}
+
+	/** Adds amount to the given counter. */
+	public void add(Counter counter, long amount) {
+		this.counts[counter.ordinal()] += amount;
+	}
+
+	/** Adds one to the given counter. */
+	public void increment(Counter counter) {
+		this.counts[counter.ordinal()]++;
+	}
+
+	@Override
+	public void reset() {
+		for (LatencyHistogram histogram : this.histograms) {
+			histogram.reset();
+		}
+		for (int i = 0; i < this.counts.length; i++) {
+			this.counts[i] = 0;
+		}
+	}
+
+	/* ------------------- */
+	/* Reading the metrics */
+	/* ------------------- */
+
+	/** Returns the times recorded for the given phase. */
+	public LatencyHistogram getHistogram(Phase phase) {
+		return this.histograms[phase.ordinal()];
+	}
+
+	/** Returns the value of the given counter. */
+	public long getCount(Counter counter) {
+		return this.counts[counter.ordinal()];
+	}
+
+	@Override
+	public long getNodesExpanded() {
+		return this.getCount(Counter.NODES_EXPANDED);
+	}
+
+	@Override
+	public long getSpamPlaced() {
+		return this.getCount(Counter.SPAM_PLACED);
+	}
+
+	@Override
+	public long getSpamSkipped() {
+		return this.getCount(Counter.SPAM_SKIPPED);
+	}
+
+	@Override
+	public long getDroppedTicks() {
+		return this.getCount(Counter.DROPPED_TICKS);
+	}
+
+	@Override
+	public long getDroppedFrames() {
+		return this.getCount(Counter.DROPPED_FRAMES);
+	}
+
+	/* --- */
+	/* JMX */
+	/* --- */
+
+	/**
+	 * Registers this registry with the platform MBean server, as
+	 * com.gradescope.spampede:type=GameMetrics, and each phase as
+	 * com.gradescope.spampede:type=GameMetrics,phase=NAME. Metrics registered
+	 * earlier under the same names (e.g. by an earlier game) are replaced.
+	 *
+	 * @throws JMException if the metrics cannot be registered
+	 */
+	public void register() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		registerReplacing(server, this, objectName(null));
+		for (Phase phase : PHASES) {
+			registerReplacing(server, this.getHistogram(phase), objectName(phase));
+		}
+	}
+
+	/** Removes the names registered by register (if they are registered). */
+	public void unregister() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			unregisterIfPresent(server, objectName(null));
+			for (Phase phase : PHASES) {
+				unregisterIfPresent(server, objectName(phase));
+			}
+		} catch (JMException e) {
+			// nothing left to clean up
+		}
+	}
+
+	/** Returns the JMX name of the registry (phase null) or of one phase. */
+	private static ObjectName objectName(Phase phase) throws JMException {
+		String name = JMX_DOMAIN + ":type=GameMetrics";
+		return new ObjectName(phase == null ? name : name + ",phase=" + phase.name());
+	}
+
+	private static void registerReplacing(MBeanServer server, Object bean, ObjectName name) throws JMException {
+		unregisterIfPresent(server, name);
+		server.registerMBean(bean, name);
+	}
+
+	private static void unregisterIfPresent(MBeanServer server, ObjectName name) throws JMException {
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+	}
+
+	/* ------------ */
+	/* The CSV dump */
+	/* ------------ */
+
+	/**
+	 * Starts writing the metrics to the given file every periodMillis
+	 * milliseconds, on a thread of its own, replacing the contents of the file.
+	 * Every line holds the totals so far, so the rate of anything is the
+	 * difference between two lines.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void startCsvDump(Path file, long periodMillis) throws IOException {
+		this.stopCsvDump();
+		Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+		out.write(csvHeader());
+		out.flush();
+		long start = System.currentTimeMillis();
+		this.csvDumper = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "Spampede metrics dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.csvOut = out;
+		this.csvStart = start;
+		this.csvDumper.scheduleAtFixedRate(() -> this.writeCsvRow(out, start), periodMillis, periodMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops writing the CSV file (if it is being written), after writing one last
+	 * line and closing the file.
+	 */
+	public synchronized void stopCsvDump() {
+		if (this.csvDumper != null) {
+			Writer out = this.csvOut;
+			long start = this.csvStart;
+			this.csvDumper.execute(() -> {
+				this.writeCsvRow(out, start);
+				try {
+					out.close();
+				} catch (IOException e) {
+					// the dump is over anyway
+				}
+			});
+			this.csvDumper.shutdown();
+			this.csvDumper = null;
+			this.csvOut = null;
+		}
+	}
+
+	/** Writes the line of the CSV file for now, giving up on the dump if that fails. */
+	private void writeCsvRow(Writer out, long start) {
+		try {
+			out.write(this.csvRow(System.currentTimeMillis() - start));
+			out.flush();
+		} catch (IOException e) {
+			System.err.println("Could not write metrics: " + e);
+			// an exception cancels the periodic task
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** Returns the first line of the CSV file: the name of every column. */
+	static String csvHeader() {
+		StringBuilder header = new StringBuilder("elapsedMillis");
+		for (Phase phase : PHASES) {
+			String name = camelCase(phase.name());
+			header.append(',').append(name).append("Count,").append(name).append("MeanNanos,").append(name)
+					.append("MedianNanos,").append(name).append("P99Nanos,").append(name).append("MaxNanos");
+		}
+		for (Counter counter : COUNTERS) {
+			header.append(',').append(camelCase(counter.name()));
+		}
+		return header.append('\n').toString();
+	}
+
+	/** Returns the line of the CSV file for the metrics as they are now. */
+	String csvRow(long elapsedMillis) {
+		StringBuilder row = new StringBuilder().append(elapsedMillis);
+		for (LatencyHistogram histogram : this.histograms) {
+			row.append(',').append(histogram.getCount()).append(',')
+					.append(String.format(Locale.ROOT, "%.1f", histogram.getMeanNanos())).append(',')
+					.append(histogram.getMedianNanos()).append(',').append(histogram.get99thPercentileNanos())
+					.append(',').append(histogram.getMaxNanos());
+		}
+		for (long count : this.counts) {
+			row.append(',').append(count);
+		}
+		return row.append('\n').toString();
+	}
+
+	/** Turns a name like UPDATE_SNAKE into updateSnake. */
+	private static String camelCase(String name) {
+		StringBuilder camel = new StringBuilder(name.length());
+		boolean upper = false;
+		for (char c : name.toCharArray()) {
+			if (c == '_') {
+				upper = true;
+			} else {
+				camel.append(upper ? c : Character.toLowerCase(c));
+				upper = false;
+			}
+		}
+		return camel.toString();
+	}
+
+}
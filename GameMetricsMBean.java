@@ -0,0 +1,28 @@
+package com.gradescope.spampede;
+
+/**
+ * The counters of GameMetrics offered over JMX, e.g. in JConsole.
+ *
+ * @author Isaac Chung with the help of professors
+ */
+public interface GameMetricsMBean {
+
+	/** Returns the number of cells expanded by the searches of the AI. */
+	long getNodesExpanded();
+
+	/** Returns the number of pieces of spam placed on the board. */
+	long getSpamPlaced();
+
+	/** Returns the number of times spam was due but the board was too full. */
+	long getSpamSkipped();
+
+	/** Returns the number of steps dropped because the game loop fell behind. */
+	long getDroppedTicks();
+
+	/** Returns the number of frames missed because the game loop fell behind. */
+	long getDroppedFrames();
+
+	/** Sets every counter and histogram back to zero. */
+	void reset();
+
+}
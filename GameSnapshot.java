@@ -0,0 +1,323 @@
+package com.gradescope.spampede;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Saves the state of a game (a SpampedeData) in a compact binary form and
+ * restores it, so a game can be stored every step, resumed later or forked
+ * into several games.
+ *
+ * <p>
+ * Every cell takes 2 bits (wall, open, spam or snake), four to a byte. The
+ * snake is stored as its tail cell followed by the direction of each next
+ * cell towards the head, also 2 bits each, and the spam as the list of its
+ * cells. A 50 by 30 board with a long snake fits in
+ * well under a kilobyte. The layout, in the big-endian order of ByteBuffer,
+ * is:
+ * </p>
+ *
+ * <pre>
+ * int magic "SPSN", short version, byte mode, byte gameOver,
+ * int rows, int columns, int snakeSize, int snakeTail, int spamCount,
+ * (rows * columns + 3) / 4 bytes of cells,
+ * (snakeSize + 2) / 4 bytes of directions, spamCount * int spam
+ * </pre>
+ *
+ * <p>
+ * A snapshot is read straight out of whatever buffer holds it, so load maps
+ * the file into memory and builds the game from the mapped pages without
+ * copying the file first. The source of randomness is not part of a
+ * snapshot: a restored game places its spam with the SplittableRandom it is
+ * given.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class GameSnapshot {
+
+	/** The first four bytes of every snapshot: "SPSN". */
+	private static final int MAGIC = 0x5350534E;
+
+	/** The version of the layout written by this class. */
+	private static final short VERSION = 1;
+
+	/** The number of bytes before the cells. */
+	private static final int HEADER_SIZE = 28;
+
+	/** The 2-bit code of each cell type, by ordinal (the head and body are both snake). */
+	private static final int[] CODES = new int[CellType.values().length];
+
+	private static final int WALL = 0;
+	private static final int OPEN = 1;
+	private static final int SPAM = 2;
+	private static final int SNAKE = 3;
+
+	private static final int NORTH = 0;
+	private static final int SOUTH = 1;
+	private static final int EAST = 2;
+	private static final int WEST = 3;
+
+	/** All snake modes, indexed by their code. */
+	private static final SnakeMode[] MODES = SnakeMode.values();
+
+	static {
+		CODES[CellType.WALL.ordinal()] = WALL;
+		CODES[CellType.OPEN.ordinal()] = OPEN;
+		CODES[CellType.SPAM.ordinal()] = SPAM;
+		CODES[CellType.HEAD.ordinal()] = SNAKE;
+		CODES[CellType.BODY.ordinal()] = SNAKE;
+	}
+
+	private GameSnapshot() {
+	}
+
+	/* ------- */
+	/* Writing */
+	/* ------- */
+
+	/** Returns the number of bytes the snapshot of data takes. */
+	public static int sizeOf(SpampedeData data) {
+		int cells = data.getBoard().size();
+		int snakeSize = data.getSnakeBody().size();
+		return HEADER_SIZE + (cells + 3) / 4 + (snakeSize + 2) / 4 + 4 * data.getSpamCells().size();
+	}
+
+	/**
+	 * Writes the snapshot of data at the position of buffer, which must have
+	 * sizeOf(data) bytes remaining, and moves the position past it. Writing into
+	 * the same buffer every step does not allocate.
+	 */
+	public static void write(SpampedeData data, ByteBuffer buffer) {
+		Board board = data.getBoard();
+		SnakeBody snake = data.getSnakeBody();
+		int snakeSize = snake.size();
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.put((byte) data.getMode().ordinal());
+		buffer.put((byte) (data.getGameOver() ? 1 : 0));
+		buffer.putInt(board.getNumRows());
+		buffer.putInt(board.getNumColumns());
+		buffer.putInt(snakeSize);
+		buffer.putInt(snakeSize == 0 ? -1 : snake.getTail());
+		buffer.putInt(data.getSpamCells().size());
+
+		// the cells, four to a byte, the first in the lowest bits
+		int size = board.size();
+		for (int start = 0; start < size; start += 4) {
+			int packed = 0;
+			for (int i = Math.min(4, size - start) - 1; i >= 0; i--) {
+				packed = (packed << 2) | CODES[board.getType(start + i).ordinal()];
+			}
+			buffer.put((byte) packed);
+		}
+
+		// the direction of each cell of the snake from the one before it
+		int numColumns = board.getNumColumns();
+		int packed = 0;
+		for (int i = 1; i < snakeSize; i++) {
+			int step = snake.get(i) - snake.get(i - 1);
+			int direction;
+			if (step == -numColumns) {
+				direction = NORTH;
+			} else if (step == numColumns) {
+				direction = SOUTH;
+			} else if (step == 1) {
+				direction = EAST;
+			} else if (step == -1) {
+				direction = WEST;
+			} else {
+				throw new IllegalStateException("The snake is not connected at cell " + snake.get(i));
+			}
+			int slot = (i - 1) & 3;
+			packed |= direction << (2 * slot);
+			if (slot == 3 || i == snakeSize - 1) {
+				buffer.put((byte) packed);
+				packed = 0;
+			}
+		}
+
+		CellTypeIndex spamCells = data.getSpamCells();
+		for (int i = 0; i < spamCells.size(); i++) {
+			buffer.putInt(spamCells.get(i));
+		}
+	}
+
+	/** Returns a new buffer holding the snapshot of data, ready to be read. */
+	public static ByteBuffer toBuffer(SpampedeData data) {
+		ByteBuffer buffer = ByteBuffer.allocate(sizeOf(data));
+		write(data, buffer);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Writes the snapshot of data to the given file, replacing its contents.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void save(SpampedeData data, Path file) throws IOException {
+		ByteBuffer buffer = toBuffer(data);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/* ------- */
+	/* Reading */
+	/* ------- */
+
+	/**
+	 * Restores the game in the snapshot at the position of buffer, and moves the
+	 * position past it.
+	 *
+	 * @param buffer the buffer holding the snapshot
+	 * @param random the source of randomness the restored game places spam with
+	 * @return the restored game
+	 * @throws IOException if the buffer does not hold a valid snapshot, e.g. if
+	 *                     the snake or the spam does not match the cells
+	 */
+	public static SpampedeData read(ByteBuffer buffer, SplittableRandom random) throws IOException {
+		try {
+			return readSnapshot(buffer, random);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Snapshot is truncated", e);
+		}
+	}
+
+	/**
+	 * Maps the given file into memory and restores the game in it.
+	 *
+	 * @param file   a file written by save
+	 * @param random the source of randomness the restored game places spam with
+	 * @return the restored game
+	 * @throws IOException if the file cannot be read or does not hold a valid
+	 *                     snapshot
+	 */
+	public static SpampedeData load(Path file, SplittableRandom random) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return read(buffer, random);
+		}
+	}
+
+	/** Does the work of read, letting a short buffer underflow. */
+	private static SpampedeData readSnapshot(ByteBuffer buffer, SplittableRandom random) throws IOException {
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException("Not a Spampede snapshot");
+		}
+		short version = buffer.getShort();
+		if (version != VERSION) {
+			throw new IOException("Unsupported snapshot version: " + version);
+		}
+		int modeCode = buffer.get();
+		boolean gameOver = buffer.get() != 0;
+		int numRows = buffer.getInt();
+		int numColumns = buffer.getInt();
+		int snakeSize = buffer.getInt();
+		int snakeTail = buffer.getInt();
+		int spamCount = buffer.getInt();
+		if (modeCode < 0 || modeCode >= MODES.length || numRows < 3 || numColumns < 3
+				|| numRows > GameConfig.MAX_BOARD_SIDE || numColumns > GameConfig.MAX_BOARD_SIDE) {
+			throw new IOException("Bad header in snapshot");
+		}
+		int size = numRows * numColumns;
+		if (snakeSize < 0 || snakeSize > size || spamCount < 0 || spamCount > size
+				|| (snakeSize > 0 && (snakeTail < 0 || snakeTail >= size))) {
+			throw new IOException("Bad header in snapshot");
+		}
+
+		// spam cells stay open until the spam list adds them, in its order
+		SpampedeData data = new SpampedeData(numRows, numColumns, random);
+		Board board = data.getBoard();
+		BitSet spamCells = new BitSet(size);
+		int numSnakeCells = 0;
+		for (int start = 0; start < size; start += 4) {
+			int packed = buffer.get();
+			for (int i = 0; i < 4 && start + i < size; i++) {
+				int index = start + i;
+				switch ((packed >>> (2 * i)) & 3) {
+				case WALL:
+					board.becomeWall(index);
+					break;
+				case OPEN:
+					board.becomeOpen(index);
+					break;
+				case SPAM:
+					board.becomeOpen(index);
+					spamCells.set(index);
+					break;
+				default:
+					board.becomeBody(index);
+					numSnakeCells++;
+					break;
+				}
+			}
+		}
+
+		if (numSnakeCells != snakeSize || spamCells.cardinality() != spamCount) {
+			throw new IOException("Snake or spam does not match the cells in snapshot");
+		}
+
+		// the snake must cover every snake cell exactly once
+		SnakeBody snake = data.getSnakeBody();
+		BitSet snakeCells = new BitSet(size);
+		int cell = snakeTail;
+		int packed = 0;
+		for (int i = 0; i < snakeSize; i++) {
+			if (i > 0) {
+				int slot = (i - 1) & 3;
+				if (slot == 0) {
+					packed = buffer.get();
+				}
+				switch ((packed >>> (2 * slot)) & 3) {
+				case NORTH:
+					cell -= numColumns;
+					break;
+				case SOUTH:
+					cell += numColumns;
+					break;
+				case EAST:
+					cell++;
+					break;
+				default:
+					cell--;
+					break;
+				}
+			}
+			if (cell < 0 || cell >= size || !board.isBody(cell) || snakeCells.get(cell)) {
+				throw new IOException("Snake does not match the cells in snapshot");
+			}
+			snakeCells.set(cell);
+			snake.addHead(cell);
+		}
+		if (snakeSize > 0) {
+			board.becomeHead(snake.getHead());
+		}
+
+		for (int i = 0; i < spamCount; i++) {
+			int spam = buffer.getInt();
+			if (spam < 0 || spam >= size || !spamCells.get(spam) || board.isSpam(spam)) {
+				throw new IOException("Spam does not match the cells in snapshot");
+			}
+			data.addSpam(spam);
+		}
+
+		data.setMode(MODES[modeCode]);
+		if (gameOver) {
+			data.setGameOver();
+		}
+		return data;
+	}
+
+}
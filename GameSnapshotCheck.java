@@ -0,0 +1,176 @@
+package com.gradescope.spampede;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Checks GameSnapshot: that the boards of TestGame and games part way through
+ * come back exactly as they were, through a buffer and through a file, and
+ * that snapshots whose snake or spam do not match their cells are rejected
+ * with an IOException.
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.GameSnapshotCheck
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class GameSnapshotCheck {
+
+	/** The number of bytes before the cells. */
+	private static final int HEADER_SIZE = 28;
+
+	/** Where snakeSize is in the header. */
+	private static final int SNAKE_SIZE_OFFSET = 16;
+
+	/** Where spamCount is in the header. */
+	private static final int SPAM_COUNT_OFFSET = 24;
+
+	private GameSnapshotCheck() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		checkTestGames();
+		checkPlayedGames();
+		checkFile();
+		checkCorruptSnapshots();
+		System.out.println("GameSnapshot: all checks passed");
+	}
+
+	/** Every board of TestGame comes back the same. */
+	private static void checkTestGames() throws IOException {
+		for (TestGame game : TestGame.values()) {
+			SpampedeData data = new SpampedeData(game);
+			checkSame(data, GameSnapshot.read(GameSnapshot.toBuffer(data), new SplittableRandom()), game.name());
+		}
+	}
+
+	/**
+	 * Games in every AI mode come back the same every few hundred steps, and a
+	 * game restored from a snapshot goes on just like the original.
+	 */
+	private static void checkPlayedGames() throws IOException {
+		SnakeMode[] modes = { SnakeMode.AI_MODE, SnakeMode.AI_SAFE_MODE, SnakeMode.AI_ASTAR_MODE };
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		for (int seed = 0; seed < 12; seed++) {
+			GameEngine engine = GameEngine.newGame(GameConfig.DEFAULT, new SplittableRandom(seed));
+			engine.submit(GameCommand.forMode(modes[seed % modes.length]));
+			while (!engine.isGameOver() && engine.getCycleNum() < 5000) {
+				engine.step();
+				if (engine.getCycleNum() % 293 == 0) {
+					buffer.clear();
+					GameSnapshot.write(engine.getData(), buffer);
+					Checks.check(buffer.position() == GameSnapshot.sizeOf(engine.getData()), "sizeOf is the size written");
+					buffer.flip();
+					SpampedeData copy = GameSnapshot.read(buffer, new SplittableRandom());
+					checkSame(engine.getData(), copy, "game " + seed + " at step " + engine.getCycleNum());
+				}
+			}
+		}
+
+		// two games restored from one snapshot with the same seed stay the same
+		GameEngine engine = GameEngine.newGame(GameConfig.DEFAULT, new SplittableRandom(5));
+		engine.submit(GameCommand.AI_SAFE_MODE);
+		for (int i = 0; i < 3000; i++) {
+			engine.step();
+		}
+		ByteBuffer snapshot = GameSnapshot.toBuffer(engine.getData());
+		GameEngine first = new GameEngine(GameSnapshot.read(snapshot.duplicate(), new SplittableRandom(1)));
+		GameEngine second = new GameEngine(GameSnapshot.read(snapshot.duplicate(), new SplittableRandom(1)));
+		for (int i = 0; i < 2000; i++) {
+			first.step();
+			second.step();
+		}
+		checkSame(first.getData(), second.getData(), "two games forked from one snapshot");
+	}
+
+	/** A snapshot saved to a file loads back the same. */
+	private static void checkFile() throws IOException {
+		GameEngine engine = GameEngine.newGame(GameConfig.DEFAULT, new SplittableRandom(9));
+		engine.submit(GameCommand.AI_MODE);
+		for (int i = 0; i < 2000; i++) {
+			engine.step();
+		}
+		Path file = Files.createTempFile("spampede", ".snapshot");
+		try {
+			GameSnapshot.save(engine.getData(), file);
+			Checks.check(Files.size(file) == GameSnapshot.sizeOf(engine.getData()), "the file is sizeOf bytes long");
+			checkSame(engine.getData(), GameSnapshot.load(file, new SplittableRandom()), "a saved game");
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/** Snapshots that are cut off or do not agree with themselves are rejected. */
+	private static void checkCorruptSnapshots() throws IOException {
+		SpampedeData data = new SpampedeData(TestGame.G13);
+		Board board = data.getBoard();
+		byte[] bytes = GameSnapshot.toBuffer(data).array();
+
+		for (int length = 0; length < bytes.length; length++) {
+			byte[] cut = Arrays.copyOf(bytes, length);
+			Checks.checkThrows(IOException.class, () -> GameSnapshot.read(ByteBuffer.wrap(cut), new SplittableRandom()),
+					"a snapshot cut off after " + length + " bytes");
+		}
+
+		byte[] badMagic = bytes.clone();
+		badMagic[0] ^= 1;
+		Checks.checkThrows(IOException.class, () -> GameSnapshot.read(ByteBuffer.wrap(badMagic), new SplittableRandom()),
+				"a snapshot with the wrong magic number");
+
+		byte[] shortSnake = bytes.clone();
+		ByteBuffer.wrap(shortSnake).putInt(SNAKE_SIZE_OFFSET, data.getSnakeBody().size() - 1);
+		Checks.checkThrows(IOException.class, () -> GameSnapshot.read(ByteBuffer.wrap(shortSnake), new SplittableRandom()),
+				"a snapshot with more snake cells than snakeSize");
+
+		// G13's snake goes north from its tail, then west to its head; send it back south
+		byte[] repeated = bytes.clone();
+		int directions = HEADER_SIZE + (board.size() + 3) / 4;
+		repeated[directions] = 0b0100;
+		Checks.checkThrows(IOException.class, () -> GameSnapshot.read(ByteBuffer.wrap(repeated), new SplittableRandom()),
+				"a snapshot whose snake visits a cell twice");
+
+		byte[] extraSpam = bytes.clone();
+		setCell(extraSpam, board.index(4, 4), 2);
+		Checks.checkThrows(IOException.class, () -> GameSnapshot.read(ByteBuffer.wrap(extraSpam), new SplittableRandom()),
+				"a snapshot with a spam cell left out of the spam list");
+
+		byte[] openSpam = withSpamList(data, board.index(4, 4));
+		Checks.checkThrows(IOException.class, () -> GameSnapshot.read(ByteBuffer.wrap(openSpam), new SplittableRandom()),
+				"a snapshot that lists spam on an open cell");
+	}
+
+	/** Sets the 2-bit code of the given cell in a snapshot. */
+	private static void setCell(byte[] snapshot, int cell, int code) {
+		int position = HEADER_SIZE + cell / 4;
+		int shift = 2 * (cell % 4);
+		snapshot[position] = (byte) ((snapshot[position] & ~(3 << shift)) | (code << shift));
+	}
+
+	/** Returns the snapshot of data (which has no spam) with one cell in its spam list. */
+	private static byte[] withSpamList(SpampedeData data, int cell) {
+		ByteBuffer buffer = ByteBuffer.allocate(GameSnapshot.sizeOf(data) + 4);
+		GameSnapshot.write(data, buffer);
+		buffer.putInt(SPAM_COUNT_OFFSET, 1);
+		buffer.putInt(cell);
+		return buffer.array();
+	}
+
+	/** Checks that copy holds the same game as data, down to the order of its spam. */
+	private static void checkSame(SpampedeData data, SpampedeData copy, String what) {
+		Checks.check(BoardText.encodeWithSnake(copy).equals(BoardText.encodeWithSnake(data)), what + " has the same board");
+		Checks.check(copy.getMode() == data.getMode() && copy.getGameOver() == data.getGameOver(),
+				what + " has the same mode");
+		CellTypeIndex spam = data.getSpamCells();
+		CellTypeIndex spamCopy = copy.getSpamCells();
+		Checks.check(spamCopy.size() == spam.size(), what + " has the same spam");
+		for (int i = 0; i < spam.size(); i++) {
+			Checks.check(spamCopy.get(i) == spam.get(i), what + " has its spam in the same order");
+		}
+	}
+
+}
@@ -0,0 +1,209 @@
+package com.gradescope.spampede;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An AI that follows a Hamiltonian cycle, i.e. a closed path that visits every
+ * open cell of the board exactly once.
+ *
+ * <p>
+ * A snake that only ever moves to the next cell on the cycle always has its own
+ * tail in front of it, so it cannot crash. That is slow, so while the snake is
+ * short the planner takes shortcuts: it may jump ahead along the cycle to any
+ * neighbor of the head, as long as the jump does not pass the spam it is
+ * heading for. The snake's body then still lies on the stretch of the cycle
+ * between its tail and its head, but the cells it skipped only become free
+ * again once the tail has passed them, and the tail stands still whenever the
+ * snake eats. A jump therefore leaves room before the tail for the snake to
+ * grow by its own length and by the spam on the board. That makes a crash
+ * unlikely rather than impossible: spam that keeps landing just ahead of the
+ * head can still use the room up.
+ * </p>
+ *
+ * <p>
+ * The cycle only depends on the size of the board, so it is built once per
+ * board size and shared by every game of that size. It runs east and west
+ * along the rows and returns north along the first column (or the same on its
+ * side if the number of rows is odd). If the interior has an odd number of rows
+ * and of columns, or is only one cell wide, no Hamiltonian cycle exists and
+ * hasCycle returns false; SpampedeData then falls back to SafePlanner, which
+ * can crash.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class HamiltonianPlanner {
+
+	/** The cycles built so far, by board size (rows in the high half). */
+	private static final ConcurrentHashMap<Long, Cycle> CYCLES = new ConcurrentHashMap<>();
+
+	/** Shortcuts are only taken while the snake fills less than this fraction. */
+	private static final double SHORTCUT_FILL_LIMIT = 0.5;
+
+	/** Cells always left free between the head and the tail by a shortcut. */
+	private static final int SHORTCUT_MARGIN = 2;
+
+	/** The board the snake moves on. */
+	private final Board board;
+
+	/** The cells of the snake, from tail to head. */
+	private final SnakeBody snake;
+
+	/** The cells currently containing spam. */
+	private final CellTypeIndex spamCells;
+
+	/** The cycle for this board (or null if there is none). */
+	private final Cycle cycle;
+
+	/** Scratch space for the neighbors of the head. */
+	private final int[] neighbors = new int[4];
+
+	/**
+	 * Creates a planner for the given snake on the given board.
+	 *
+	 * @param board     the board the snake moves on
+	 * @param snake     the cells of the snake, which the planner never changes
+	 * @param spamCells the cells containing spam, which the planner never changes
+	 */
+	public HamiltonianPlanner(Board board, SnakeBody snake, CellTypeIndex spamCells) {
+		this.board = board;
+		this.snake = snake;
+		this.spamCells = spamCells;
+		long key = ((long) board.getNumRows() << 32) | board.getNumColumns();
+		this.cycle = CYCLES.computeIfAbsent(key, k -> Cycle.build(board.getNumRows(), board.getNumColumns()));
+	}
+
+	/** Returns true if the board has a Hamiltonian cycle to follow. */
+	public boolean hasCycle() {
+		return this.cycle != null;
+	}
+
+	/**
+	 * Decides where the snake head should move next. The planner must have a
+	 * cycle.
+	 *
+	 * @return the index of the cell to move the head to
+	 */
+	public int getNextCell() {
+		int[] order = this.cycle.order;
+		int[] positions = this.cycle.positions;
+		int length = order.length;
+		int head = this.snake.getHead();
+		int headPosition = positions[head];
+		int next = order[headPosition + 1 == length ? 0 : headPosition + 1];
+
+		if (this.snake.size() >= length * SHORTCUT_FILL_LIMIT || this.spamCells.size() == 0) {
+			return next;
+		}
+
+		// how far ahead along the cycle we may jump
+		int tailDistance = this.distance(headPosition, positions[this.snake.getTail()]);
+		int spamDistance = length;
+		for (int i = 0; i < this.spamCells.size(); i++) {
+			spamDistance = Math.min(spamDistance, this.distance(headPosition, positions[this.spamCells.get(i)]));
+		}
+		// the tail stays put while the snake eats, so leave room for it to grow by
+		// its length and the spam on the board before the skipped cells free up
+		int room = tailDistance - this.snake.size() - this.spamCells.size() - SHORTCUT_MARGIN;
+		int limit = Math.min(spamDistance, room);
+
+		// the neighbor that jumps furthest without passing the limit
+		int best = next;
+		int bestDistance = 1;
+		this.board.getNeighbors(head, this.neighbors);
+		for (int neighbor : this.neighbors) {
+			if (this.board.isOpen(neighbor)) {
+				int distance = this.distance(headPosition, positions[neighbor]);
+				if (distance > bestDistance && distance <= limit) {
+					best = neighbor;
+					bestDistance = distance;
+				}
+			}
+		}
+		return best;
+	}
+
+	/** Returns the number of steps along the cycle from position from to to. */
+	private int distance(int from, int to) {
+		int distance = to - from;
+		return distance < 0 ? distance + this.cycle.order.length : distance;
+	}
+
+	/* ------------------ */
+	/* Building the cycle */
+	/* ------------------ */
+
+	/**
+	 * A Hamiltonian cycle through the interior of a board.
+	 */
+	private static final class Cycle {
+
+		/** The cells of the board, in the order the cycle visits them. */
+		final int[] order;
+
+		/** For every cell, its position in order (or -1 for walls). */
+		final int[] positions;
+
+		private Cycle(int[] order, int[] positions) {
+			this.order = order;
+			this.positions = positions;
+		}
+
+		/**
+		 * Builds the cycle for a board of the given size (walls included).
+		 *
+		 * @return the cycle, or null if the interior has none
+		 */
+		static Cycle build(int numRows, int numColumns) {
+			int rows = numRows - 2;
+			int columns = numColumns - 2;
+			if (rows < 2 || columns < 2 || (rows % 2 != 0 && columns % 2 != 0)) {
+				return null;
+			}
+
+			// with an odd number of rows, build the cycle on its side instead
+			boolean transposed = rows % 2 != 0;
+			int height = transposed ? columns : rows;
+			int width = transposed ? rows : columns;
+
+			int[] order = new int[rows * columns];
+			int count = 0;
+			for (int r = 0; r < height; r++) {
+				// even rows run east from column 1, odd rows run west back to it
+				// (the first row starts at column 0)
+				int first = r == 0 ? 0 : 1;
+				for (int i = first; i < width; i++) {
+					int c = r % 2 == 0 ? i : width - i;
+					order[count++] = transposed ? cellIndex(c, r, numColumns) : cellIndex(r, c, numColumns);
+				}
+			}
+			for (int r = height - 1; r >= 1; r--) {
+				// back north along column 0
+				order[count++] = transposed ? cellIndex(0, r, numColumns) : cellIndex(r, 0, numColumns);
+			}
+
+			if (transposed) {
+				// run the other way around, so the snake's start (east) follows it
+				for (int i = 1, j = order.length - 1; i < j; i++, j--) {
+					int swap = order[i];
+					order[i] = order[j];
+					order[j] = swap;
+				}
+			}
+
+			int[] positions = new int[numRows * numColumns];
+			Arrays.fill(positions, -1);
+			for (int i = 0; i < order.length; i++) {
+				positions[order[i]] = i;
+			}
+			return new Cycle(order, positions);
+		}
+
+		/** Returns the board index of the given interior row and column. */
+		private static int cellIndex(int interiorRow, int interiorColumn, int numColumns) {
+			return (interiorRow + 1) * numColumns + interiorColumn + 1;
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.gradescope.spampede;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of times in nanoseconds, with buckets of fixed relative width in
+ * the style of HdrHistogram.
+ *
+ * <p>
+ * Times below 64 ns each get their own bucket. Above that, every power of two
+ * is split into 32 equal buckets, so any time is known to within about 3%
+ * while the whole range of a long fits in fewer than 2,000 counters. Recording
+ * a time is a few shifts and an increment and never allocates, so it can be
+ * done every step of the game loop.
+ * </p>
+ *
+ * <p>
+ * A histogram is meant to be recorded on one thread (the game loop). Other
+ * threads, e.g. JMX clients, may read it at any time, but then may see the
+ * counts of a recording that is half done.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class LatencyHistogram implements LatencyHistogramMBean {
+
+	/** The number of buckets each power of two is split into, as a power of two. */
+	private static final int SUB_BUCKET_BITS = 5;
+
+	/** The number of buckets each power of two is split into. */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Times below this many nanoseconds each get their own bucket. */
+	private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+
+	/** The number of times recorded in each bucket. */
+	private final long[] counts = new long[bucketOf(Long.MAX_VALUE) + 1];
+
+	/** The number of times recorded. */
+	private long count = 0;
+
+	/** The sum of the times recorded. */
+	private long total = 0;
+
+	/** The longest time recorded. */
+	private long max = 0;
+
+	/* --------- */
+	/* Recording */
+	/* --------- */
+
+	/** Records a time in nanoseconds (negative times count as 0). */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		this.counts[bucketOf(value)]++;
+		this.count++;
+		this.total += value;
+		if (value > this.max) {
+			this.max = value;
+		}
+	}
+
+	/** Forgets every time recorded so far. */
+	@Override
+	public void reset() {
+		Arrays.fill(this.counts, 0);
+		this.count = 0;
+		this.total = 0;
+		this.max = 0;
+	}
+
+	/* ------------------ */
+	/* Reading the counts */
+	/* ------------------ */
+
+	@Override
+	public long getCount() {
+		return this.count;
+	}
+
+	@Override
+	public double getMeanNanos() {
+		return this.count == 0 ? 0.0 : (double) this.total / this.count;
+	}
+
+	@Override
+	public long getMaxNanos() {
+		return this.max;
+	}
+
+	@Override
+	public long getMedianNanos() {
+		return this.getValueAtPercentile(50.0);
+	}
+
+	@Override
+	public long get99thPercentileNanos() {
+		return this.getValueAtPercentile(99.0);
+	}
+
+	@Override
+	public long get999thPercentileNanos() {
+		return this.getValueAtPercentile(99.9);
+	}
+
+	/**
+	 * Returns a time that at least the given percentage of the recorded times do
+	 * not exceed: the top of the bucket the percentile falls in (but no more than
+	 * the longest time), or 0 if nothing has been recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long rank = (long) Math.ceil(Math.max(0.0, Math.min(100.0, percentile)) / 100.0 * this.count);
+		long seen = 0;
+		for (int bucket = 0; bucket < this.counts.length; bucket++) {
+			seen += this.counts[bucket];
+			if (seen >= Math.max(1, rank)) {
+				return Math.min(highestValueIn(bucket), this.max);
+			}
+		}
+		return this.max;
+	}
+
+	/* ------- */
+	/* Buckets */
+	/* ------- */
+
+	/** Returns the bucket of a non-negative time. */
+	private static int bucketOf(long value) {
+		if (value < LINEAR_BUCKETS) {
+			return (int) value;
+		}
+		// keep the highest SUB_BUCKET_BITS + 1 bits of the value
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	/** Returns the longest time that falls in the given bucket. */
+	private static long highestValueIn(int bucket) {
+		if (bucket < LINEAR_BUCKETS) {
+			return bucket;
+		}
+		int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+		long top = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((top + 1) << shift) - 1;
+	}
+
+}
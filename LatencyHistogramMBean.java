@@ -0,0 +1,32 @@
+package com.gradescope.spampede;
+
+/**
+ * The view of a LatencyHistogram offered over JMX, e.g. in JConsole. Each
+ * phase of the game loop timed by GameMetrics shows up as one of these.
+ *
+ * @author Isaac Chung with the help of professors
+ */
+public interface LatencyHistogramMBean {
+
+	/** Returns the number of times recorded. */
+	long getCount();
+
+	/** Returns the mean time recorded, in nanoseconds. */
+	double getMeanNanos();
+
+	/** Returns the median time recorded, in nanoseconds. */
+	long getMedianNanos();
+
+	/** Returns the 99th percentile of the times recorded, in nanoseconds. */
+	long get99thPercentileNanos();
+
+	/** Returns the 99.9th percentile of the times recorded, in nanoseconds. */
+	long get999thPercentileNanos();
+
+	/** Returns the longest time recorded, in nanoseconds. */
+	long getMaxNanos();
+
+	/** Forgets every time recorded so far. */
+	void reset();
+
+}
@@ -0,0 +1,165 @@
+package com.gradescope.spampede;
+
+import java.util.Arrays;
+
+/**
+ * The path to spam planned by the AI, kept from one move to the next so the
+ * board is only searched again when the plan goes stale.
+ *
+ * <p>
+ * After a search, the whole path is copied out of the search's parent chain.
+ * Each move then takes the next cell of the path, and the cache follows the
+ * head along it as a BoardListener. The plan is dropped (and the caller
+ * searches again) when the target spam disappears without being eaten, when a
+ * cell still ahead on the path stops being open, when new spam appears that
+ * might be closer than the rest of the path, or when the head leaves the path
+ * (e.g. because the snake was reversed).
+ * </p>
+ *
+ * <p>
+ * New spam counts as closer if its Manhattan distance from the head is less
+ * than the number of steps left, which never misses spam that is really closer
+ * but may replan for spam behind a wall. Cells freed by the tail are not
+ * watched, so a cached path can end up longer than a fresh search would find;
+ * it still leads to spam that was closest when it was planned.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class PathCache implements BoardListener {
+
+	/** The room for cells of the path before any plan is made. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The board the snake moves on. */
+	private final Board board;
+
+	/**
+	 * The cells of the path, from the head at planning time (0) to the spam. It
+	 * starts small and grows to fit the longest path planned so far.
+	 */
+	private int[] path = new int[INITIAL_CAPACITY];
+
+	/** The slot of the last cell of the path (the spam), or -1 if there is no plan. */
+	private int length = -1;
+
+	/** The slot of the cell the head is on. */
+	private int position = 0;
+
+	/** The number of searches made to plan a path. */
+	private long plans = 0;
+
+	/** The number of moves taken from a cached path without searching. */
+	private long reuses = 0;
+
+	/**
+	 * Creates an empty cache for the given board. The caller should register the
+	 * cache as a listener of the board so it can tell when the plan goes stale.
+	 *
+	 * @param board the board the snake moves on
+	 */
+	public PathCache(Board board) {
+		this.board = board;
+	}
+
+	/* -------------------- */
+	/* Planning and reusing */
+	/* -------------------- */
+
+	/**
+	 * Returns the next cell of the planned path, if the plan is still good and
+	 * the head is where the plan expects it.
+	 *
+	 * @param head the cell containing the snake head
+	 * @return the index of the cell to move the head to, or -1 if the caller
+	 *         should search again
+	 */
+	public int getNextCell(int head) {
+		if (this.length < 0 || this.position >= this.length || this.path[this.position] != head) {
+			this.length = -1;
+			return -1;
+		}
+		this.reuses++;
+		return this.path[this.position + 1];
+	}
+
+	/**
+	 * Copies the path to target out of the last search of the given engine, which
+	 * must have reached it from head.
+	 *
+	 * @param search the engine that found target
+	 * @param head   the cell the search started from
+	 * @param target the spam the search found
+	 * @return the first step of the path
+	 */
+	public int plan(BreadthFirstSearch search, int head, int target) {
+		this.plans++;
+		int pathLength = search.getPathLength(target);
+		if (pathLength >= this.path.length) {
+			this.path = Arrays.copyOf(this.path, Math.max(pathLength + 1, 2 * this.path.length));
+		}
+		int cell = target;
+		for (int slot = pathLength; slot >= 0; slot--) {
+			this.path[slot] = cell;
+			cell = search.getParent(cell);
+		}
+		this.position = 0;
+		this.length = pathLength > 0 ? pathLength : -1;
+		return pathLength > 0 ? this.path[1] : head;
+	}
+
+	/** Returns the number of searches made to plan a path. */
+	public long getPlans() {
+		return this.plans;
+	}
+
+	/** Returns the number of moves taken from a cached path without searching. */
+	public long getReuses() {
+		return this.reuses;
+	}
+
+	/* ------------------------------- */
+	/* Noticing when the plan is stale */
+	/* ------------------------------- */
+
+	@Override
+	public void cellChanged(int index, CellType oldType, CellType newType) {
+		if (this.length < 0) {
+			return;
+		}
+
+		if (newType == CellType.HEAD) {
+			// the head either takes the next step of the path or leaves it
+			if (this.position < this.length && this.path[this.position + 1] == index) {
+				this.position++;
+			} else {
+				this.length = -1;
+			}
+		} else if (newType == CellType.SPAM) {
+			int head = this.path[this.position];
+			int distance = Math.abs(this.board.rowOf(index) - this.board.rowOf(head))
+					+ Math.abs(this.board.columnOf(index) - this.board.columnOf(head));
+			if (distance < this.length - this.position) {
+				this.length = -1; // might be closer than the spam we are heading for
+			}
+		} else if (newType == CellType.OPEN) {
+			if (this.position < this.length && this.path[this.length] == index) {
+				this.length = -1; // the target spam is gone
+			}
+		} else if (index != this.path[this.position] && this.isAhead(index)) {
+			// (the head turning into body, as on every move, is never ahead)
+			this.length = -1; // blocked
+		}
+	}
+
+	/** Returns true if the cell is on the path ahead of the head. */
+	private boolean isAhead(int index) {
+		for (int slot = this.position + 1; slot <= this.length; slot++) {
+			if (this.path[slot] == index) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -5,7 +5,8 @@ import java.awt.Font;
 
 /**
  * Represents settings for Spampede. Constants are stored in this file to avoid
- * "magic strings" and "magic numbers".
+ * "magic strings" and "magic numbers". The timing and sizing constants are only
+ * defaults, which a GameConfig can override when a game starts.
  * 
  * @author Isaac Chung with the help of professors
  */
@@ -17,6 +18,9 @@ final class Preferences {
 	public static final int REFRESH_RATE = 2;
 	public static final int SPAM_ADD_RATE = 25;
 	public static final int SLEEP_TIME = 30; // milliseconds between updates
+	public static final int FRAME_TIME = 30; // milliseconds between rendered frames
+	public static final int MAX_FRAME_SKIP = 5; // most updates in a row before a frame
+	public static final int METRICS_PERIOD = 1000; // milliseconds between lines of the metrics file
 
 	/* ------ */
 	/* Sizing */
@@ -24,8 +28,9 @@ final class Preferences {
 	public static final int NUM_CELLS_WIDE = 50;
 	public static final int NUM_CELLS_TALL = 30;
 	public static final int CELL_SIZE = 10;
-	private static final int SPACE_FOR_BUTTONS = 190;
+	public static final int SPACE_FOR_BUTTONS = 190;
 	public static final int GAMEBOARDHEIGHT = NUM_CELLS_TALL * CELL_SIZE + SPACE_FOR_BUTTONS;
+	public static final boolean RASTER_RENDERING = false; // write cells straight into the image's pixels
 
 	/* ------ */
 	/* Colors */
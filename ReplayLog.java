@@ -0,0 +1,314 @@
+package com.gradescope.spampede;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Everything needed to play a game again exactly: its settings, the seed of its
+ * source of randomness and the step at which each command was applied, plus
+ * the state it ended in so a replay can be checked.
+ *
+ * <p>
+ * Spam is placed only by the seeded SplittableRandom and the AIs make no random
+ * choices, so replaying the same commands at the same steps always gives the
+ * same game. In the binary form, each command takes a byte for its code and a
+ * variable-length number for the steps since the previous command, so a log is
+ * a few bytes per key press:
+ * </p>
+ *
+ * <pre>
+ * int magic "SPRL", short version,
+ * int rows, int columns, int refreshRate, int spamAddRate, long seed,
+ * varint count, count * (varint stepsSincePrevious, byte command),
+ * byte finished, [varint cycles, varint moves, varint spamEaten, long boardHash]
+ * </pre>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class ReplayLog {
+
+	/** The first four bytes of every replay log: "SPRL". */
+	private static final int MAGIC = 0x5350524C;
+
+	/** The version of the binary form written by this class. */
+	private static final short VERSION = 1;
+
+	/** The size and speed of the game. */
+	private final GameConfig config;
+
+	/** The seed of the game's source of randomness. */
+	private final long seed;
+
+	/** The step at which each command was applied, in order. */
+	private int[] cycles = new int[16];
+
+	/** The code of each command. */
+	private byte[] commands = new byte[16];
+
+	/** The number of commands recorded so far. */
+	private int numCommands = 0;
+
+	/** Whether the end of the game has been recorded. */
+	private boolean finished = false;
+
+	/** The number of steps taken by the end of the game. */
+	private int finalCycles;
+
+	/** The number of moves made by the end of the game. */
+	private int finalMoves;
+
+	/** The number of pieces of spam eaten by the end of the game. */
+	private int finalSpamEaten;
+
+	/** The hash of the board at the end of the game (see Board.contentHash). */
+	private long finalBoardHash;
+
+	/**
+	 * Creates an empty log for a game with the given settings and seed.
+	 *
+	 * @param config the size and speed of the game
+	 * @param seed   the seed of the game's SplittableRandom
+	 */
+	public ReplayLog(GameConfig config, long seed) {
+		this.config = config;
+		this.seed = seed;
+	}
+
+	/* --------- */
+	/* Recording */
+	/* --------- */
+
+	/**
+	 * Records that command was applied at the start of the given step, which must
+	 * not come before the step of the previous command.
+	 */
+	public void record(int cycle, GameCommand command) {
+		if (this.numCommands == this.cycles.length) {
+			this.cycles = Arrays.copyOf(this.cycles, 2 * this.numCommands);
+			this.commands = Arrays.copyOf(this.commands, 2 * this.numCommands);
+		}
+		this.cycles[this.numCommands] = cycle;
+		this.commands[this.numCommands] = (byte) command.ordinal();
+		this.numCommands++;
+	}
+
+	/**
+	 * Records the state the game run by engine is in now as its end, which a
+	 * replay has to reach.
+	 */
+	public void finish(GameEngine engine) {
+		this.finished = true;
+		this.finalCycles = engine.getCycleNum();
+		this.finalMoves = engine.getNumMoves();
+		this.finalSpamEaten = engine.getNumSpamEaten();
+		this.finalBoardHash = engine.getData().getBoard().contentHash();
+	}
+
+	/* --------------- */
+	/* Reading the log */
+	/* --------------- */
+
+	/** Returns the size and speed of the game. */
+	public GameConfig getConfig() {
+		return this.config;
+	}
+
+	/** Returns the seed of the game's source of randomness. */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/** Returns the number of commands recorded. */
+	public int getNumCommands() {
+		return this.numCommands;
+	}
+
+	/** Returns the step at which the i-th command was applied. */
+	public int getCycle(int i) {
+		return this.cycles[i];
+	}
+
+	/** Returns the i-th command. */
+	public GameCommand getCommand(int i) {
+		return GameCommand.fromCode(this.commands[i]);
+	}
+
+	/** Returns true if the end of the game has been recorded. */
+	public boolean isFinished() {
+		return this.finished;
+	}
+
+	/** Returns the number of steps taken by the end of the game. */
+	public int getFinalCycles() {
+		return this.finalCycles;
+	}
+
+	/** Returns the number of moves made by the end of the game. */
+	public int getFinalMoves() {
+		return this.finalMoves;
+	}
+
+	/** Returns the number of pieces of spam eaten by the end of the game. */
+	public int getFinalSpamEaten() {
+		return this.finalSpamEaten;
+	}
+
+	/** Returns the hash of the board at the end of the game. */
+	public long getFinalBoardHash() {
+		return this.finalBoardHash;
+	}
+
+	/**
+	 * Returns true if the game run by engine is in the state this log ended in.
+	 */
+	public boolean matches(GameEngine engine) {
+		return this.finished && engine.getCycleNum() == this.finalCycles && engine.getNumMoves() == this.finalMoves
+				&& engine.getNumSpamEaten() == this.finalSpamEaten
+				&& engine.getData().getBoard().contentHash() == this.finalBoardHash;
+	}
+
+	/* --------------- */
+	/* The binary form */
+	/* --------------- */
+
+	/**
+	 * Writes this log in its binary form.
+	 *
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeTo(OutputStream stream) throws IOException {
+		DataOutputStream out = new DataOutputStream(stream);
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+		out.writeInt(this.config.getNumRows());
+		out.writeInt(this.config.getNumColumns());
+		out.writeInt(this.config.getRefreshRate());
+		out.writeInt(this.config.getSpamAddRate());
+		out.writeLong(this.seed);
+
+		writeVarint(out, this.numCommands);
+		int previous = 0;
+		for (int i = 0; i < this.numCommands; i++) {
+			writeVarint(out, this.cycles[i] - previous);
+			out.writeByte(this.commands[i]);
+			previous = this.cycles[i];
+		}
+
+		out.writeBoolean(this.finished);
+		if (this.finished) {
+			writeVarint(out, this.finalCycles);
+			writeVarint(out, this.finalMoves);
+			writeVarint(out, this.finalSpamEaten);
+			out.writeLong(this.finalBoardHash);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Reads a log in the binary form written by writeTo.
+	 *
+	 * @throws IOException if the stream cannot be read or does not hold a replay
+	 *                     log
+	 */
+	public static ReplayLog readFrom(InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(stream);
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a Spampede replay log");
+		}
+		short version = in.readShort();
+		if (version != VERSION) {
+			throw new IOException("Unsupported replay log version: " + version);
+		}
+		Properties settings = new Properties();
+		settings.setProperty(GameConfig.BOARD_HEIGHT, Integer.toString(in.readInt()));
+		settings.setProperty(GameConfig.BOARD_WIDTH, Integer.toString(in.readInt()));
+		settings.setProperty(GameConfig.REFRESH_RATE, Integer.toString(in.readInt()));
+		settings.setProperty(GameConfig.SPAM_ADD_RATE, Integer.toString(in.readInt()));
+		ReplayLog log;
+		try {
+			log = new ReplayLog(GameConfig.fromProperties(settings), in.readLong());
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Bad settings in replay log", e);
+		}
+
+		int count = readVarint(in);
+		int cycle = 0;
+		for (int i = 0; i < count; i++) {
+			cycle += readVarint(in);
+			try {
+				log.record(cycle, GameCommand.fromCode(in.readUnsignedByte()));
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Bad command in replay log", e);
+			}
+		}
+
+		if (in.readBoolean()) {
+			log.finished = true;
+			log.finalCycles = readVarint(in);
+			log.finalMoves = readVarint(in);
+			log.finalSpamEaten = readVarint(in);
+			log.finalBoardHash = in.readLong();
+		}
+		return log;
+	}
+
+	/**
+	 * Writes this log to the given file.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path file) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+			this.writeTo(out);
+		}
+	}
+
+	/**
+	 * Reads a log from the given file.
+	 *
+	 * @throws IOException if the file cannot be read or does not hold a replay log
+	 */
+	public static ReplayLog load(Path file) throws IOException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+			return readFrom(in);
+		}
+	}
+
+	/**
+	 * Writes a non-negative number in 7-bit groups, lowest first, with the top
+	 * bit of each byte set if more follow.
+	 */
+	private static void writeVarint(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/** Reads a number written by writeVarint. */
+	private static int readVarint(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				if (value < 0) {
+					break;
+				}
+				return value;
+			}
+		}
+		throw new IOException("Bad number in replay log");
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.gradescope.spampede;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Checks ReplayLog: that the numbers of its binary form come back the same
+ * however many bytes they take, that corrupt or cut-off logs are rejected
+ * with an IOException, and that a recorded game replays to the same end.
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.ReplayLogCheck
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class ReplayLogCheck {
+
+	/** Steps between commands that take 1 to 5 bytes each. */
+	private static final int[] GAPS = { 0, 1, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456 };
+
+	/** The number of bytes before the number of commands. */
+	private static final int HEADER_SIZE = 30;
+
+	private ReplayLogCheck() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		checkVarintRoundTrip();
+		checkRecordedGame();
+		checkCorruptLogs();
+		System.out.println("ReplayLog: all checks passed");
+	}
+
+	/** Commands far apart, whose steps take every length of varint, round-trip. */
+	private static void checkVarintRoundTrip() throws IOException {
+		ReplayLog log = new ReplayLog(GameConfig.DEFAULT, -1L);
+		GameCommand[] commands = GameCommand.values();
+		int cycle = 0;
+		for (int i = 0; i < GAPS.length; i++) {
+			cycle += GAPS[i];
+			log.record(cycle, commands[i % commands.length]);
+		}
+		ReplayLog copy = ReplayLog.readFrom(new ByteArrayInputStream(toBytes(log)));
+		Checks.check(copy.getSeed() == -1L && !copy.isFinished(), "the seed and the missing end come back");
+		Checks.check(copy.getNumCommands() == GAPS.length, "every command comes back");
+		for (int i = 0; i < GAPS.length; i++) {
+			Checks.check(copy.getCycle(i) == log.getCycle(i), "the step of command " + i + " comes back");
+			Checks.check(copy.getCommand(i) == log.getCommand(i), "command " + i + " comes back");
+		}
+	}
+
+	/**
+	 * A game recorded with commands along the way reads back the same, and
+	 * replaying it ends on the board it was recorded with.
+	 */
+	private static void checkRecordedGame() throws IOException {
+		GameEngine engine = GameEngine.newGame(GameConfig.DEFAULT, 42L);
+		engine.submit(GameCommand.AI_SAFE_MODE);
+		while (!engine.isGameOver() && engine.getCycleNum() < 20000) {
+			engine.step();
+			if (engine.getCycleNum() % 1000 == 0) {
+				engine.submit(GameCommand.REVERSE);
+			}
+		}
+		ReplayLog log = engine.getReplayLog();
+		log.finish(engine);
+		Checks.check(log.matches(engine), "a finished log matches the game it recorded");
+
+		ReplayLog copy = ReplayLog.readFrom(new ByteArrayInputStream(toBytes(log)));
+		Checks.check(copy.isFinished() && copy.getFinalCycles() == log.getFinalCycles()
+				&& copy.getFinalMoves() == log.getFinalMoves() && copy.getFinalSpamEaten() == log.getFinalSpamEaten()
+				&& copy.getFinalBoardHash() == log.getFinalBoardHash(), "the end of the game comes back");
+		Checks.check(copy.getConfig().getNumRows() == log.getConfig().getNumRows()
+				&& copy.getConfig().getNumColumns() == log.getConfig().getNumColumns(), "the board size comes back");
+		Checks.check(copy.getNumCommands() == log.getNumCommands(), "every command comes back");
+		Checks.check(copy.matches(ReplayRunner.replay(copy)), "the game replays to the same end");
+	}
+
+	/** A log that is cut short or has bad bytes in it is rejected. */
+	private static void checkCorruptLogs() throws IOException {
+		ReplayLog log = ReplayRunner.record(GameConfig.DEFAULT, 7L, SnakeMode.AI_MODE, 5000);
+		byte[] bytes = toBytes(log);
+
+		for (int length = 0; length < bytes.length; length++) {
+			byte[] cut = Arrays.copyOf(bytes, length);
+			Checks.checkThrows(IOException.class, () -> ReplayLog.readFrom(new ByteArrayInputStream(cut)),
+					"a log cut off after " + length + " bytes");
+		}
+
+		byte[] badMagic = bytes.clone();
+		badMagic[0] ^= 1;
+		Checks.checkThrows(IOException.class, () -> ReplayLog.readFrom(new ByteArrayInputStream(badMagic)),
+				"a log with the wrong magic number");
+
+		// the number of commands comes right after the header
+		byte[] longVarint = Arrays.copyOf(bytes, HEADER_SIZE + 6);
+		Arrays.fill(longVarint, HEADER_SIZE, longVarint.length, (byte) 0xFF);
+		Checks.checkThrows(IOException.class, () -> ReplayLog.readFrom(new ByteArrayInputStream(longVarint)),
+				"a log with a number longer than 5 bytes");
+
+		byte[] negativeVarint = Arrays.copyOf(bytes, HEADER_SIZE + 5);
+		Arrays.fill(negativeVarint, HEADER_SIZE, HEADER_SIZE + 4, (byte) 0xFF);
+		negativeVarint[HEADER_SIZE + 4] = 0x0F;
+		Checks.checkThrows(IOException.class, () -> ReplayLog.readFrom(new ByteArrayInputStream(negativeVarint)),
+				"a log with a number that overflows an int");
+
+		ReplayLog oneCommand = new ReplayLog(GameConfig.DEFAULT, 1L);
+		oneCommand.record(0, GameCommand.REVERSE);
+		byte[] badCommand = toBytes(oneCommand);
+		badCommand[HEADER_SIZE + 2] = (byte) GameCommand.values().length; // count, step, then the command
+		Checks.checkThrows(IOException.class, () -> ReplayLog.readFrom(new ByteArrayInputStream(badCommand)),
+				"a log with an unknown command");
+	}
+
+	/** Returns the binary form of log. */
+	private static byte[] toBytes(ReplayLog log) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		log.writeTo(out);
+		return out.toByteArray();
+	}
+
+}
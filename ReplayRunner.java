@@ -0,0 +1,124 @@
+package com.gradescope.spampede;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Plays recorded games again as fast as possible, without any graphics, and
+ * checks that each one ends exactly as it did when it was recorded.
+ *
+ * <p>
+ * Replaying the same log on two versions of the code shows whether a change
+ * made the AI slower (the time per step) or changed what it does (the final
+ * board no longer matches), which is what bisecting needs. It can also record
+ * an AI game from the command line, so a slow or buggy game found by
+ * BatchSimulator can be saved and shared.
+ * </p>
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.ReplayRunner file... to replay logs, or
+ * java com.gradescope.spampede.ReplayRunner record file [mode] [seed]
+ * [maxCycles] [--key=value...] to record the game BatchSimulator would play
+ * with that seed.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class ReplayRunner {
+
+	private ReplayRunner() {
+	}
+
+	/* --------- */
+	/* Replaying */
+	/* --------- */
+
+	/**
+	 * Plays the game in log again, applying each command at the step it was
+	 * recorded at, until the step the log ended at (or the snake crashes).
+	 *
+	 * @return the engine that ran the replayed game, which log.matches can check
+	 */
+	public static GameEngine replay(ReplayLog log) {
+		GameEngine engine = GameEngine.newGame(log.getConfig(), new SplittableRandom(log.getSeed()));
+		int numCommands = log.getNumCommands();
+		int next = 0;
+		int end = log.getFinalCycles();
+		if (!log.isFinished()) {
+			// without a recorded end, play until the last command has been applied
+			end = numCommands == 0 ? 0 : log.getCycle(numCommands - 1) + 1;
+		}
+		while (engine.getCycleNum() < end && !engine.isGameOver()) {
+			while (next < numCommands && log.getCycle(next) == engine.getCycleNum()) {
+				engine.submit(log.getCommand(next++));
+			}
+			engine.step();
+		}
+		return engine;
+	}
+
+	/**
+	 * Plays an AI game in the given mode, the same way BatchSimulator does, and
+	 * records it.
+	 *
+	 * @return the finished log
+	 */
+	public static ReplayLog record(GameConfig config, long seed, SnakeMode mode, int maxCycles) {
+		GameEngine engine = GameEngine.newGame(config, seed);
+		engine.submit(GameCommand.forMode(mode));
+		while (!engine.isGameOver() && engine.getCycleNum() < maxCycles) {
+			engine.step();
+		}
+		ReplayLog log = engine.getReplayLog();
+		log.finish(engine);
+		return log;
+	}
+
+	/* ----------- */
+	/* Entry point */
+	/* ----------- */
+
+	/** Records a game, or replays logs and reports whether they match. */
+	public static void main(String[] args) throws IOException {
+		String[] positional = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+		if (positional.length == 0) {
+			System.err.println("Usage: ReplayRunner file... | ReplayRunner record file [mode] [seed] [maxCycles]");
+			System.exit(2);
+		}
+
+		if (positional[0].equals("record") && positional.length > 1) {
+			GameConfig config = GameConfig.fromArgs(args);
+			Path file = Paths.get(positional[1]);
+			SnakeMode mode = positional.length > 2 ? SnakeMode.valueOf(positional[2]) : SnakeMode.AI_MODE;
+			long seed = positional.length > 3 ? Long.parseLong(positional[3]) : 0L;
+			int maxCycles = positional.length > 4 ? Integer.parseInt(positional[4])
+					: BatchSimulator.DEFAULT_MAX_CYCLES;
+			ReplayLog log = record(config, seed, mode, maxCycles);
+			log.save(file);
+			System.out.printf("%s: recorded %s, seed %d, %d cycles, score %d%n", file, mode, seed,
+					log.getFinalCycles(), log.getFinalSpamEaten());
+			return;
+		}
+
+		boolean allMatch = true;
+		for (String name : positional) {
+			ReplayLog log = ReplayLog.load(Paths.get(name));
+			long startTime = System.nanoTime();
+			GameEngine engine = replay(log);
+			long elapsed = System.nanoTime() - startTime;
+			boolean matches = log.matches(engine);
+			allMatch &= matches;
+			System.out.printf("%s: %s, %d cycles, score %d, board %016x, %.3f s (%.0f ns/cycle)%n", name,
+					matches ? "OK" : "MISMATCH", engine.getCycleNum(), engine.getNumSpamEaten(),
+					engine.getData().getBoard().contentHash(), elapsed / 1e9,
+					(double) elapsed / Math.max(1, engine.getCycleNum()));
+		}
+		if (!allMatch) {
+			System.exit(1);
+		}
+	}
+
+}
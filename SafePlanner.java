@@ -0,0 +1,171 @@
+package com.gradescope.spampede;
+
+/**
+ * An AI that heads for the closest spam only when that is safe, and otherwise
+ * follows its own tail.
+ *
+ * <p>
+ * Before committing to the shortest path to spam, the planner plays the whole
+ * path out on a scratch copy of the board: the snake grows by one cell at the
+ * spam and its tail moves up as it goes. The path is taken only if the snake
+ * could still reach its tail from the spam afterwards, since a snake that can
+ * reach its tail can always keep moving. If it could not, the planner instead
+ * picks the neighboring cell after which the tail is still reachable, and
+ * furthest away, which makes the snake trail its tail and wait for a better
+ * opening.
+ * </p>
+ *
+ * <p>
+ * The scratch board, the search engine running on it and the path buffer are
+ * allocated once, so planning a move does not allocate.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class SafePlanner {
+
+	/** The board the snake moves on. */
+	private final Board board;
+
+	/** The cells of the snake, from tail to head (or null, see getNextCell). */
+	private final SnakeBody snake;
+
+	/** The board on which moves are tried out before they are made. */
+	private final Board scratch;
+
+	/** The search engine running on the scratch board. */
+	private final BreadthFirstSearch scratchSearch;
+
+	/** The path being tried out, from the first step (0) to its end. */
+	private final int[] path;
+
+	/** Scratch space for the neighbors of the head. */
+	private final int[] neighbors = new int[4];
+
+	/**
+	 * Creates a planner for the given snake on the given board.
+	 *
+	 * @param board the board the snake moves on
+	 * @param snake the cells of the snake, which the planner reads but never
+	 *              changes (or null if every move is planned with
+	 *              getNextCell(SnakeBody, BreadthFirstSearch))
+	 */
+	public SafePlanner(Board board, SnakeBody snake) {
+		this.board = board;
+		this.snake = snake;
+		this.scratch = new Board(board.getNumRows(), board.getNumColumns());
+		this.scratchSearch = new BreadthFirstSearch(this.scratch);
+		this.path = new int[board.size()];
+	}
+
+	/**
+	 * Decides where the snake head should move next.
+	 *
+	 * @return the index of the cell to move the head to, or -1 if every move
+	 *         would trap the snake (so the caller may as well move anywhere)
+	 */
+	public int getNextCell() {
+		return this.getNextCell(this.snake, this.board.getSearch());
+	}
+
+	/**
+	 * Same as getNextCell, but for the given snake, searching the board with the
+	 * given engine. Several snakes sharing a board can then be planned for at the
+	 * same time, by planners that each have their own engine, as long as the
+	 * board does not change meanwhile.
+	 */
+	int getNextCell(SnakeBody snake, BreadthFirstSearch search) {
+		int head = snake.getHead();
+
+		// the shortest path to spam, if it leaves a way back to the tail
+		int spam = search.searchForSpam(head);
+		int firstStep = -1;
+		if (spam >= 0) {
+			int length = search.getPathLength(spam);
+			int cell = spam;
+			for (int i = length - 1; i >= 0; i--) {
+				this.path[i] = cell;
+				cell = search.getParent(cell);
+			}
+			firstStep = this.path[0];
+			if (this.tryPath(snake, length) >= 0) {
+				return firstStep;
+			}
+		}
+
+		// otherwise, the safe neighbor that is furthest from the tail
+		int best = -1;
+		int bestDistance = -1;
+		this.board.getNeighbors(head, this.neighbors);
+		for (int neighbor : this.neighbors) {
+			if (this.board.isOpen(neighbor)) {
+				this.path[0] = neighbor;
+				int distance = this.tryPath(snake, 1);
+				if (distance > bestDistance) {
+					best = neighbor;
+					bestDistance = distance;
+				}
+			}
+		}
+		if (best >= 0) {
+			return best;
+		}
+
+		// nothing is safe: at least go for the spam
+		return firstStep;
+	}
+
+	/**
+	 * Returns the number of cells expanded by the searches of the scratch board
+	 * so far (the searches of the real board are counted by its own engine).
+	 */
+	public long getNodesExpanded() {
+		return this.scratchSearch.getNodesExpanded();
+	}
+
+	/**
+	 * Plays out moving the head of snake along the first length cells of path on
+	 * the scratch board, and checks whether the tail can then still be reached.
+	 *
+	 * @return the length of the shortest path from the new head to the new tail,
+	 *         or -1 if there is none
+	 */
+	private int tryPath(SnakeBody snake, int length) {
+		Board sim = this.scratch;
+		sim.copyFrom(this.board);
+
+		// the snake, followed by the path, is the sequence of cells the snake
+		// will have covered; the new snake is the end of that sequence
+		int size = snake.size();
+		boolean grows = this.board.isSpam(this.path[length - 1]);
+		int removed = grows ? length - 1 : length;
+		int newHead = this.path[length - 1];
+
+		for (int i = 0; i < removed; i++) {
+			sim.becomeOpen(this.getCovered(snake, i));
+		}
+		for (int i = 0; i < length; i++) {
+			if (size + i >= removed) {
+				sim.becomeBody(this.path[i]);
+			}
+		}
+		sim.becomeHead(newHead);
+
+		int newTail = this.getCovered(snake, removed);
+		if (newTail == newHead || !this.scratchSearch.searchForCell(newHead, newTail)) {
+			return -1;
+		}
+		return this.scratchSearch.getPathLength(newTail);
+	}
+
+	/**
+	 * Returns the i-th cell covered by snake and then the path, i.e. a cell of
+	 * the snake (from the tail) for i below its size and a cell of the path after
+	 * that.
+	 */
+	private int getCovered(SnakeBody snake, int i) {
+		int size = snake.size();
+		return i < size ? snake.get(i) : this.path[i - size];
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.gradescope.spampede;
+
+/**
+ * The cells of a snake, from tail to head, stored as board indices in an
+ * array-backed ring buffer.
+ * 
+ * <p>
+ * The buffer is allocated once with room for every cell of the board, so
+ * growing the snake never allocates. Instead of moving any cells, reverse just
+ * flips which end of the buffer is the head, so the head, the tail, the neck
+ * and reversing are all O(1).
+ * </p>
+ * 
+ * @author Isaac Chung with the help of professors
+ */
+final class SnakeBody {
+
+	/** The ring buffer of cell indices. */
+	private final int[] cells;
+
+	/** The slot of the first cell in the buffer. */
+	private int first = 0;
+
+	/** The number of cells in the snake. */
+	private int size = 0;
+
+	/**
+	 * Whether the snake runs backwards through the buffer. If false, the tail is
+	 * the first cell in the buffer and the head is the last; if true, it is the
+	 * other way around.
+	 */
+	private boolean reversed = false;
+
+	/**
+	 * Creates an empty snake.
+	 * 
+	 * @param capacity the longest the snake can get, e.g. the size of the board
+	 */
+	public SnakeBody(int capacity) {
+		this.cells = new int[capacity];
+	}
+
+	/* ------------------------ */
+	/* Access the snake's cells */
+	/* ------------------------ */
+
+	/** Returns the number of cells in the snake. */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the i-th cell of the snake, counting from the tail (0) to the head
+	 * (size-1).
+	 */
+	public int get(int i) {
+		int offset = this.reversed ? this.size - 1 - i : i;
+		return this.cells[this.slot(offset)];
+	}
+
+	/** Returns the cell containing the snake's head. */
+	public int getHead() {
+		return this.get(this.size - 1);
+	}
+
+	/** Returns the cell containing the snake's tail. */
+	public int getTail() {
+		return this.get(0);
+	}
+
+	/** Returns the cell of the snake body adjacent to the head. */
+	public int getNeck() {
+		return this.get(this.size - 2);
+	}
+
+	/* ---------------- */
+	/* Change the snake */
+	/* ---------------- */
+
+	/** Adds a new head to the snake. */
+	public void addHead(int cell) {
+		if (this.reversed) {
+			this.first = this.slot(this.cells.length - 1);
+			this.cells[this.first] = cell;
+		} else {
+			this.cells[this.slot(this.size)] = cell;
+		}
+		this.size++;
+	}
+
+	/**
+	 * Removes the tail of the snake.
+	 * 
+	 * @return the cell that contained the tail
+	 */
+	public int removeTail() {
+		int tail = this.getTail();
+		if (!this.reversed) {
+			this.first = this.slot(1);
+		}
+		this.size--;
+		return tail;
+	}
+
+	/** Swaps the head and the tail of the snake, in O(1) time. */
+	public void reverse() {
+		this.reversed = !this.reversed;
+	}
+
+	/** Removes every cell from the snake. */
+	public void clear() {
+		this.first = 0;
+		this.size = 0;
+		this.reversed = false;
+	}
+
+	/**
+	 * Makes this snake a copy of other, which must fit in this snake's buffer.
+	 */
+	public void copyFrom(SnakeBody other) {
+		this.clear();
+		for (int i = 0; i < other.size; i++) {
+			this.addHead(other.get(i));
+		}
+	}
+
+	/** Returns the buffer slot that is offset slots after the first slot. */
+	private int slot(int offset) {
+		int slot = this.first + offset;
+		return slot >= this.cells.length ? slot - this.cells.length : slot;
+	}
+
+}
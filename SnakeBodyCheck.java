@@ -0,0 +1,108 @@
+package com.gradescope.spampede;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks SnakeBody: that growing, shrinking and reversing a snake in every
+ * order, with its ring buffer wrapping around many times, leaves the same cells
+ * as a plain list from tail to head that is reversed by copying.
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.SnakeBodyCheck
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class SnakeBodyCheck {
+
+	/** The number of random snakes. */
+	private static final int NUM_SNAKES = 2000;
+
+	/** The number of random changes made to each snake. */
+	private static final int NUM_CHANGES = 500;
+
+	private SnakeBodyCheck() {
+	}
+
+	public static void main(String[] args) {
+		checkRandomChanges();
+		checkCopy();
+		System.out.println("SnakeBody: all checks passed");
+	}
+
+	/**
+	 * Snakes with small buffers, so that the head and the tail wrap around often
+	 * in both directions.
+	 */
+	private static void checkRandomChanges() {
+		SplittableRandom random = new SplittableRandom(1);
+		for (int n = 0; n < NUM_SNAKES; n++) {
+			int capacity = 1 + random.nextInt(12);
+			SnakeBody snake = new SnakeBody(capacity);
+			List<Integer> model = new ArrayList<>();
+			int nextCell = 0;
+			for (int i = 0; i < NUM_CHANGES; i++) {
+				String what = "snake " + n + " after change " + i;
+				int change = random.nextInt(10);
+				if (change < 5 && model.size() < capacity) {
+					snake.addHead(nextCell);
+					model.add(nextCell);
+					nextCell++;
+				} else if (change < 8 && !model.isEmpty()) {
+					Checks.check(snake.removeTail() == model.remove(0), what + " removes its tail");
+				} else if (change < 9) {
+					snake.reverse();
+					Collections.reverse(model);
+				} else if (random.nextInt(20) == 0) {
+					snake.clear();
+					model.clear();
+				}
+				checkSame(snake, model, what);
+			}
+		}
+	}
+
+	/** A copy of a reversed, wrapped snake runs the same way as the original. */
+	private static void checkCopy() {
+		SnakeBody snake = new SnakeBody(8);
+		List<Integer> model = new ArrayList<>();
+		for (int cell = 0; cell < 13; cell++) {
+			snake.addHead(cell);
+			model.add(cell);
+			if (model.size() > 5) {
+				snake.removeTail();
+				model.remove(0);
+			}
+		}
+		snake.reverse();
+		Collections.reverse(model);
+		snake.addHead(100);
+		model.add(100);
+
+		SnakeBody copy = new SnakeBody(model.size());
+		copy.copyFrom(snake);
+		checkSame(copy, model, "a copy of a reversed snake");
+		copy.reverse();
+		Collections.reverse(model);
+		checkSame(copy, model, "a reversed copy");
+	}
+
+	/** Checks that snake holds the cells of model, from tail to head. */
+	private static void checkSame(SnakeBody snake, List<Integer> model, String what) {
+		Checks.check(snake.size() == model.size(), what + " has " + model.size() + " cells");
+		for (int i = 0; i < model.size(); i++) {
+			Checks.check(snake.get(i) == model.get(i), what + " has cell " + i + " in place");
+		}
+		if (!model.isEmpty()) {
+			Checks.check(snake.getTail() == model.get(0) && snake.getHead() == model.get(model.size() - 1),
+					what + " has its tail and head at the ends");
+		}
+		if (model.size() > 1) {
+			Checks.check(snake.getNeck() == model.get(model.size() - 2), what + " has its neck next to its head");
+		}
+	}
+
+}
@@ -4,9 +4,60 @@ package com.gradescope.spampede;
  * The mode of a snake (going north, going south, going east, going west, ai
  * mode).
  * 
+ * <p>
+ * There is more than one AI mode: they differ in how the AI decides where to
+ * go next.
+ * </p>
  * 
  * @author Isaac Chung with the help of professors
  */
 enum SnakeMode {
-	GOING_NORTH, GOING_SOUTH, GOING_EAST, GOING_WEST, AI_MODE;
+	GOING_NORTH(false), GOING_SOUTH(false), GOING_EAST(false), GOING_WEST(false),
+
+	/**
+	 * Moves along a shortest path to the closest spam, found by BFS and followed
+	 * until it goes stale.
+	 */
+	AI_MODE(true),
+
+	/** Moves to the neighbor closest to spam, using the board's distance field. */
+	AI_DISTANCE_MODE(true),
+
+	/**
+	 * Moves along a shortest path to the closest spam only if the snake can still
+	 * reach its tail afterwards, and follows its tail otherwise.
+	 */
+	AI_SAFE_MODE(true),
+
+	/**
+	 * Follows a Hamiltonian cycle over the whole board, with shortcuts while the
+	 * snake is short, which rarely crashes. Boards without such a cycle (an odd
+	 * number of rows and of columns inside the walls) use AI_SAFE_MODE instead.
+	 */
+	AI_HAMILTONIAN_MODE(true),
+
+	/**
+	 * Moves along a shortest path to the closest spam, found by A* search with the
+	 * Manhattan distance to the nearest spam as its heuristic.
+	 */
+	AI_ASTAR_MODE(true),
+
+	/**
+	 * Moves along a shortest path to the closest spam, found by a breadth-first
+	 * search that floods 64 cells at a time through bitsets. It is no faster
+	 * than AI_MODE in practice, so no key switches to it, but BatchSimulator,
+	 * ReplayRunner and SpampedeBenchmark can still run it.
+	 */
+	AI_BITSET_MODE(true);
+
+	private final boolean isAI;
+
+	private SnakeMode(boolean isAIInput) {
+		this.isAI = isAIInput;
+	}
+
+	/** Returns true if the snake is steered by an AI in this mode. */
+	public boolean isAI() {
+		return this.isAI;
+	}
 }
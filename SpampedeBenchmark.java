@@ -0,0 +1,414 @@
+package com.gradescope.spampede;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Micro-benchmarks for the hot paths of the model, the AI and the view.
+ *
+ * <p>
+ * The project is built without a build tool, so rather than depending on JMH
+ * this class follows the same recipe by hand: every benchmark runs a few
+ * timed warm-up iterations, then several measured iterations, and reports the
+ * mean time per operation. Results are consumed by a volatile sink so that the
+ * JIT cannot remove the work, and are written as JSON in the same layout JMH
+ * uses (benchmark, mode, params, primaryMetric), so they can be tracked over
+ * time with the usual tools.
+ * </p>
+ *
+ * <p>
+ * Usage: java com.gradescope.spampede.SpampedeBenchmark [--sizes=50x30,...]
+ * [--warmup=3] [--iterations=5] [--time=200] [--out=benchmark-results.json],
+ * where sizes are given as columns x rows (including walls) and time is the
+ * length of one iteration in milliseconds.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class SpampedeBenchmark {
+
+	/** The board sizes benchmarked by default, as columns x rows. */
+	private static final String DEFAULT_SIZES = "50x30,200x200,1000x1000";
+
+	/** How full of snake the board is: empty, half full and nearly full. */
+	private static final String[] FILL_NAMES = { "empty", "half", "nearlyFull" };
+	private static final double[] FILL_FRACTIONS = { 0.0, 0.5, 0.9 };
+
+	/** Room above and below the board for the title and picture, in pixels. */
+	private static final int TITLE_SPACE = 200;
+
+	/** The largest image updateGraphics draws into, in pixels per side. */
+	private static final int MAX_IMAGE_SIZE = 2000;
+
+	/** Consumes the result of every operation, so the JIT cannot drop it. */
+	private static volatile long sink;
+
+	/** Number of warm-up iterations per benchmark. */
+	private final int warmupIterations;
+
+	/** Number of measured iterations per benchmark. */
+	private final int measurementIterations;
+
+	/** The length of one iteration in nanoseconds. */
+	private final long iterationNanos;
+
+	/** The results measured so far, as JSON objects. */
+	private final List<String> results = new ArrayList<String>();
+
+	/** One invocation of the code being measured. */
+	private interface Operation {
+		/** Runs the code once and returns some value that depends on it. */
+		long run();
+	}
+
+	/**
+	 * Creates a new benchmark runner.
+	 *
+	 * @param warmupIterations      number of warm-up iterations per benchmark
+	 * @param measurementIterations number of measured iterations per benchmark
+	 * @param iterationMillis       the length of one iteration in milliseconds
+	 */
+	public SpampedeBenchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		this.iterationNanos = iterationMillis * 1_000_000L;
+	}
+
+	/* -------------- */
+	/* The benchmarks */
+	/* -------------- */
+
+	/**
+	 * Runs every benchmark on a board of the given size.
+	 *
+	 * @param numColumns the width of the board (including walls)
+	 * @param numRows    the height of the board (including walls)
+	 */
+	public void runAll(int numColumns, int numRows) {
+		String size = numColumns + "x" + numRows;
+
+		// one piece of spam, as far along the board as possible from the head
+		for (int fill = 0; fill < FILL_NAMES.length; fill++) {
+			SpampedeData data = newBoard(numRows, numColumns, FILL_FRACTIONS[fill]);
+			data.addSpam(lastFreeCell(data.getBoard()));
+			BreadthFirstSearch search = data.getBoard().getSearch();
+			data.getNextCellIndexFromBFS();
+			this.measure("getNextCellFromBFS", size, FILL_NAMES[fill], () -> data.getNextCellIndexFromBFS(),
+					search.getLastNodesExpanded(), "cells");
+		}
+
+		for (int fill = 0; fill < FILL_NAMES.length; fill++) {
+			SpampedeData data = newBoard(numRows, numColumns, FILL_FRACTIONS[fill]);
+			data.addSpam(lastFreeCell(data.getBoard()));
+			data.getNextCellIndexFromAStar();
+			this.measure("getNextCellFromAStar", size, FILL_NAMES[fill], () -> data.getNextCellIndexFromAStar(),
+					data.getAStarSearch().getLastNodesExpanded(), "cells");
+		}
+
+		for (int fill = 0; fill < FILL_NAMES.length; fill++) {
+			SpampedeData data = newBoard(numRows, numColumns, FILL_FRACTIONS[fill]);
+			data.addSpam(lastFreeCell(data.getBoard()));
+			data.getNextCellIndexFromBitset();
+			long before = data.getBitsetSearch().getWordsExpanded();
+			data.getNextCellIndexFromBitset();
+			long wordsExpanded = data.getBitsetSearch().getWordsExpanded() - before;
+			this.measure("getNextCellFromBitset", size, FILL_NAMES[fill], () -> data.getNextCellIndexFromBitset(),
+					wordsExpanded, "words");
+		}
+
+		for (int fill = 0; fill < FILL_NAMES.length; fill++) {
+			SpampedeData data = newBoard(numRows, numColumns, FILL_FRACTIONS[fill]);
+			this.measure("reverseSnake", size, FILL_NAMES[fill], () -> {
+				data.reverseSnake();
+				return data.getSnakeBody().getHead();
+			});
+		}
+
+		// addSpam refuses to add spam to boards that are more than 80% full
+		for (int fill = 0; fill < 2; fill++) {
+			SpampedeData data = newBoard(numRows, numColumns, FILL_FRACTIONS[fill]);
+			this.measure("addSpam", size, FILL_NAMES[fill], () -> {
+				data.addSpam();
+				data.removeSpam();
+				return data.noSpam() ? 0 : 1;
+			});
+		}
+
+		SpampedeData moving = newBoard(numRows, numColumns, 0.0);
+		int[] loop = perimeterLoop(moving.getBoard());
+		int[] position = { 2 }; // the snake starts on the first two cells of the loop
+		this.measure("moveSnakeForward", size, FILL_NAMES[0], () -> {
+			moving.moveSnakeForward(loop[position[0]]);
+			position[0] = (position[0] + 1) % loop.length;
+			return position[0];
+		});
+
+		for (int fill = 0; fill < 2; fill++) {
+			SpampedeData data = newBoard(numRows, numColumns, FILL_FRACTIONS[fill]);
+			int width = Math.min(numColumns * Preferences.CELL_SIZE, MAX_IMAGE_SIZE);
+			int height = Math.min(numRows * Preferences.CELL_SIZE + TITLE_SPACE, MAX_IMAGE_SIZE);
+			BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			Graphics graphics = image.getGraphics();
+			SpampedeDisplay display = new SpampedeDisplay(data, graphics, width, height);
+			this.measure("updateGraphics", size, FILL_NAMES[fill], () -> {
+				display.requestFullRedraw();
+				display.updateGraphics();
+				return image.getRGB(0, 0);
+			});
+			graphics.dispose();
+		}
+
+		// the same, writing the cells straight into the pixels of the image
+		for (int fill = 0; fill < 2; fill++) {
+			SpampedeData data = newBoard(numRows, numColumns, FILL_FRACTIONS[fill]);
+			int width = Math.min(numColumns * Preferences.CELL_SIZE, MAX_IMAGE_SIZE);
+			int height = Math.min(numRows * Preferences.CELL_SIZE + TITLE_SPACE, MAX_IMAGE_SIZE);
+			BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			FrameBuffer frames = new FrameBuffer(data);
+			SpampedeDisplay display = new SpampedeDisplay(image, GameConfig.DEFAULT);
+			this.measure("updateGraphicsRaster", size, FILL_NAMES[fill], () -> {
+				display.requestFullRedraw();
+				display.updateGraphics(frames.acquire());
+				return image.getRGB(0, 0);
+			});
+		}
+
+		// after one move, only the changed cells are redrawn
+		SpampedeData drawn = newBoard(numRows, numColumns, 0.0);
+		int width = Math.min(numColumns * Preferences.CELL_SIZE, MAX_IMAGE_SIZE);
+		int height = Math.min(numRows * Preferences.CELL_SIZE + TITLE_SPACE, MAX_IMAGE_SIZE);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics graphics = image.getGraphics();
+		SpampedeDisplay display = new SpampedeDisplay(drawn, graphics, width, height);
+		display.updateGraphics();
+		int[] drawnPosition = { 2 };
+		this.measure("updateGraphicsAfterMove", size, FILL_NAMES[0], () -> {
+			drawn.moveSnakeForward(loop[drawnPosition[0]]);
+			drawnPosition[0] = (drawnPosition[0] + 1) % loop.length;
+			display.updateGraphics();
+			return display.getDirtyRegion().width;
+		});
+		graphics.dispose();
+	}
+
+	/* --------------------------- */
+	/* Setting up benchmark boards */
+	/* --------------------------- */
+
+	/**
+	 * Creates a board whose snake winds back and forth through the rows, starting
+	 * from the usual start location, until it covers the given fraction of the
+	 * interior.
+	 */
+	static SpampedeData newBoard(int numRows, int numColumns, double fill) {
+		SpampedeData data = new SpampedeData(numRows, numColumns, new SplittableRandom(42));
+		data.placeSnakeAtStartLocation();
+		data.setStartDirection();
+
+		Board board = data.getBoard();
+		int[] path = serpentine(board);
+		int length = Math.max(2, (int) (fill * path.length));
+		for (int i = 2; i < length; i++) {
+			// eating spam makes the snake grow by one cell
+			board.becomeSpam(path[i]);
+			data.moveSnakeForward(path[i]);
+		}
+		return data;
+	}
+
+	/**
+	 * Returns every interior cell, row by row, going east on odd rows and west on
+	 * even rows.
+	 */
+	private static int[] serpentine(Board board) {
+		int rows = board.getNumRows() - 2;
+		int columns = board.getNumColumns() - 2;
+		int[] path = new int[rows * columns];
+		int i = 0;
+		for (int row = 1; row <= rows; row++) {
+			for (int k = 0; k < columns; k++) {
+				int column = (row % 2 == 1) ? 1 + k : columns - k;
+				path[i++] = board.index(row, column);
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Returns the interior cells next to the walls, in clockwise order starting
+	 * from the upper-left corner.
+	 */
+	private static int[] perimeterLoop(Board board) {
+		int last = board.getNumRows() - 2;
+		int right = board.getNumColumns() - 2;
+		int[] loop = new int[2 * (last + right) - 4];
+		int i = 0;
+		for (int column = 1; column <= right; column++) {
+			loop[i++] = board.index(1, column);
+		}
+		for (int row = 2; row <= last; row++) {
+			loop[i++] = board.index(row, right);
+		}
+		for (int column = right - 1; column >= 1; column--) {
+			loop[i++] = board.index(last, column);
+		}
+		for (int row = last - 1; row >= 2; row--) {
+			loop[i++] = board.index(row, 1);
+		}
+		return loop;
+	}
+
+	/** Returns the open interior cell furthest along the serpentine. */
+	private static int lastFreeCell(Board board) {
+		int[] path = serpentine(board);
+		for (int i = path.length - 1; i >= 0; i--) {
+			if (board.isOpen(path[i])) {
+				return path[i];
+			}
+		}
+		throw new IllegalStateException("The board has no open cell");
+	}
+
+	/* ----------------------- */
+	/* Measuring and reporting */
+	/* ----------------------- */
+
+	/**
+	 * Measures the average time of one operation and records the result.
+	 */
+	private void measure(String name, String size, String fill, Operation operation) {
+		this.measure(name, size, fill, operation, -1, null);
+	}
+
+	/**
+	 * Measures the average time of one operation and records the result, together
+	 * with how much of the board each operation expands (or -1 if it does not
+	 * search), counted in the given unit (e.g. cells).
+	 */
+	private void measure(String name, String size, String fill, Operation operation, long nodesExpanded,
+			String unit) {
+		for (int i = 0; i < this.warmupIterations; i++) {
+			this.runIteration(operation);
+		}
+		double[] samples = new double[this.measurementIterations];
+		double total = 0;
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = this.runIteration(operation);
+			total += samples[i];
+		}
+		double mean = total / samples.length;
+		double squares = 0;
+		for (double sample : samples) {
+			squares += (sample - mean) * (sample - mean);
+		}
+		double error = samples.length > 1 ? Math.sqrt(squares / (samples.length - 1)) : 0;
+
+		System.out.printf("%-24s %-10s %-11s %14.1f ns/op  +- %.1f%s%n", name, size, fill, mean, error,
+				nodesExpanded >= 0 ? "  (" + nodesExpanded + " " + unit + " expanded)" : "");
+		this.results.add(toJson(name, size, fill, mean, error, samples, nodesExpanded, unit));
+	}
+
+	/**
+	 * Runs the operation repeatedly for one iteration.
+	 *
+	 * @return the average time of one operation in nanoseconds
+	 */
+	private double runIteration(Operation operation) {
+		long ops = 0;
+		long result = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			result += operation.run();
+			ops++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < this.iterationNanos);
+		sink = result;
+		return (double) elapsed / ops;
+	}
+
+	/** Returns one result in the JSON layout used by JMH. */
+	private static String toJson(String name, String size, String fill, double mean, double error,
+			double[] samples, long nodesExpanded, String unit) {
+		StringBuilder json = new StringBuilder(256);
+		json.append("  {\n");
+		json.append("    \"benchmark\": \"").append(SpampedeBenchmark.class.getName()).append('.').append(name)
+				.append("\",\n");
+		json.append("    \"mode\": \"avgt\",\n");
+		json.append("    \"params\": { \"size\": \"").append(size).append("\", \"fill\": \"").append(fill)
+				.append("\" },\n");
+		json.append("    \"primaryMetric\": {\n");
+		json.append("      \"score\": ").append(mean).append(",\n");
+		json.append("      \"scoreError\": ").append(error).append(",\n");
+		json.append("      \"scoreUnit\": \"ns/op\",\n");
+		json.append("      \"rawData\": [[");
+		for (int i = 0; i < samples.length; i++) {
+			json.append(i == 0 ? "" : ", ").append(samples[i]);
+		}
+		json.append("]]\n");
+		json.append("    }");
+		if (nodesExpanded >= 0) {
+			json.append(",\n    \"secondaryMetrics\": {\n");
+			json.append("      \"nodesExpanded\": { \"score\": ").append(nodesExpanded)
+					.append(", \"scoreUnit\": \"").append(unit).append("/op\" }\n");
+			json.append("    }");
+		}
+		json.append("\n  }");
+		return json.toString();
+	}
+
+	/** Writes every result so far to the given file, as a JSON array. */
+	public void writeJson(String fileName) throws IOException {
+		try (Writer out = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)) {
+			out.write("[\n");
+			out.write(String.join(",\n", this.results));
+			out.write("\n]\n");
+		}
+	}
+
+	/* ----------- */
+	/* Entry point */
+	/* ----------- */
+
+	/** Runs the benchmarks and writes the results as JSON. */
+	public static void main(String[] args) throws IOException {
+		String sizes = DEFAULT_SIZES;
+		String out = "benchmark-results.json";
+		int warmup = 3;
+		int iterations = 5;
+		long time = 200;
+		for (String arg : args) {
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--sizes=")) {
+				sizes = value;
+			} else if (arg.startsWith("--out=")) {
+				out = value;
+			} else if (arg.startsWith("--warmup=")) {
+				warmup = Integer.parseInt(value);
+			} else if (arg.startsWith("--iterations=")) {
+				iterations = Integer.parseInt(value);
+			} else if (arg.startsWith("--time=")) {
+				time = Long.parseLong(value);
+			} else {
+				throw new IllegalArgumentException("Unknown option: " + arg);
+			}
+		}
+
+		SpampedeBenchmark benchmark = new SpampedeBenchmark(warmup, iterations, time);
+		for (String size : sizes.split(",")) {
+			String[] parts = size.trim().split("x");
+			benchmark.runAll(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+		}
+		benchmark.writeJson(out);
+		System.out.println("Results written to " + out);
+	}
+
+}
@@ -1,6 +1,12 @@
 package com.gradescope.spampede;
 
+import java.awt.EventQueue;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The "controller" in MVC that is responsible for the logic of the game, e.g.
@@ -9,16 +15,23 @@ import java.awt.event.KeyEvent;
  * 
  * @author Isaac Chung with the help of professors
  */
-public class SpampedeBrain extends SpampedeBrainParent {
+public class SpampedeBrain extends SpampedeBrainParent implements GameListener {
 
-	/** The "view" in MVC. */
-	private SpampedeDisplay theDisplay;
+	/**
+	 * The game being played. The game loop and the Swing event thread both read
+	 * it, so a new game is built in full before it replaces the old one in a
+	 * single write (see startNewGame), and each method reads it once.
+	 */
+	private volatile Session game;
+
+	/** The game drawFrame last drew, so that a new game is drawn in full (Swing event thread only). */
+	private Session drawnGame;
 
-	/** The "model" in MVC. */
-	private SpampedeData theData;
+	/** Whether drawFrame is waiting to run on the Swing event thread. */
+	private final AtomicBoolean drawPending = new AtomicBoolean();
 
-	/** The number of animated frames displayed so far. */
-	private int cycleNum = 0;
+	/** Draws the latest snapshot of the game (on the Swing event thread). */
+	private final Runnable drawFrame = this::drawFrame;
 
 	/** The mappings between direction (names) and keys. */
 	private static final char REVERSE = 'r';
@@ -27,19 +40,44 @@ public class SpampedeBrain extends SpampedeBrainParent {
 	private static final char LEFT = 'j';
 	private static final char RIGHT = 'l';
 	private static final char AI_MODE = 'a';
+	private static final char AI_DISTANCE_MODE = 'd';
+	private static final char AI_SAFE_MODE = 'f';
+	private static final char AI_HAMILTONIAN_MODE = 'h';
+	private static final char AI_ASTAR_MODE = 'e';
 	private static final char PLAY_SPAM_NOISE = 's';
+	private static final char SAVE_REPLAY = 'w';
+	private static final char ZOOM_IN = '+';
+	private static final char ZOOM_IN_UNSHIFTED = '=';
+	private static final char ZOOM_OUT = '-';
 
-	/** Starts a new game. */
+	/**
+	 * Starts a new game. The game loop may still be stepping the old one, so the
+	 * new engine, buffer and display are built off to the side and swapped in
+	 * between two ticks.
+	 */
 	public void startNewGame() {
-		this.theData = new SpampedeData();
-		this.theData.placeSnakeAtStartLocation();
-		this.theData.setStartDirection();
+		// every game is recorded, so it can be saved and replayed exactly
+		GameEngine engine = GameEngine.newGame(this.config, new SplittableRandom().nextLong());
+		engine.setListener(this);
+		engine.setMetrics(this.metrics);
+		FrameBuffer frames = new FrameBuffer(engine.getData());
+
+		SpampedeDisplay display;
+		if (this.boardCanvas != null) {
+			display = new SpampedeDisplay(this.boardCanvas.getImage(), this.config);
+		} else {
+			display = new SpampedeDisplay(this.screen, 
+										  this.getSize().width, 
+										  getSize().height,
+										  this.config);
+		}
+		Session next = new Session(engine, frames, display);
+		while (!this.loop.runBetweenTicks(() -> this.game = next)) {
+			Thread.yield(); // saving a replay goes first
+		}
 
-		this.theDisplay = new SpampedeDisplay(this.theData, 
-											  this.screen, 
-											  this.getSize().width, 
-											  getSize().height);
-		this.theDisplay.updateGraphics();
+		this.drawnGame = next;
+		display.updateGraphics(frames.acquire());
 
 		this.playSound_spam();
 
@@ -55,13 +93,16 @@ public class SpampedeBrain extends SpampedeBrainParent {
 		}
 		;
 
-		this.theDisplay.updateGraphics();
+		display.requestFullRedraw();
+		display.updateGraphics(frames.acquire());
+		this.showRegion(display.getDirtyRegion());
 	}
 
-	/** Declares the game over. */
+	/** Declares the game over (called by the engine when the snake crashes). */
+	@Override
 	public void gameOver() {
 		super.pause(); // pause the game
-		this.theData.setGameOver(); // tell the model that the game is over
+		this.game.data.setGameOver(); // tell the model that the game is over
 		if (this.audioMeow != null) {
 			this.audioMeow.play(); // play a sound
 		}
@@ -72,26 +113,62 @@ public class SpampedeBrain extends SpampedeBrainParent {
 	/* -------- */
 
 	/**
-	 * Moves the game forward one step.
-	 * 
-	 * One step is one frame of animation, which occurs every Preferences.SLEEP_TIME
-	 * milliseconds.
+	 * Moves the game forward one step and draws the result.
 	 */
 	public void cycle() {
-		// move the snake
-		this.updateSnake();
+		this.tick();
+		this.render(1.0);
+	}
 
-		// update the list of spam
-		this.updateSpam();
+	/**
+	 * Moves the game forward one step, without drawing, and publishes a snapshot
+	 * of the result for the renderer.
+	 * 
+	 * The game loop calls this every config.getTickNanos() nanoseconds.
+	 */
+	@Override
+	public void tick() {
+		// move the snake, update the list of spam and the cycle counter
+		Session current = this.game;
+		current.engine.step();
+		current.frames.publish();
+	}
+
+	/**
+	 * Draws the game.
+	 * 
+	 * The game loop calls this every config.getFrameNanos() nanoseconds. The
+	 * drawing itself is done by drawFrame on the Swing event thread, so the game
+	 * loop never waits for it; if the last frame has not been drawn yet, this one
+	 * is skipped. The board is drawn cell by cell, so the snake is always shown at
+	 * its latest position and the interpolation between steps is not needed.
+	 * 
+	 * @param interpolation how far the game is between the last step and the next
+	 */
+	@Override
+	public void render(double interpolation) {
+		if (this.drawPending.compareAndSet(false, true)) {
+			EventQueue.invokeLater(this.drawFrame);
+		}
+	}
 
-		// draw the board
-		this.theDisplay.updateGraphics();
+	/** Draws the latest snapshot published by tick (on the Swing event thread). */
+	private void drawFrame() {
+		this.drawPending.set(false);
+		Session current = this.game;
+		if (current != this.drawnGame) {
+			// the other game's cells are still on the screen
+			current.display.requestFullRedraw();
+			this.drawnGame = current;
+		}
 
-		// send the new drawing to the screen
-		this.repaint();
+		// draw the parts of the board that changed
+		long start = System.nanoTime();
+		current.display.updateGraphics(current.frames.acquire());
+		this.metrics.record(GameMetrics.Phase.UPDATE_GRAPHICS, System.nanoTime() - start);
 
-		// update the cycle counter
-		this.cycleNum++;
+		// send just those parts of the new drawing to the screen
+		this.showRegion(current.display.getDirtyRegion());
 	}
 
 	/**
@@ -103,85 +180,135 @@ public class SpampedeBrain extends SpampedeBrainParent {
 	 * calls this keyPressed method and passes it a KeyEvent describing the specific
 	 * key press.
 	 * </p>
+	 * 
+	 * <p>
+	 * Key presses that change the game are handed to the engine as commands and
+	 * applied at the start of its next step, so they end up in the replay log.
+	 * The arrow keys and +/- pan and zoom the view instead, which is not part of
+	 * the game.
+	 * </p>
 	 */
 	public void keyPressed(KeyEvent evt) {
+		Session current = this.game;
+
+		switch (evt.getKeyCode()) { // keys without a char, e.g. the arrows
+		case KeyEvent.VK_LEFT:
+			this.panView(-1, 0);
+			break;
+		case KeyEvent.VK_RIGHT:
+			this.panView(1, 0);
+			break;
+		case KeyEvent.VK_UP:
+			this.panView(0, -1);
+			break;
+		case KeyEvent.VK_DOWN:
+			this.panView(0, 1);
+			break;
+		}
 
 		switch (evt.getKeyChar()) { // get the char of the pressed key
 		case PLAY_SPAM_NOISE:
 			this.playSound_spam();
 			break;
+		case SAVE_REPLAY:
+			// the loop thread may be in the middle of a step, so it saves the log
+			this.loop.runBetweenTicks(() -> SpampedeBrain.saveReplay(current.engine));
+			break;
+		case ZOOM_IN:
+		case ZOOM_IN_UNSHIFTED:
+			current.display.getViewport().zoomIn();
+			this.drawFrame();
+			break;
+		case ZOOM_OUT:
+			current.display.getViewport().zoomOut();
+			this.drawFrame();
+			break;
 		case AI_MODE:
-			this.theData.setMode_AI();
+			current.engine.submit(GameCommand.AI_MODE);
+			break;
+		case AI_DISTANCE_MODE:
+			current.engine.submit(GameCommand.AI_DISTANCE_MODE);
+			break;
+		case AI_SAFE_MODE:
+			current.engine.submit(GameCommand.AI_SAFE_MODE);
+			break;
+		case AI_HAMILTONIAN_MODE:
+			current.engine.submit(GameCommand.AI_HAMILTONIAN_MODE);
+			break;
+		case AI_ASTAR_MODE:
+			current.engine.submit(GameCommand.AI_ASTAR_MODE);
 			break;
 		case REVERSE:
-			this.theData.reverseSnake();
+			current.engine.submit(GameCommand.REVERSE);
 			break;
 		case UP:
-			this.theData.setDirectionNorth();
+			current.engine.submit(GameCommand.GO_NORTH);
 			break;
 		case DOWN:
-			this.theData.setDirectionSouth();
+			current.engine.submit(GameCommand.GO_SOUTH);
 			break;
 		case LEFT:
-			this.theData.setDirectionWest();
+			current.engine.submit(GameCommand.GO_WEST);
 			break;
 		case RIGHT:
-			this.theData.setDirectionEast();
+			current.engine.submit(GameCommand.GO_EAST);
 			break;
 		}
 	}
 
 	/**
-	 * Moves the snake.
-	 * 
-	 * <p>
-	 * This method is called once every REFRESH_RATE cycles, either in the current
-	 * direction, or as directed by the AI's breadth-first search.
-	 * <p>
+	 * Moves the view a quarter of the display in the given direction (-1, 0 or 1
+	 * along each axis), and draws it at once in case the game is paused.
 	 */
-	public void updateSnake() {
-		if (this.cycleNum % Preferences.REFRESH_RATE == 0) {
-			BoardCell nextCell;
-			if (this.theData.inAImode()) {
-				nextCell = this.theData.getNextCellFromBFS();
-			} else {
-				nextCell = this.theData.getNextCellInDir();
-			}
-			this.advanceTheSnake(nextCell);
-		}
+	private void panView(int columns, int rows) {
+		Viewport view = this.game.display.getViewport();
+		view.pan(columns * Math.max(1, view.getVisibleCellColumns() / 4),
+				rows * Math.max(1, view.getVisibleCellRows() / 4));
+		this.drawFrame();
 	}
 
 	/**
-	 * Moves the snake to the next cell (and possibly eat spam).
-	 * 
-	 * @param nextCell - the new location of the snake head (which must be
-	 *                 horizontally or vertically adjacent to the old location of
-	 *                 the snake head)
+	 * Saves the replay log of the game run by engine, up to this point, to a file
+	 * named after its seed in the working directory (see ReplayRunner). Must be
+	 * called between two steps of the game, i.e. through GameLoop.runBetweenTicks.
 	 */
-	private void advanceTheSnake(BoardCell nextCell) {
-		// oops...we hit something
-		if (nextCell.isWall() || nextCell.isBody()) {
-			this.gameOver();
+	private static void saveReplay(GameEngine engine) {
+		ReplayLog log = engine.getReplayLog();
+		if (log == null) {
 			return;
 		}
-
-		// the snake ate spam!
-		if (nextCell.isSpam()) {
-			this.playSound_spamEaten();
+		log.finish(engine);
+		Path file = Paths.get("spampede-" + Long.toHexString(log.getSeed()) + ".replay");
+		try {
+			log.save(file);
+		} catch (IOException | SecurityException e) {
+			System.err.println("Could not save replay: " + e);
 		}
+	}
 
-		this.theData.moveSnakeForward(nextCell);
+	/**
+	 * Moves the snake.
+	 * 
+	 * <p>
+	 * The engine moves the snake once every REFRESH_RATE cycles, either in the
+	 * current direction, or as directed by the AI of the current AI mode.
+	 * <p>
+	 */
+	public void updateSnake() {
+		this.game.engine.updateSnake();
 	}
 
 	/**
 	 * Adds more spam every SPAM_ADD_RATE cycles.
 	 */
 	void updateSpam() {
-		if (this.theData.noSpam()) {
-			this.theData.addSpam();
-		} else if (this.cycleNum % Preferences.SPAM_ADD_RATE == 0) {
-			this.theData.addSpam();
-		}
+		this.game.engine.updateSpam();
+	}
+
+	/** Plays the crunch noise when the engine reports that spam was eaten. */
+	@Override
+	public void spamEaten() {
+		this.playSound_spamEaten();
 	}
 
 	/* ------ */
@@ -218,19 +345,47 @@ public class SpampedeBrain extends SpampedeBrainParent {
 
 	public static SpampedeBrain getTestGame(TestGame gameNum) {
 		SpampedeBrain brain = new SpampedeBrain();
-		brain.theData = new SpampedeData(gameNum);
+		GameEngine engine = new GameEngine(new SpampedeData(gameNum));
+		engine.setListener(brain);
+		brain.game = new Session(engine, null, null);
 		return brain;
 	}
 
 	public String testing_toStringParent() {
-		return this.theData.toStringParents();
+		return this.game.data.toStringParents();
 	}
 
 	public BoardCell testing_getNextCellInDir() {
-		return this.theData.getNextCellInDir();
+		return this.game.data.getNextCellInDir();
 	}
 
 	public String testing_toStringSpampedeData() {
-		return this.theData.toString();
+		return this.game.data.toString();
+	}
+
+	/**
+	 * One game: its model, the engine that runs it, the buffer that hands its
+	 * snapshots to the Swing event thread and the view that draws them.
+	 */
+	private static final class Session {
+
+		/** Runs the logic of the game, one step per animated frame. */
+		final GameEngine engine;
+
+		/** The "model" in MVC. */
+		final SpampedeData data;
+
+		/** Hands snapshots of the game from the game loop to the Swing event thread. */
+		final FrameBuffer frames;
+
+		/** The "view" in MVC. */
+		final SpampedeDisplay display;
+
+		Session(GameEngine engine, FrameBuffer frames, SpampedeDisplay display) {
+			this.engine = engine;
+			this.data = engine.getData();
+			this.frames = frames;
+			this.display = display;
+		}
 	}
 }
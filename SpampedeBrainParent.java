@@ -3,8 +3,14 @@ package com.gradescope.spampede;
 import java.applet.AudioClip;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
 import javax.swing.*;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import javax.management.JMException;
 
 /**
  * Provides back-end for SpampedeBrain and SpampedeDisplay.
@@ -12,7 +18,13 @@ import java.net.URL;
  * 
  * @author Isaac Chung with the help of professors
  */
-public abstract class SpampedeBrainParent extends JApplet implements ActionListener, KeyListener, Runnable {
+public abstract class SpampedeBrainParent extends JApplet implements ActionListener, KeyListener, GameLoop.Game {
+
+	/** The size and speed of the game, read from the applet parameters */
+	public GameConfig config = GameConfig.DEFAULT;
+
+	/** How long each part of the game loop takes, kept across games */
+	final GameMetrics metrics = new GameMetrics();
 
 	/** The off-screen buffer of image */
 	public Image image;
@@ -20,6 +32,12 @@ public abstract class SpampedeBrainParent extends JApplet implements ActionListe
 	/** The buffer's graphical tools */
 	public Graphics screen;
 
+	/** The panel that shows the buffer on screen */
+	public SpampedeImagePanel imagePanel;
+
+	/** The canvas that shows the buffer on screen instead, with the raster renderer (or null) */
+	public BoardCanvas boardCanvas;
+
 	/** Buttons */
 	private JButton newGameButton;
 	private JButton pauseButton;
@@ -47,6 +65,15 @@ public abstract class SpampedeBrainParent extends JApplet implements ActionListe
 	@Override
 	public void init() {
 
+		// read the size and speed of the game, and set up the game loop to match
+		this.config = this.readConfig();
+		this.loop = new GameLoop(this, this.config.getTickNanos(), this.config.getFrameNanos(),
+				this.config.getMaxFrameSkip());
+
+		// time the game loop, and offer the numbers over JMX (and as CSV if asked)
+		this.loop.setMetrics(this.metrics);
+		this.startMetrics();
+
 		// register w/the applet (i.e. parent) so it calls our keyPressed method
 		this.addKeyListener(this);
 
@@ -57,12 +84,26 @@ public abstract class SpampedeBrainParent extends JApplet implements ActionListe
 		this.initializeButtons();
 		this.initializeMenu();
 
-		// set up the (off-screen) buffer for drawing, named image
-		this.image = this.createImage(this.getSize().width, Preferences.GAMEBOARDHEIGHT);
-		this.screen = this.image.getGraphics(); // screen holds the drawing routines
+		// the viewport zooms out on boards too big for the applet, so the buffer
+		// never needs to be bigger than the applet
+		int bufferHeight = Math.min(this.config.getBoardHeightPixels(), Math.max(1, this.getSize().height));
+		if (this.config.isRasterRendering()) {
+			// cells are written straight into the pixels of the buffer, which a
+			// canvas with page flipping shows
+			BufferedImage raster = new BufferedImage(this.getSize().width, bufferHeight, BufferedImage.TYPE_INT_RGB);
+			this.image = raster;
+			this.screen = raster.getGraphics();
+			this.boardCanvas = new BoardCanvas(raster);
+			this.add(this.boardCanvas, BorderLayout.CENTER);
+		} else {
+			// set up the (off-screen) buffer for drawing, named image
+			this.image = this.createImage(this.getSize().width, bufferHeight);
+			this.screen = this.image.getGraphics(); // screen holds the drawing routines
 
-		// add a central panel which holds the buffer (the game board)
-		this.add(new SpampedeImagePanel(image), BorderLayout.CENTER);
+			// add a central panel which holds the buffer (the game board)
+			this.imagePanel = new SpampedeImagePanel(image);
+			this.add(this.imagePanel, BorderLayout.CENTER);
+		}
 
 		// example of loading images and audio
 		try {
@@ -83,6 +124,46 @@ public abstract class SpampedeBrainParent extends JApplet implements ActionListe
 		super.repaint(); // re-render the environment to the screen
 	}
 
+	/**
+	 * Reads the game settings from the applet parameters with the keys of
+	 * GameConfig (e.g. board.width), falling back to the defaults in Preferences.
+	 */
+	private GameConfig readConfig() {
+		Properties settings = new Properties();
+		for (String key : GameConfig.KEYS) {
+			String value = this.getParameter(key);
+			if (value != null) {
+				settings.setProperty(key, value);
+			}
+		}
+		try {
+			return GameConfig.fromProperties(settings);
+		} catch (IllegalArgumentException e) {
+			System.out.println("problem reading the applet parameters: " + e.getMessage());
+			return GameConfig.DEFAULT;
+		}
+	}
+
+	/**
+	 * Registers the metrics with JMX, and starts writing them to the CSV file
+	 * named by the config (if any).
+	 */
+	private void startMetrics() {
+		try {
+			this.metrics.register();
+		} catch (JMException | SecurityException e) {
+			System.out.println("problem registering the metrics: " + e);
+		}
+		Path file = this.config.getMetricsFile();
+		if (file != null) {
+			try {
+				this.metrics.startCsvDump(file, Math.max(1, this.config.getMetricsNanos() / 1_000_000));
+			} catch (IOException | SecurityException e) {
+				System.out.println("problem writing the metrics: " + e);
+			}
+		}
+	}
+
 	/**
 	 * Initializes all buttons.
 	 */
@@ -166,82 +247,76 @@ public abstract class SpampedeBrainParent extends JApplet implements ActionListe
 		// Not used
 	}
 
-	/* --------------------------------------------------------------- */
-	/* Fields and methods are used to implement the Runnable interface */
-	/* and to support pausing and resuming the applet. */
-	/* --------------------------------------------------------------- */
-
-	Thread thread; // the thread controlling the updates
-	boolean threadSuspended; // whether or not the thread is suspended
-	boolean running; // whether or not the thread is stopped
+	/* ------------------------------------------------------------------ */
+	/* Fields and methods are used to drive the game loop and to support */
+	/* pausing and resuming the applet. */
+	/* ------------------------------------------------------------------ */
 
 	/**
-	 * Called to run this applet.
+	 * The fixed-timestep loop that calls tick() and render() on its own thread, as
+	 * often as the config says (created by init).
 	 */
-	@Override
-	public void run() {
-		// calls the "cycle()" method every so often (every sleepTime milliseconds)
-		while (this.running) {
-			try {
-				if (this.thread != null) {
-					Thread.sleep(Preferences.SLEEP_TIME);
-					synchronized (this) {
-						while (this.threadSuspended) {
-							this.wait(); // sleeps until notify() wakes it up
-						}
-					}
-				}
-			} catch (InterruptedException e) {
-				;
-			}
-
-			this.cycle(); // this represents 1 update cycle for the environment
-		}
-		this.thread = null;
-	}
+	GameLoop loop;
 
 	/**
 	 * Called when the "Start" button is pressed.
 	 */
-	public synchronized void go() {
-		if (this.thread == null) {
-			this.thread = new Thread(this);
-			this.running = true;
-			this.thread.start();
-			this.threadSuspended = false;
-		} else {
-			this.threadSuspended = false;
-		}
-		this.notify(); // wakes up the call to wait(), above
+	public void go() {
+		this.loop.start();
 	}
 
 	/**
 	 * Called when the "Pause" button is pressed.
 	 */
 	void pause() {
-		if (this.thread == null) {
-			;
-		} else {
-			this.threadSuspended = true;
-		}
+		this.loop.pause();
 	}
 
 	/**
 	 * Called when the user leaves the page that contains the applet. It stops the
-	 * thread altogether.
+	 * loop altogether.
 	 */
-	public synchronized void stop() {
-		this.running = false;
-		this.notify();
+	public void stop() {
+		this.loop.stop();
+	}
+
+	/**
+	 * Called when the applet is unloaded. It finishes the metrics file and
+	 * removes the metrics from JMX.
+	 */
+	@Override
+	public void destroy() {
+		this.metrics.stopCsvDump();
+		this.metrics.unregister();
+	}
+
+	/**
+	 * Sends the given part of the buffer (e.g. the cells that changed) to the
+	 * screen. Must be called on the Swing event thread.
+	 */
+	void showRegion(Rectangle region) {
+		if (this.boardCanvas == null) {
+			this.imagePanel.repaintRegion(region);
+		} else if (!region.isEmpty()) {
+			this.boardCanvas.present();
+		}
 	}
 
 	/* ----------------------------------------------------------------- */
 	/* Methods that will be overridden to provide Spampede functionality */
 	/* ----------------------------------------------------------------- */
 
-	/** Cycles a game through one "step" */
+	/** Cycles a game through one "step" (update and draw) */
 	abstract void cycle();
 
+	/** Updates the game by one simulation step, without drawing */
+	@Override
+	public abstract void tick();
+
+	/** Draws the current state of the game */
+	@Override
+	public abstract void render(double interpolation);
+
 	/** Starts a new game */
 	abstract void startNewGame();
 
@@ -1,9 +1,7 @@
 package com.gradescope.spampede;
 
 import java.awt.Color;
-import java.lang.Math;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.SplittableRandom;
 
 import javax.swing.event.CellEditorListener;
 
@@ -15,22 +13,64 @@ import javax.swing.event.CellEditorListener;
  */
 class SpampedeData {
 	/**
-	 * The collection of all the BoardCells in the program, indexed by row and
-	 * column.
+	 * The contents of every cell in the program, stored in one flat array indexed
+	 * by row and column.
 	 * 
 	 * <p>
-	 * All BoardCells needed by the program are created by the SpampedeData
-	 * constructor, so you do not need to create any new BoardCells in your code.
-	 * Instead, you will pass around (references to) existing cells, and change the
-	 * contents of some of these cells.
+	 * BoardCells handed out by getCell are lightweight views onto this board, so
+	 * changing the contents of a BoardCell changes the board itself.
 	 * </p>
 	 */
-	private final BoardCell[][] boardCells2D;
+	private final Board board;
 
 	/**
-	 * The number of non-wall cells in the initial board.
+	 * The distance from every open cell to the nearest spam, used by
+	 * AI_DISTANCE_MODE. It is created the first time it is needed and then kept
+	 * up to date as the board changes.
 	 */
-	private int freeSpots = 0;
+	private DistanceField distanceField;
+
+	/**
+	 * The path to spam that AI_MODE is following, kept between moves so the board
+	 * is not searched on every move. It is created the first time it is needed.
+	 */
+	private PathCache pathCache;
+
+	/**
+	 * The AI of AI_SAFE_MODE, which checks a path before taking it. It is created
+	 * the first time it is needed.
+	 */
+	private SafePlanner safePlanner;
+
+	/**
+	 * The AI of AI_HAMILTONIAN_MODE, which follows a cycle through every cell. It
+	 * is created the first time it is needed.
+	 */
+	private HamiltonianPlanner hamiltonianPlanner;
+
+	/**
+	 * The search engine of AI_ASTAR_MODE. It is created the first time it is
+	 * needed.
+	 */
+	private AStarSearch aStarSearch;
+
+	/** The spam cells handed to the A* search, reused between searches. */
+	private final int[] aStarTargets = new int[AStarSearch.MAX_TARGETS];
+
+	/** Scratch space for the neighbors of the head. */
+	private final int[] neighbors = new int[4];
+
+	/**
+	 * The search engine of AI_BITSET_MODE, which keeps bitsets of the board up to
+	 * date as it changes. It is created the first time it is needed.
+	 */
+	private BitsetSearch bitsetSearch;
+
+	/**
+	 * The cells that are currently open (not a wall, spam or part of the snake),
+	 * kept in sync with the board so that a random one can be picked in O(1).
+	 */
+	private final CellTypeIndex openCells;
 
 	/**
 	 * The current movement "mode" of the snake, i.e. whether it is headed in a
@@ -39,22 +79,29 @@ class SpampedeData {
 	private SnakeMode currentMode = SnakeMode.GOING_EAST;
 
 	/**
-	 * A list of (references to) cells that currently contain spam, ordered from
-	 * oldest (first) to youngest (last).
+	 * The cells that currently contain spam, in no particular order. It shares
+	 * its positions with openCells, which as a listener of the board keeps it in
+	 * sync, so spam is forgotten as soon as it is eaten.
 	 */
-	private LinkedList<BoardCell> spamCells = new LinkedList<BoardCell>();
+	private final CellTypeIndex spamCells;
 
 	/**
-	 * A list of (references to) the cells that contain the snake. The head is the
-	 * last element of the list.
+	 * The cells that contain the snake, from tail to head, stored in a ring
+	 * buffer so that moving, growing and reversing the snake take O(1) time.
 	 */
-	private LinkedList<BoardCell> snakeCells = new LinkedList<BoardCell>();
+	private final SnakeBody snakeCells;
 
 	/**
 	 * Whether the game is over.
 	 */
 	private boolean gameOver = false;
 
+	/**
+	 * The source of randomness for placing spam. Games created with the same seed
+	 * place their spam in the same places.
+	 */
+	private final SplittableRandom random;
+
 	/* -------------------------------------- */
 	/* Constructor and initialization methods */
 	/* -------------------------------------- */
@@ -63,52 +110,38 @@ class SpampedeData {
 	 * Creates a new "board" with walls on the boundary and open in the interior.
 	 */
 	public SpampedeData() {
-		int height = Preferences.NUM_CELLS_TALL;
-		int width = Preferences.NUM_CELLS_WIDE;
-		this.boardCells2D = new BoardCell[height][width];
-
-		// Place walls around the outside
-		this.addWalls();
-
-		// Fill the remaining cells not already filled!
-		this.fillRemainingCells();
+		this(new SplittableRandom());
 	}
 
 	/**
-	 * Adds walls around the edges of this board.
+	 * Creates a new "board" with walls on the boundary and open in the interior,
+	 * which uses the given source of randomness to place spam.
 	 */
-	private void addWalls() {
-		int height = this.getNumRows();
-		int width = this.getNumColumns();
-
-		// Add left and right walls
-		for (int row = 0; row < height; row++) {
-			this.boardCells2D[row][0] = new BoardCell(row, 0, CellType.WALL);
-			this.boardCells2D[row][width - 1] = new BoardCell(row, width - 1, CellType.WALL);
-		}
-		// Add top and bottom walls
-		for (int column = 0; column < width; column++) {
-			this.boardCells2D[0][column] = new BoardCell(0, column, CellType.WALL);
-			this.boardCells2D[height - 1][column] = new BoardCell(height - 1, column, CellType.WALL);
-		}
+	public SpampedeData(SplittableRandom random) {
+		this(GameConfig.DEFAULT, random);
 	}
 
 	/**
-	 * Adds open cells to the interior of this board.
+	 * Creates a new "board" of the size given by config, which uses the given
+	 * source of randomness to place spam.
 	 */
-	private void fillRemainingCells() {
-		int height = this.getNumRows();
-		int width = this.getNumColumns();
+	public SpampedeData(GameConfig config, SplittableRandom random) {
+		this(config.getNumRows(), config.getNumColumns(), random);
+	}
 
-		this.freeSpots = 0;
-		for (int row = 0; row < height; row++) {
-			for (int column = 0; column < width; column++) {
-				if (this.boardCells2D[row][column] == null) {
-					this.boardCells2D[row][column] = new BoardCell(row, column, CellType.OPEN);
-					this.freeSpots++;
-				}
-			}
-		}
+	/**
+	 * Creates a new "board" of the given size (including walls) with walls on the
+	 * boundary and open in the interior, which uses the given source of
+	 * randomness to place spam.
+	 */
+	SpampedeData(int height, int width, SplittableRandom random) {
+		// Walls go around the outside, and the remaining cells are open
+		this.board = new Board(height, width);
+		this.openCells = new CellTypeIndex(this.board, CellType.OPEN);
+		this.board.addListener(this.openCells);
+		this.spamCells = this.openCells.indexAlso(CellType.SPAM);
+		this.snakeCells = new SnakeBody(this.board.size());
+		this.random = random;
 	}
 
 	/**
@@ -117,8 +150,8 @@ class SpampedeData {
 	public void placeSnakeAtStartLocation() {
 		BoardCell body = this.getCell(1, 1);
 		BoardCell head = this.getCell(1, 2);
-		this.snakeCells.addLast(body);
-		this.snakeCells.addLast(head);
+		this.snakeCells.addHead(body.getIndex());
+		this.snakeCells.addHead(head.getIndex());
 		head.becomeHead();
 		body.becomeBody();
 	}
@@ -131,21 +164,42 @@ class SpampedeData {
 	 * Returns true if we are in AI mode.
 	 */
 	public boolean inAImode() {
-		return this.currentMode == SnakeMode.AI_MODE;
+		return this.currentMode.isAI();
 	}
 
 	/**
 	 * Returns the height of this board (including walls) in cells.
 	 */
 	public int getNumRows() {
-		return this.boardCells2D.length;
+		return this.board.getNumRows();
 	}
 
 	/**
 	 * Returns the width of this board (including walls) in cells.
 	 */
 	public int getNumColumns() {
-		return this.boardCells2D[0].length;
+		return this.board.getNumColumns();
+	}
+
+	/**
+	 * Returns the board holding the contents of every cell.
+	 */
+	Board getBoard() {
+		return this.board;
+	}
+
+	/**
+	 * Returns the cells that contain spam, in no particular order.
+	 */
+	CellTypeIndex getSpamCells() {
+		return this.spamCells;
+	}
+
+	/**
+	 * Returns the current movement mode of the snake.
+	 */
+	SnakeMode getMode() {
+		return this.currentMode;
 	}
 
 	/**
@@ -162,7 +216,7 @@ class SpampedeData {
 			System.err.println("row: " + r + " col: " + c);
 			System.exit(0);
 		}
-		return this.boardCells2D[r][c];
+		return this.board.getCell(r, c);
 	}
 
 	/* ------------------------------ */
@@ -177,8 +231,7 @@ class SpampedeData {
 	 * @return the color of cell at row r and column c
 	 */
 	public Color getCellColor(int row, int col) {
-		BoardCell cell = getCell(row, col);
-		return cell.getCellColor();
+		return BoardCell.getColor(this.board.getType(this.board.index(row, col)));
 	}
 
 	/* ---------------- */
@@ -207,45 +260,48 @@ class SpampedeData {
 	 * Returns true if there is zero spam.
 	 */
 	public boolean noSpam() {
-		return this.spamCells.isEmpty();
+		return this.spamCells.size() == 0;
 	}
 
 	/**
 	 * Adds spam to a random open spot.
+	 * 
+	 * <p>
+	 * The spot is picked uniformly from the index of open cells, so this takes
+	 * constant time no matter how full the board is. If the board is already
+	 * too full, no spam is added; GameEngine counts that as SPAM_SKIPPED rather
+	 * than printing, since it happens on every due spam once the board fills up.
+	 * </p>
+	 * 
+	 * @return true if spam was added, false if the board was too full
 	 */
-	public void addSpam() {
-		// Pick a random cell
-		int row = (int) (this.getNumRows() * Math.random());
-		int column = (int) (this.getNumColumns() * Math.random());
-		BoardCell cell = this.getCell(row, column);
-
-		if (cell.isOpen()) {
-			// If the random cell is open, put spam there
-			cell.becomeSpam();
-			spamCells.addLast(cell);
-		} else {
-			// If the random cell is occupied and this board is not already
-			// too full of spam, try to place spam again
-			double totalSize = this.getNumColumns() * this.getNumRows();
-			double currentFreeSpots = this.freeSpots - this.snakeCells.size() - this.spamCells.size();
-			double ratioFree = currentFreeSpots / totalSize;
-			if (ratioFree < 0.2) {
-				System.err.println("Not adding more spam");
-			} else {
-				addSpam();
-			}
+	public boolean addSpam() {
+		double totalSize = this.getNumColumns() * this.getNumRows();
+		double ratioFree = this.openCells.size() / totalSize;
+		if (this.openCells.size() == 0 || ratioFree < 0.2) {
+			return false;
 		}
+
+		this.addSpam(this.openCells.randomCell(this.random));
+		return true;
 	}
 
 	/**
-	 * Removes the oldest piece of un-eaten spam.
+	 * Adds spam to the given open cell.
 	 * 
+	 * @param index the index of the cell within the board
 	 */
-	@SuppressWarnings("unused")
-	private void removeSpam() {
-		if (!spamCells.isEmpty()) {
-			spamCells.peekFirst().becomeOpen();
-			spamCells.removeFirst();
+	void addSpam(int index) {
+		this.board.becomeSpam(index);
+	}
+
+	/**
+	 * Removes a piece of un-eaten spam.
+	 * 
+	 */
+	void removeSpam() {
+		if (this.spamCells.size() > 0) {
+			this.board.becomeOpen(this.spamCells.get(0));
 		}
 	}
 
@@ -257,22 +313,28 @@ class SpampedeData {
 	 * Returns the cell containing the snake's head.
 	 */
 	public BoardCell getSnakeHead() {
-		return this.snakeCells.peekLast();
+		return this.board.getCell(this.snakeCells.getHead());
 	}
 
 	/**
 	 * Returns the cell containing the snake's tail.
 	 */
 	public BoardCell getSnakeTail() {
-		return this.snakeCells.peekFirst();
+		return this.board.getCell(this.snakeCells.getTail());
 	}
 
 	/**
 	 * Returns the cell contains the snake body adjacent to the head.
 	 */
 	public BoardCell getSnakeNeck() {
-		int lastSnakeCellIndex = this.snakeCells.size() - 1;
-		return this.snakeCells.get(lastSnakeCellIndex - 1);
+		return this.board.getCell(this.snakeCells.getNeck());
+	}
+
+	/**
+	 * Returns the cells of the snake, from tail to head.
+	 */
+	SnakeBody getSnakeBody() {
+		return this.snakeCells;
 	}
 
 	/* ------------------------------------------ */
@@ -314,6 +376,48 @@ class SpampedeData {
 		this.currentMode = SnakeMode.AI_MODE;
 	}
 
+	/**
+	 * Makes the snake switch to the AI mode that follows the distance field.
+	 */
+	public void setMode_AIDistance() {
+		this.currentMode = SnakeMode.AI_DISTANCE_MODE;
+	}
+
+	/**
+	 * Makes the snake switch to the AI mode that only takes safe paths to spam.
+	 */
+	public void setMode_AISafe() {
+		this.currentMode = SnakeMode.AI_SAFE_MODE;
+	}
+
+	/**
+	 * Makes the snake switch to the AI mode that follows a Hamiltonian cycle.
+	 */
+	public void setMode_AIHamiltonian() {
+		this.currentMode = SnakeMode.AI_HAMILTONIAN_MODE;
+	}
+
+	/**
+	 * Makes the snake switch to the AI mode that uses A* search.
+	 */
+	public void setMode_AIAStar() {
+		this.currentMode = SnakeMode.AI_ASTAR_MODE;
+	}
+
+	/**
+	 * Makes the snake switch to the AI mode that uses the bitset search.
+	 */
+	public void setMode_AIBitset() {
+		this.currentMode = SnakeMode.AI_BITSET_MODE;
+	}
+
+	/**
+	 * Switches the snake to the given movement mode.
+	 */
+	public void setMode(SnakeMode mode) {
+		this.currentMode = mode;
+	}
+
 	/**
 	 * Picks an initial movement mode for the snake.
 	 */
@@ -331,7 +435,17 @@ class SpampedeData {
 	 * @param cell The next cell
 	 */
 	public void moveSnakeForward(BoardCell cell) {
-		this.updateSnakeCellsForSpam(cell);
+		this.updateSnakeCellsForSpam(cell.getIndex());
+	}
+
+	/**
+	 * Same as moveSnakeForward(BoardCell), but takes the index of the next cell
+	 * within the board.
+	 * 
+	 * @param index The index of the next cell
+	 */
+	public void moveSnakeForward(int index) {
+		this.updateSnakeCellsForSpam(index);
 	}
 
 	/* -------------------------------------- */
@@ -345,21 +459,22 @@ class SpampedeData {
 	 */
 
 	/**
-	 * Updates the snakeCells LinkedList depending on whether the snake head has a
-	 * spam or not. Regardless of there being a spam or not, we add the cell to
-	 * snakeCells. If there was a spam, we leave snakeCells as is. If not, we remove
-	 * the first element of snakeCells.
+	 * Updates snakeCells depending on whether the snake head has a spam or not.
+	 * Regardless of there being a spam or not, we add the cell to snakeCells as the
+	 * new head. If there was a spam, we leave the rest of snakeCells as is (and the
+	 * spam leaves spamCells when the cell becomes the head). If not, we remove
+	 * the tail of snakeCells.
 	 */
-	private void updateSnakeCellsForSpam(BoardCell cell) {
-		snakeCells.addLast(cell);
+	private void updateSnakeCellsForSpam(int cell) {
+		boolean ateSpam = this.board.isSpam(cell);
+		snakeCells.addHead(cell);
 
-		if (!cell.isSpam()) { // remove tail if no spam was eaten
-			this.getSnakeTail().becomeOpen();
-			snakeCells.removeFirst();
+		if (!ateSpam) { // remove tail if no spam was eaten
+			this.board.becomeOpen(snakeCells.removeTail());
 		}
 
-		this.getSnakeNeck().becomeBody(); // we just change CellType if spam is eaten
-		snakeCells.peekLast().becomeHead();
+		this.board.becomeBody(snakeCells.getNeck()); // we just change CellType if spam is eaten
+		this.board.becomeHead(cell);
 	}
 
 	/**
@@ -406,28 +521,28 @@ class SpampedeData {
 	 * Returns the cell north of the snake's head.
 	 */
 	protected BoardCell getNorthNeighbor() {
-		return this.getNorthNeighbor(this.getSnakeHead());
+		return this.board.getCell(this.board.north(this.snakeCells.getHead()));
 	}
 
 	/**
 	 * Returns the cell south of the snake's head.
 	 */
 	protected BoardCell getSouthNeighbor() {
-		return this.getSouthNeighbor(this.getSnakeHead());
+		return this.board.getCell(this.board.south(this.snakeCells.getHead()));
 	}
 
 	/**
 	 * Returns the cell east of the snake's head.
 	 */
 	protected BoardCell getEastNeighbor() {
-		return this.getEastNeighbor(this.getSnakeHead());
+		return this.board.getCell(this.board.east(this.snakeCells.getHead()));
 	}
 
 	/**
 	 * Returns the cell west of the snake's head.
 	 */
 	protected BoardCell getWestNeighbor() {
-		return this.getWestNeighbor(this.getSnakeHead());
+		return this.board.getCell(this.board.west(this.snakeCells.getHead()));
 	}
 
 	/**
@@ -448,10 +563,59 @@ class SpampedeData {
 		}
 	}
 
+	/**
+	 * Same as getNextCellInDir, but returns the index of the cell within the
+	 * board.
+	 */
+	public int getNextCellIndexInDir() {
+		int head = this.snakeCells.getHead();
+		switch (this.currentMode) {
+		case GOING_WEST:
+			return this.board.west(head);
+		case GOING_NORTH:
+			return this.board.north(head);
+		case GOING_SOUTH:
+			return this.board.south(head);
+		default:
+			return this.board.east(head);
+		}
+	}
+
 	/* -------------------------------------- */
 	/* Methods to support movement with AI */
 	/* -------------------------------------- */
 
+	/**
+	 * Asks the AI of the current mode where the snake head should move next. This
+	 * method should only be called when in AI mode.
+	 * 
+	 * @return the cell to move the snake head to
+	 */
+	public BoardCell getNextCellFromAI() {
+		return this.board.getCell(this.getNextCellIndexFromAI());
+	}
+
+	/**
+	 * Same as getNextCellFromAI, but returns the index of the cell within the
+	 * board.
+	 */
+	public int getNextCellIndexFromAI() {
+		switch (this.currentMode) {
+		case AI_DISTANCE_MODE:
+			return this.getNextCellIndexFromDistanceField();
+		case AI_SAFE_MODE:
+			return this.getNextCellIndexFromSafePlanner();
+		case AI_HAMILTONIAN_MODE:
+			return this.getNextCellIndexFromHamiltonianCycle();
+		case AI_ASTAR_MODE:
+			return this.getNextCellIndexFromAStar();
+		case AI_BITSET_MODE:
+			return this.getNextCellIndexFromBitset();
+		default:
+			return this.getNextCellIndexFromPathCache();
+		}
+	}
+
 	/**
 	 * Searches for the spam closest to the snake head using BFS.
 	 * 
@@ -459,37 +623,214 @@ class SpampedeData {
 	 *         along the shortest path to (the nearest) spam cell
 	 */
 	public BoardCell getNextCellFromBFS() {
-		// initialize the search
-		this.resetCellsForNextSearch();
-
-		// initialize the cellsToSearch queue with the snake head;
-		// as with any cell, we mark the head cells as having been added
-		// to the queue
-		Queue<BoardCell> cellsToSearch = new LinkedList<BoardCell>();
-		BoardCell snakeHead = this.getSnakeHead();
-		snakeHead.setAddedToSearchList();
-		cellsToSearch.add(snakeHead);
-
-		// search!
-		while (!cellsToSearch.isEmpty()) { // follow the queue method shown on the slides!
-			BoardCell frontOfQueue = cellsToSearch.remove();
-
-			if (frontOfQueue.isSpam()) { // we have found our spam!
-				return this.getFirstCellInPath(frontOfQueue);
-			}
+		return this.board.getCell(this.getNextCellIndexFromBFS());
+	}
 
-			BoardCell[] neighbors = this.getNeighbors(frontOfQueue);
-			for (BoardCell neighbor : neighbors) {
-				if (!neighbor.inSearchListAlready() && neighbor.isOpen()) { // no cycles!
-					cellsToSearch.add(neighbor);
-					neighbor.setAddedToSearchList();
-					neighbor.setParent(frontOfQueue);
-				}
-			}
+	/**
+	 * Same as getNextCellFromBFS, but returns the index of the cell within the
+	 * board. The search reuses the board's preallocated BreadthFirstSearch, so
+	 * this method does not allocate.
+	 */
+	public int getNextCellIndexFromBFS() {
+		BreadthFirstSearch search = this.board.getSearch();
+		int snakeHead = this.snakeCells.getHead();
+
+		// search! (the engine marks the head as visited before expanding it)
+		int closestSpam = search.searchForSpam(snakeHead);
+		if (closestSpam >= 0) { // we have found our spam!
+			return this.getFirstCellInPath(closestSpam);
 		}
 
 		// if the search fails, just move somewhere
-		return this.getRandomNeighboringCell(snakeHead);
+		return this.getRandomNeighboringCellIndex(snakeHead);
+	}
+
+	/**
+	 * Same as getNextCellIndexFromBFS, but keeps the whole path found by the
+	 * search and follows it on later moves without searching again, until it is
+	 * blocked, its spam disappears or closer spam may have appeared (see
+	 * PathCache). This is what AI_MODE uses.
+	 * 
+	 * @return the index of the cell to move the snake head to
+	 */
+	public int getNextCellIndexFromPathCache() {
+		if (this.pathCache == null) {
+			this.pathCache = new PathCache(this.board);
+			this.board.addListener(this.pathCache);
+		}
+		int snakeHead = this.snakeCells.getHead();
+		int next = this.pathCache.getNextCell(snakeHead);
+		if (next >= 0) {
+			return next;
+		}
+
+		BreadthFirstSearch search = this.board.getSearch();
+		int closestSpam = search.searchForSpam(snakeHead);
+		if (closestSpam >= 0) {
+			return this.pathCache.plan(search, snakeHead, closestSpam);
+		}
+
+		// if the search fails, just move somewhere
+		return this.getRandomNeighboringCellIndex(snakeHead);
+	}
+
+	/**
+	 * Same as getNextCellIndexFromBFS, but finds the shortest path to the closest
+	 * spam with an A* search (see AStarSearch), which expands far fewer cells
+	 * when the spam is far away on a large board. With more than
+	 * AStarSearch.MAX_TARGETS pieces of spam it is a breadth-first search.
+	 * 
+	 * @return the index of the cell to move the snake head to
+	 */
+	public int getNextCellIndexFromAStar() {
+		// with much spam, the heuristic costs more than a breadth-first search
+		if (this.spamCells.size() > AStarSearch.MAX_TARGETS) {
+			return this.getNextCellIndexFromBFS();
+		}
+		if (this.aStarSearch == null) {
+			this.aStarSearch = new AStarSearch(this.board);
+		}
+		int count = this.spamCells.size();
+		for (int i = 0; i < count; i++) {
+			this.aStarTargets[i] = this.spamCells.get(i);
+		}
+
+		int snakeHead = this.snakeCells.getHead();
+		int closestSpam = this.aStarSearch.search(snakeHead, this.aStarTargets, count);
+		if (closestSpam >= 0) {
+			return this.aStarSearch.getFirstStep(closestSpam);
+		}
+
+		// if the search fails, just move somewhere
+		return this.getRandomNeighboringCellIndex(snakeHead);
+	}
+
+	/**
+	 * Same as getNextCellIndexFromBFS, but floods the board 64 cells at a time
+	 * (see BitsetSearch), which pays off on boards thousands of cells wide.
+	 * 
+	 * @return the index of the cell to move the snake head to
+	 */
+	public int getNextCellIndexFromBitset() {
+		if (this.bitsetSearch == null) {
+			this.bitsetSearch = new BitsetSearch(this.board);
+			this.board.addListener(this.bitsetSearch);
+		}
+		int snakeHead = this.snakeCells.getHead();
+		int next = this.bitsetSearch.getFirstStep(snakeHead);
+		if (next >= 0) {
+			return next;
+		}
+
+		// if the search fails, just move somewhere
+		return this.getRandomNeighboringCellIndex(snakeHead);
+	}
+
+	/**
+	 * Returns the number of cells expanded by the searches of the AIs so far. The
+	 * bitset search floods whole words rather than cells, and is left out.
+	 */
+	long getNodesExpanded() {
+		long total = this.board.getNodesExpanded();
+		if (this.safePlanner != null) {
+			total += this.safePlanner.getNodesExpanded();
+		}
+		if (this.aStarSearch != null) {
+			total += this.aStarSearch.getNodesExpanded();
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the path cache of AI_MODE (or null if AI_MODE has not been used).
+	 */
+	PathCache getPathCache() {
+		return this.pathCache;
+	}
+
+	/**
+	 * Returns the A* search engine (or null if AI_ASTAR_MODE has not been used).
+	 */
+	AStarSearch getAStarSearch() {
+		return this.aStarSearch;
+	}
+
+	/**
+	 * Returns the bitset search engine (or null if AI_BITSET_MODE has not been
+	 * used).
+	 */
+	BitsetSearch getBitsetSearch() {
+		return this.bitsetSearch;
+	}
+
+	/**
+	 * Moves the snake head to its neighbor with the shortest distance to spam.
+	 * 
+	 * <p>
+	 * Unlike getNextCellFromBFS, this does not search the board: the distance
+	 * field is repaired incrementally whenever cells change, so the cost per move
+	 * is nearly constant. Ties are broken north, south, east, west.
+	 * </p>
+	 * 
+	 * @return the index of the cell to move the snake head to
+	 */
+	public int getNextCellIndexFromDistanceField() {
+		if (this.distanceField == null) {
+			this.distanceField = new DistanceField(this.board);
+			this.board.addListener(this.distanceField);
+		}
+		int snakeHead = this.snakeCells.getHead();
+		int next = this.distanceField.getClosestNeighbor(snakeHead);
+		if (next >= 0) {
+			return next;
+		}
+
+		// if no spam can be reached, just move somewhere
+		return this.getRandomNeighboringCellIndex(snakeHead);
+	}
+
+	/**
+	 * Moves the snake head along the shortest path to spam if, after eating it,
+	 * the snake could still reach its tail; otherwise follows the tail (see
+	 * SafePlanner).
+	 * 
+	 * @return the index of the cell to move the snake head to
+	 */
+	public int getNextCellIndexFromSafePlanner() {
+		if (this.safePlanner == null) {
+			this.safePlanner = new SafePlanner(this.board, this.snakeCells);
+		}
+		int next = this.safePlanner.getNextCell();
+		if (next >= 0) {
+			return next;
+		}
+
+		// if every move is a trap, just move somewhere
+		return this.getRandomNeighboringCellIndex(this.snakeCells.getHead());
+	}
+
+	/**
+	 * Moves the snake head to the next cell of a Hamiltonian cycle through the
+	 * board, or further ahead along the cycle while the snake is short (see
+	 * HamiltonianPlanner). Boards without such a cycle (an odd number of rows
+	 * and columns inside the walls) use the safe planner instead.
+	 * 
+	 * <p>
+	 * The snake only stays safe if it has followed the cycle since the start of
+	 * the game, so switching to this mode in the middle of a game (or reversing
+	 * the snake) can still end it.
+	 * </p>
+	 * 
+	 * @return the index of the cell to move the snake head to
+	 */
+	public int getNextCellIndexFromHamiltonianCycle() {
+		if (this.hamiltonianPlanner == null) {
+			this.hamiltonianPlanner = new HamiltonianPlanner(this.board, this.snakeCells, this.spamCells);
+		}
+		if (!this.hamiltonianPlanner.hasCycle()) {
+			return this.getNextCellIndexFromSafePlanner();
+		}
+		return this.hamiltonianPlanner.getNextCell();
 	}
 
 	/**
@@ -503,23 +844,9 @@ class SpampedeData {
 	 * @return the cell to move the snake head to, which should be a neighbor of the
 	 *         head
 	 */
-	private BoardCell getFirstCellInPath(BoardCell start) {
-		// recursive or looping solutions are possible
-		BoardCell checkCell = start;
-
-		if (this.noSpam()) { // if there are no spam, there is no automatic path to a spam...
-			return null;
-		}
-
-		if (checkCell == this.getSnakeHead()) { // if the spam is on snakeHead, just return snakeHead
-			return checkCell;
-		}
-
-		while (checkCell.getParent() != this.getSnakeHead()) { // the shortest path to spam!
-			checkCell = checkCell.getParent();
-		}
-
-		return checkCell;
+	private int getFirstCellInPath(int start) {
+		// if the spam is on snakeHead, the engine just returns snakeHead
+		return this.board.getSearch().getFirstStep(start);
 	}
 
 	/* -------------------------------------------------- */
@@ -550,6 +877,21 @@ class SpampedeData {
 		return neighborsArray[0];
 	}
 
+	/**
+	 * Same as getRandomNeighboringCell, but takes and returns the index of the
+	 * cell within the board.
+	 */
+	private int getRandomNeighboringCellIndex(int start) {
+		this.board.getNeighbors(start, this.neighbors);
+		for (int neighbor : this.neighbors) {
+			if (this.board.isOpen(neighbor)) {
+				return neighbor;
+			}
+		}
+		// if we did not find an open space, return the first neighbor
+		return this.neighbors[0];
+	}
+
 	/* ---------------------------- */
 	/* Helper method(s) for reverse */
 	/* ---------------------------- */
@@ -559,40 +901,38 @@ class SpampedeData {
 	 */
 	public void reverseSnake() {
 		// Step 1: unlabel the head
-		this.getSnakeHead().becomeBody();
+		this.board.becomeBody(this.snakeCells.getHead());
 
-		// Step 2: reverse the body parts
-		int snakeSize = snakeCells.size(); // we don't want snakeSize to change as we remove cells
-		LinkedList<BoardCell> newSnakeCells = new LinkedList<BoardCell>();
-		for (int i = 0; i < snakeSize; i++) {
-			newSnakeCells.addFirst(snakeCells.remove());
-		}
-
-		this.snakeCells = newSnakeCells;
+		// Step 2: reverse the body parts (the ring buffer just swaps its ends)
+		this.snakeCells.reverse();
 
 		// Step 3: relabel the head
-		this.snakeCells.peekLast().becomeHead();
+		this.board.becomeHead(this.snakeCells.getHead());
 
 		// Step 4: calculate the new direction after reversing!
 		// We check the position of the new head and neck!
 		// We base the snake's movement based on the position of the head relative to
 		// its neck.
-		if (this.getSnakeHead().getRow() == this.getSnakeNeck().getRow()) {
-			if (this.getSnakeHead().getColumn() < this.getSnakeNeck().getColumn()) {
+		int headRow = this.board.rowOf(this.snakeCells.getHead());
+		int headColumn = this.board.columnOf(this.snakeCells.getHead());
+		int neckRow = this.board.rowOf(this.snakeCells.getNeck());
+		int neckColumn = this.board.columnOf(this.snakeCells.getNeck());
+		if (headRow == neckRow) {
+			if (headColumn < neckColumn) {
 				this.setDirectionWest();
 			}
 
-			if (this.getSnakeHead().getColumn() > this.getSnakeNeck().getColumn()) {
+			if (headColumn > neckColumn) {
 				this.setDirectionEast();
 			}
 		}
 
-		if (this.getSnakeHead().getColumn() == this.getSnakeNeck().getColumn()) {
-			if (this.getSnakeHead().getRow() > this.getSnakeNeck().getRow()) {
+		if (headColumn == neckColumn) {
+			if (headRow > neckRow) {
 				this.setDirectionSouth();
 			}
 
-			if (this.getSnakeHead().getRow() < this.getSnakeNeck().getRow()) {
+			if (headRow < neckRow) {
 				this.setDirectionNorth();
 			}
 		}
@@ -603,15 +943,11 @@ class SpampedeData {
 	/* ------------------------------------- */
 
 	/**
-	 * Clears the search-related fields in all the cells, in preparation for a new
-	 * breadth-first search.
+	 * Clears the search-related info of all the cells, in preparation for a new
+	 * breadth-first search. This takes O(1) time.
 	 */
 	public void resetCellsForNextSearch() {
-		for (BoardCell[] row : this.boardCells2D) {
-			for (BoardCell cell : row) {
-				cell.clear_RestartSearch();
-			}
-		}
+		this.board.getSearch().reset();
 	}
 	
 	
@@ -621,127 +957,27 @@ class SpampedeData {
 
 	// Constructor used exclusively for testing!
 	public SpampedeData(TestGame gameNum) {
-		this.boardCells2D = new BoardCell[6][6];
-		this.addWalls();
-		this.fillRemainingCells();
+		this(6, 6, new SplittableRandom());
+		BoardText.parseInto(gameNum.getText(), this);
 		if (gameNum.snakeAtStart()) {
-			this.testing_snakeAtStartLocation(gameNum);
 			this.setDirectionEast();
-		} else {
-			this.testing_snakeNotAtStartLocation(gameNum);
-		}
-
-	}
-
-	private void testing_snakeAtStartLocation(TestGame gameNum) {
-		this.placeSnakeAtStartLocation();
-		if (gameNum == TestGame.G1) {
-			this.getCell(1, 3).becomeSpam();
-		} else if (gameNum == TestGame.G2) {
-			this.getCell(2, 2).becomeSpam();
-		} else if (gameNum == TestGame.G3) {
-			this.getCell(1, 4).becomeSpam();
-		} else if (gameNum == TestGame.G4) {
-			this.getCell(2, 1).becomeSpam();
-		} else if (gameNum == TestGame.G5) {
-			this.getCell(4, 1).becomeSpam();
-		} else if (gameNum == TestGame.G6) {
-			this.getCell(1, 3).becomeSpam();
-			this.getCell(3, 1).becomeSpam();
-		} else if (gameNum == TestGame.G7) {
-			this.getCell(2, 2).becomeSpam();
-			this.getCell(1, 4).becomeSpam();
-		} else if (gameNum == TestGame.G8) {
-			this.getCell(1, 4).becomeSpam();
-			this.getCell(4, 2).becomeSpam();
-		} else if (gameNum == TestGame.G9) {
-			this.getCell(2, 1).becomeSpam();
-			this.getCell(2, 4).becomeSpam();
-		} else if (gameNum == TestGame.G10) {
-			this.getCell(4, 1).becomeSpam();
-			this.getCell(4, 4).becomeSpam();
-		} else if (gameNum == TestGame.G11) {
-			// No spam :)
-		}
-		// Add all spam to the spam cells
-		int height = this.getNumRows();
-		int width = this.getNumColumns();
-		for (int row = 0; row < height; row++) {
-			for (int column = 0; column < width; column++) {
-				BoardCell cell = this.getCell(row, column);
-				if (cell.isSpam()) {
-					this.spamCells.add(cell);
-				}
-			}
-		}
-	}
-
-	private void testing_snakeNotAtStartLocation(TestGame gameNum) {
-		if (gameNum == TestGame.G12) {
-			BoardCell body2 = this.getCell(2, 3);
-			BoardCell body1 = this.getCell(2, 2);
-			BoardCell head = this.getCell(2, 1);
-			this.snakeCells.add(body2);
-			this.snakeCells.add(body1);
-			this.snakeCells.add(head);
-			head.becomeHead();
-			body2.becomeBody();
-			body1.becomeBody();
-		} else if (gameNum == TestGame.G13) {
-			BoardCell body2 = this.getCell(3, 2);
-			BoardCell body1 = this.getCell(2, 2);
-			BoardCell head = this.getCell(2, 1);
-			this.snakeCells.add(body2);
-			this.snakeCells.add(body1);
-			this.snakeCells.add(head);
-			head.becomeHead();
-			body2.becomeBody();
-			body1.becomeBody();
-		} else if (gameNum == TestGame.G14) {
-			BoardCell body2 = this.getCell(2, 2);
-			BoardCell body1 = this.getCell(3, 2);
-			BoardCell head = this.getCell(3, 1);
-			this.snakeCells.add(body2);
-			this.snakeCells.add(body1);
-			this.snakeCells.add(head);
-			head.becomeHead();
-			body2.becomeBody();
-			body1.becomeBody();
-		} else if (gameNum == TestGame.G15) {
-			BoardCell body2 = this.getCell(3, 2);
-			BoardCell body1 = this.getCell(3, 3);
-			BoardCell head = this.getCell(3, 4);
-			this.snakeCells.add(body2);
-			this.snakeCells.add(body1);
-			this.snakeCells.add(head);
-			head.becomeHead();
-			body2.becomeBody();
-			body1.becomeBody();
 		}
 	}
 
+	/**
+	 * Returns the board as text, one character per cell (see BoardText). This
+	 * takes time linear in the size of the board.
+	 */
 	public String toString() {
-		String result = "";
-		for (int r = 0; r < this.getNumRows(); r++) {
-			for (int c = 0; c < this.getNumColumns(); c++) {
-				BoardCell cell = this.getCell(r, c);
-				result += cell.toStringType();
-			}
-			result += "\n";
-		}
-		return result;
+		return BoardText.encode(this);
 	}
 
+	/**
+	 * Returns the parent of every cell in the latest search, as text (see
+	 * BoardText). This takes time linear in the size of the board.
+	 */
 	public String toStringParents() {
-		String result = "";
-		for (int r = 0; r < this.getNumRows(); r++) {
-			for (int c = 0; c < this.getNumColumns(); c++) {
-				BoardCell cell = this.getCell(r, c);
-				result += cell.toStringParent() + "\t";
-			}
-			result += "\n";
-		}
-		return result;
+		return BoardText.encodeParents(this);
 	}
 
 }
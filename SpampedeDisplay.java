@@ -3,16 +3,44 @@ package com.gradescope.spampede;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 
 /**
  * The "view" in MVC that is responsible for drawing the board on the screen.
  * 
+ * <p>
+ * The display draws FrameSnapshots rather than the game itself, so it can run
+ * on another thread than the game (e.g. the Swing event thread) without ever
+ * seeing a step half done. It remembers the cells it last drew, and only
+ * redraws the ones that differ in the next snapshot.
+ * </p>
+ * 
+ * <p>
+ * Only the part of the board in the Viewport is drawn, at its zoom: a huge
+ * board zoomed out is drawn from the tiles of a coarser level of detail of the
+ * snapshot, so the cost of a frame depends on the size of the display rather
+ * than of the board.
+ * </p>
+ * 
+ * <p>
+ * A display created with a BufferedImage of TYPE_INT_RGB (the raster renderer)
+ * writes every cell as a block of pixels straight into the int[] behind the
+ * image, rather than with a setColor and a fillRect per cell. Only the title,
+ * the picture and the game-over message go through Graphics.
+ * </p>
+ * 
  * @author Isaac Chung with the help of professors
  */
 class SpampedeDisplay {
 
-	/** The board/spampede data being drawn. */
-	private final SpampedeData theData;
+	/**
+	 * The snapshots of the game, if this display was created with the game (see
+	 * updateGraphics()), or null.
+	 */
+	private final FrameBuffer frames;
 
 	/** The display where the board is drawn. */
 	private final Graphics theScreen;
@@ -23,11 +51,42 @@ class SpampedeDisplay {
 	/** The height of the display in pixels. */
 	private final int height;
 
+	/** The size of the board and of its cells. */
+	private final GameConfig config;
+
 	/** A picture of a can of spam. */
 	public static Image imageSpam;
 
 	/**
-	 * Creates a new SpampedeDisplay.
+	 * The pixels of the image drawn into, one int (0xRRGGBB) per pixel row by
+	 * row, if cells are written straight into them, or null.
+	 */
+	private final int[] pixels;
+
+	/** The color of each type of cell, as an int pixel (indexed by ordinal). */
+	private final int[] cellPixels = new int[CellType.values().length];
+
+	/** The part of the board shown, and how big it is drawn. */
+	private Viewport viewport;
+
+	/**
+	 * The type of every tile in view as last drawn, row by row (or null before
+	 * the first frame).
+	 */
+	private byte[] drawnTiles;
+
+	/** The change count of the viewport when drawnTiles were drawn. */
+	private int drawnView;
+
+	/** Whether the whole display must be redrawn on the next update. */
+	private boolean fullRedraw = true;
+
+	/** The part of the display (in pixels) changed by the last update. */
+	private final Rectangle dirtyRegion = new Rectangle();
+
+	/**
+	 * Creates a new SpampedeDisplay of the given game, which draws the game as it
+	 * is whenever updateGraphics() is called.
 	 * 
 	 * @param theBoard  the data being displayed
 	 * @param theScreen the display on which to draw the board
@@ -35,10 +94,70 @@ class SpampedeDisplay {
 	 * @param height    the height of the display (in pixels)
 	 */
 	public SpampedeDisplay(SpampedeData theBoard, Graphics theScreen, int width, int height) {
+		this(theBoard, theScreen, width, height, GameConfig.DEFAULT);
+	}
+
+	/**
+	 * Creates a new SpampedeDisplay of the given game, on a board of the size
+	 * given by config, which draws the game as it is whenever updateGraphics()
+	 * is called.
+	 * 
+	 * @param theBoard  the data being displayed
+	 * @param theScreen the display on which to draw the board
+	 * @param width     the width of the display (in pixels)
+	 * @param height    the height of the display (in pixels)
+	 * @param config    the size of the board and of its cells
+	 */
+	public SpampedeDisplay(SpampedeData theBoard, Graphics theScreen, int width, int height, GameConfig config) {
+		this(new FrameBuffer(theBoard), theScreen, null, width, height, config);
+	}
+
+	/**
+	 * Creates a new SpampedeDisplay that draws the snapshots handed to
+	 * updateGraphics(FrameSnapshot), of a board of the size given by config.
+	 * 
+	 * @param theScreen the display on which to draw the board
+	 * @param width     the width of the display (in pixels)
+	 * @param height    the height of the display (in pixels)
+	 * @param config    the size of the board and of its cells
+	 */
+	public SpampedeDisplay(Graphics theScreen, int width, int height, GameConfig config) {
+		this(null, theScreen, null, width, height, config);
+	}
+
+	/**
+	 * Creates a new SpampedeDisplay that draws the snapshots handed to
+	 * updateGraphics(FrameSnapshot) straight into the pixels of the given image.
+	 * 
+	 * @param image  the image drawn into, which is the size of the display
+	 * @param config the size of the board and of its cells
+	 * @throws IllegalArgumentException if the image is not of TYPE_INT_RGB
+	 */
+	public SpampedeDisplay(BufferedImage image, GameConfig config) {
+		this(null, image.createGraphics(), pixelsOf(image), image.getWidth(), image.getHeight(), config);
+	}
+
+	private SpampedeDisplay(FrameBuffer frames, Graphics theScreen, int[] pixels, int width, int height,
+			GameConfig config) {
+		this.frames = frames;
 		this.theScreen = theScreen;
-		this.theData = theBoard;
+		this.pixels = pixels;
 		this.height = height;
 		this.width = width;
+		this.config = config;
+		this.viewport = new Viewport(config.getNumRows(), config.getNumColumns(), config.getCellSize(), width,
+				height);
+		for (CellType type : CellType.values()) {
+			this.cellPixels[type.ordinal()] = BoardCell.getColor(type).getRGB() & 0xFFFFFF;
+		}
+	}
+
+	/** Returns the int[] behind an image of TYPE_INT_RGB, one int per pixel. */
+	private static int[] pixelsOf(BufferedImage image) {
+		if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+			throw new IllegalArgumentException("the image must be of TYPE_INT_RGB: " + image);
+		}
+		return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 	}
 
 	/* -------------------- */
@@ -46,26 +165,143 @@ class SpampedeDisplay {
 	/* -------------------- */
 
 	/**
-	 * Re-draws the board, spam, and snake (but not the buttons).
+	 * Brings the display up to date with the game it was created with, as the
+	 * game is now. This must be called on the thread that runs the game.
 	 */
 	public void updateGraphics() {
+		this.frames.publish();
+		this.updateGraphics(this.frames.acquire());
+	}
+
+	/**
+	 * Brings the display up to date with the board, spam, and snake (but not the
+	 * buttons) in the given snapshot.
+	 * 
+	 * <p>
+	 * Usually only the cells that differ from the last snapshot drawn are
+	 * redrawn, and getDirtyRegion tells which part of the display that covers.
+	 * The whole display is redrawn the first time, after requestFullRedraw, and
+	 * whenever the game is over.
+	 * </p>
+	 */
+	public void updateGraphics(FrameSnapshot frame) {
+		if (this.viewport.getNumRows() != frame.getNumRows()
+				|| this.viewport.getNumColumns() != frame.getNumColumns()) {
+			this.viewport = new Viewport(frame.getNumRows(), frame.getNumColumns(), this.config.getCellSize(),
+					this.width, this.height);
+		}
+		int tilesInView = this.viewport.getVisibleRows() * this.viewport.getVisibleColumns();
+		if (this.drawnTiles == null || this.drawnTiles.length != tilesInView) {
+			this.drawnTiles = new byte[tilesInView];
+			this.fullRedraw = true;
+		}
+		if (this.drawnView != this.viewport.getChangeCount()) {
+			this.drawnView = this.viewport.getChangeCount();
+			this.fullRedraw = true;
+		}
+		if (this.fullRedraw || frame.isGameOver()) {
+			this.redrawAll(frame);
+		} else {
+			this.redrawChangedCells(frame);
+		}
+	}
+
+	/**
+	 * Returns the part of the board shown, which can be panned and zoomed; the
+	 * next update then redraws the whole display.
+	 */
+	public Viewport getViewport() {
+		return this.viewport;
+	}
+
+	/**
+	 * Makes the next update redraw the whole display, e.g. because a picture has
+	 * finished loading.
+	 */
+	public void requestFullRedraw() {
+		this.fullRedraw = true;
+	}
+
+	/**
+	 * Returns the part of the display (in pixels) changed by the last update. The
+	 * rectangle is empty if nothing changed, and is reused by every update.
+	 */
+	public Rectangle getDirtyRegion() {
+		return this.dirtyRegion;
+	}
+
+	/**
+	 * Re-draws only the tiles in view that differ from the last snapshot drawn,
+	 * and records the pixels they cover in dirtyRegion.
+	 */
+	private void redrawChangedCells(FrameSnapshot frame) {
+		Viewport view = this.viewport;
+		int level = view.getLevel();
+		byte[] tiles = frame.levels[level];
+		byte[] drawn = this.drawnTiles;
+		int levelColumns = frame.getLevelColumns(level);
+		int columns = view.getVisibleColumns();
+		int tileSize = view.getTileSize();
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxY = Integer.MIN_VALUE;
+
+		for (int row = 0; row < view.getVisibleRows(); row++) {
+			int from = (view.getFirstTileRow() + row) * levelColumns + view.getFirstTileColumn();
+			int at = row * columns;
+
+			// skip the (vectorized) runs of tiles that are the same
+			int column = Arrays.mismatch(tiles, from, from + columns, drawn, at, at + columns);
+			while (column >= 0) {
+				int x = view.getTileX(column);
+				int y = view.getTileY(row);
+				this.drawCell(x, y, tileSize, frame.getTile(level, from + column));
+				drawn[at + column] = tiles[from + column];
+				minX = Math.min(minX, x);
+				minY = Math.min(minY, y);
+				maxX = Math.max(maxX, x + tileSize);
+				maxY = Math.max(maxY, y + tileSize);
+
+				int next = Arrays.mismatch(tiles, from + column + 1, from + columns, drawn, at + column + 1,
+						at + columns);
+				column = next < 0 ? -1 : column + 1 + next;
+			}
+		}
+
+		if (minX > maxX) {
+			this.dirtyRegion.setBounds(0, 0, 0, 0);
+		} else {
+			this.dirtyRegion.setBounds(minX, minY, maxX - minX, maxY - minY);
+		}
+	}
+
+	/**
+	 * Re-draws the whole display: background, title, board, and messages.
+	 */
+	private void redrawAll(FrameSnapshot frame) {
+		this.fullRedraw = false;
+		this.dirtyRegion.setBounds(0, 0, this.width, this.height);
+
 		// Draw the background -- DO NOT REMOVE!
 		this.clear();
 
 		// Draw the title
 		this.displayTitle();
 
-		// Draw the board
-		int xStart = (this.width - Preferences.CELL_SIZE * Preferences.NUM_CELLS_WIDE) / 2;
-		int yStart = this.height / Preferences.CELL_SIZE;
-		int numRows = this.theData.getNumRows();
-		int numCols = this.theData.getNumColumns();
+		// Draw the part of the board in view
+		Viewport view = this.viewport;
+		int level = view.getLevel();
+		int levelColumns = frame.getLevelColumns(level);
+		int columns = view.getVisibleColumns();
 
-		for (int row = 0; row < numRows; row++) {
-			for (int col = 0; col < numCols; col++) {
-				this.drawSquare(xStart + (Preferences.CELL_SIZE * col), yStart + (Preferences.CELL_SIZE * row),
-						this.theData.getCellColor(row, col));
+		for (int row = 0; row < view.getVisibleRows(); row++) {
+			int from = (view.getFirstTileRow() + row) * levelColumns + view.getFirstTileColumn();
+			for (int col = 0; col < columns; col++) {
+				this.drawCell(view.getTileX(col), view.getTileY(row), view.getTileSize(),
+						frame.getTile(level, from + col));
 			}
+			System.arraycopy(frame.levels[level], from, this.drawnTiles, row * columns, columns);
 		}
 
 		// Display an image, just for fun
@@ -74,7 +310,7 @@ class SpampedeDisplay {
 		}
 
 		// Draw the game-over message, if appropriate
-		if (this.theData.getGameOver()) {
+		if (frame.isGameOver()) {
 			this.displayGameOver();
 		}
 
@@ -83,15 +319,52 @@ class SpampedeDisplay {
 	/**
 	 * Draws a cell-sized square with its upper-left corner at the specified pixel
 	 * coordinates (i.e. x pixels to the right and y pixels below the upper-left
-	 * corner) on the display.
+	 * corner) on the display, in the color of the given type of cell.
+	 * 
+	 * @param x    the x-coordinate, between 0 and this.width-1 inclusive
+	 * @param y    the y-coordinate, between 0 and this.height-1 inclusive
+	 * @param size the size of the square, in pixels
+	 * @param type the contents of the cell being drawn
+	 */
+	private void drawCell(int x, int y, int size, CellType type) {
+		if (this.pixels != null) {
+			this.fillPixels(x, y, size, this.cellPixels[type.ordinal()]);
+		} else {
+			this.drawSquare(x, y, size, BoardCell.getColor(type));
+		}
+	}
+
+	/**
+	 * Draws a square of the given size with its upper-left corner at the
+	 * specified pixel coordinates (i.e. x pixels to the right and y pixels below
+	 * the upper-left corner) on the display.
 	 * 
 	 * @param x         the x-coordinate, between 0 and this.width-1 inclusive
 	 * @param y         the y-coordinate, between 0 and this.height-1 inclusive
+	 * @param size      the size of the square, in pixels
 	 * @param cellColor the color of the square being drawn
 	 */
-	private void drawSquare(int x, int y, Color cellColor) {
+	private void drawSquare(int x, int y, int size, Color cellColor) {
 		this.theScreen.setColor(cellColor);
-		this.theScreen.fillRect(x, y, Preferences.CELL_SIZE, Preferences.CELL_SIZE);
+		this.theScreen.fillRect(x, y, size, size);
+	}
+
+	/**
+	 * Same as drawCell, but writes the pixel (0xRRGGBB) straight into pixels,
+	 * leaving out the parts of the square that fall outside the display.
+	 */
+	private void fillPixels(int x, int y, int size, int pixel) {
+		int left = Math.max(x, 0);
+		int right = Math.min(x + size, this.width);
+		int top = Math.max(y, 0);
+		int bottom = Math.min(y + size, this.height);
+		if (left >= right) {
+			return;
+		}
+		for (int row = top; row < bottom; row++) {
+			int start = row * this.width;
+			Arrays.fill(this.pixels, start + left, start + right, pixel);
+		}
 	}
 
 	/**
@@ -101,7 +374,7 @@ class SpampedeDisplay {
 		this.theScreen.setColor(Preferences.COLOR_BACKGROUND);
 		this.theScreen.fillRect(0, 0, this.width, this.height);
 		this.theScreen.setColor(Preferences.TITLE_COLOR);
-		this.theScreen.drawRect(0, 0, this.width - 1, Preferences.GAMEBOARDHEIGHT - 1);
+		this.theScreen.drawRect(0, 0, this.width - 1, this.config.getBoardHeightPixels() - 1);
 	}
 
 	/* ------------ */
@@ -5,6 +5,7 @@ import javax.swing.JPanel;
 import java.awt.Dimension;
 import java.awt.Image;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 
 /**
  * Implements low-level graphics work.
@@ -29,10 +30,27 @@ public class SpampedeImagePanel extends JPanel {
 		super.setPreferredSize(dimensions);
 	}
 
-	/** Draws the image on the panel */
+	/**
+	 * Asks Swing to repaint just the given part of the panel (e.g. the cells that
+	 * changed), or nothing if the region is empty.
+	 */
+	public void repaintRegion(Rectangle region) {
+		if (!region.isEmpty()) {
+			super.repaint(region.x, region.y, region.width, region.height);
+		}
+	}
+
+	/** Draws the image (or just the part that needs repainting) on the panel */
 	@Override
 	public void paint(Graphics graphicsObj) {
-		graphicsObj.drawImage(this.myImage, 0, 0, null);
+		Rectangle clip = graphicsObj.getClipBounds();
+		if (clip == null) {
+			graphicsObj.drawImage(this.myImage, 0, 0, null);
+		} else {
+			int x2 = clip.x + clip.width;
+			int y2 = clip.y + clip.height;
+			graphicsObj.drawImage(this.myImage, clip.x, clip.y, x2, y2, clip.x, clip.y, x2, y2, null);
+		}
 	}
 
 	/** Added to avoid a warning - not used! */
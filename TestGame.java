@@ -1,20 +1,153 @@
 package com.gradescope.spampede;
 
+/**
+ * The boards used by the tests, drawn as text in the form read by BoardText:
+ * one string per row, with the characters of CellType (walls "*", open cells
+ * " ", spam "X", the snake's head "H" and body "B").
+ * 
+ * @author Isaac Chung with the help of professors
+ */
 enum TestGame {
 	/**
 	 * Pictures of test boards at http://tinyurl.com/spampedeTestBoards
 	 */
 
-	G1(true), G2(true), G3(true), G4(true), G5(true), G6(true), G7(true), G8(true), G9(true), G10(true), G11(true),
-	G12(false), G13(false), G14(false), G15(false);
+	G1(true,
+			"******",
+			"*BHX *",
+			"*    *",
+			"*    *",
+			"*    *",
+			"******"),
+
+	G2(true,
+			"******",
+			"*BH  *",
+			"* X  *",
+			"*    *",
+			"*    *",
+			"******"),
+
+	G3(true,
+			"******",
+			"*BH X*",
+			"*    *",
+			"*    *",
+			"*    *",
+			"******"),
+
+	G4(true,
+			"******",
+			"*BH  *",
+			"*X   *",
+			"*    *",
+			"*    *",
+			"******"),
+
+	G5(true,
+			"******",
+			"*BH  *",
+			"*    *",
+			"*    *",
+			"*X   *",
+			"******"),
+
+	G6(true,
+			"******",
+			"*BHX *",
+			"*    *",
+			"*X   *",
+			"*    *",
+			"******"),
+
+	G7(true,
+			"******",
+			"*BH X*",
+			"* X  *",
+			"*    *",
+			"*    *",
+			"******"),
+
+	G8(true,
+			"******",
+			"*BH X*",
+			"*    *",
+			"*    *",
+			"* X  *",
+			"******"),
+
+	G9(true,
+			"******",
+			"*BH  *",
+			"*X  X*",
+			"*    *",
+			"*    *",
+			"******"),
+
+	G10(true,
+			"******",
+			"*BH  *",
+			"*    *",
+			"*    *",
+			"*X  X*",
+			"******"),
+
+	G11(true,
+			"******",
+			"*BH  *",
+			"*    *",
+			"*    *",
+			"*    *",
+			"******"),
+
+	G12(false,
+			"******",
+			"*    *",
+			"*HBB *",
+			"*    *",
+			"*    *",
+			"******"),
+
+	G13(false,
+			"******",
+			"*    *",
+			"*HB  *",
+			"* B  *",
+			"*    *",
+			"******"),
+
+	G14(false,
+			"******",
+			"*    *",
+			"* B  *",
+			"*HB  *",
+			"*    *",
+			"******"),
+
+	G15(false,
+			"******",
+			"*    *",
+			"*    *",
+			"* BBH*",
+			"*    *",
+			"******");
 
 	private boolean snakeAtStart;
 
-	private TestGame(boolean snakeAtStartInput) {
+	/** The board, one row per line. */
+	private final String text;
+
+	private TestGame(boolean snakeAtStartInput, String... rows) {
 		this.snakeAtStart = snakeAtStartInput;
+		this.text = String.join("\n", rows) + "\n";
 	}
 
 	public boolean snakeAtStart() {
 		return this.snakeAtStart;
 	}
+
+	/** Returns the board as text, each row followed by a newline. */
+	public String getText() {
+		return this.text;
+	}
 }
@@ -0,0 +1,273 @@
+package com.gradescope.spampede;
+
+/**
+ * The part of the board shown on the display, and how big it is drawn.
+ *
+ * <p>
+ * The board is drawn as square tiles of tileSize pixels. Zoomed in, each tile
+ * is one cell (level 0). Zoomed out past one pixel per cell, each tile is a
+ * block of 2^level by 2^level cells, drawn in the color of the most noticeable
+ * cell in it (see FrameSnapshot), so a frame only ever touches about one tile
+ * per pixel however big the board is. When the board does not fit, only the
+ * tiles in view are drawn and the view can be panned; when it does, the board
+ * is drawn centered, as it always was.
+ * </p>
+ *
+ * <p>
+ * A viewport is only used by the thread that draws.
+ * </p>
+ *
+ * @author Isaac Chung with the help of professors
+ */
+final class Viewport {
+
+	/** The most pixels a tile is drawn with. */
+	private static final int MAX_TILE_SIZE = 64;
+
+	/** The height of the board (including walls) in cells. */
+	private final int numRows;
+
+	/** The width of the board (including walls) in cells. */
+	private final int numColumns;
+
+	/** The number of levels of detail of the board. */
+	private final int levelCount;
+
+	/** The width of the display in pixels. */
+	private final int width;
+
+	/** The top of the board on the display, in pixels. */
+	private final int top;
+
+	/** The height of the display in pixels. */
+	private final int height;
+
+	/** The level of detail drawn: each tile is 2^level by 2^level cells. */
+	private int level = 0;
+
+	/** The size of a tile on the display, in pixels. */
+	private int tileSize;
+
+	/** The first row and column of tiles shown. */
+	private int firstTileRow = 0;
+	private int firstTileColumn = 0;
+
+	/** The number of rows and columns of tiles shown (the last may be cut off). */
+	private int visibleRows;
+	private int visibleColumns;
+
+	/** The pixel coordinates of the upper-left corner of the first tile shown. */
+	private int x0;
+	private int y0;
+
+	/** The number of times the view has been worked out (see getChangeCount). */
+	private int changeCount = 0;
+
+	/**
+	 * Creates a viewport of a board of the given size that shows it all, with
+	 * cells of cellSize pixels if they fit and zoomed out until it fits if not.
+	 *
+	 * @param numRows    the height of the board (including walls) in cells
+	 * @param numColumns the width of the board (including walls) in cells
+	 * @param cellSize   the size of a cell (in pixels) when zoomed in to it
+	 * @param width      the width of the display (in pixels)
+	 * @param height     the height of the display (in pixels)
+	 */
+	public Viewport(int numRows, int numColumns, int cellSize, int width, int height) {
+		this.numRows = numRows;
+		this.numColumns = numColumns;
+		this.levelCount = FrameSnapshot.levelCount(numRows, numColumns);
+		this.width = width;
+		this.top = height / cellSize;
+		this.height = height;
+		this.tileSize = cellSize;
+		while (!this.fits() && this.canZoomOut()) {
+			this.zoomOutOneStep();
+		}
+		this.update();
+	}
+
+	/* --------------- */
+	/* Moving the view */
+	/* --------------- */
+
+	/** Makes tiles twice as big (or a tile half as many cells), keeping the center. */
+	public void zoomIn() {
+		int centerRow = this.getCenterRow();
+		int centerColumn = this.getCenterColumn();
+		if (this.level > 0) {
+			this.level--;
+		} else if (this.tileSize < MAX_TILE_SIZE) {
+			this.tileSize *= 2;
+		}
+		this.centerOn(centerRow, centerColumn);
+	}
+
+	/** Makes tiles half as big (or a tile twice as many cells), keeping the center. */
+	public void zoomOut() {
+		int centerRow = this.getCenterRow();
+		int centerColumn = this.getCenterColumn();
+		if (this.canZoomOut()) {
+			this.zoomOutOneStep();
+		}
+		this.centerOn(centerRow, centerColumn);
+	}
+
+	/**
+	 * Moves the view by the given number of cells (right and down if positive),
+	 * as far as the edges of the board allow.
+	 */
+	public void pan(int columns, int rows) {
+		this.centerOn(this.getCenterRow() + rows, this.getCenterColumn() + columns);
+	}
+
+	/** Returns the number of cells shown across the display. */
+	public int getVisibleCellColumns() {
+		return Math.min(this.visibleColumns << this.level, this.numColumns);
+	}
+
+	/** Returns the number of cells shown down the display. */
+	public int getVisibleCellRows() {
+		return Math.min(this.visibleRows << this.level, this.numRows);
+	}
+
+	/* ------------------ */
+	/* Reading the layout */
+	/* ------------------ */
+
+	/** Returns the height of the board (including walls) in cells. */
+	public int getNumRows() {
+		return this.numRows;
+	}
+
+	/** Returns the width of the board (including walls) in cells. */
+	public int getNumColumns() {
+		return this.numColumns;
+	}
+
+	/**
+	 * Returns a number that changes whenever the view may have moved or zoomed,
+	 * so the display knows to draw everything again.
+	 */
+	public int getChangeCount() {
+		return this.changeCount;
+	}
+
+	/** Returns the level of detail drawn (see FrameSnapshot). */
+	public int getLevel() {
+		return this.level;
+	}
+
+	/** Returns the size of a tile on the display, in pixels. */
+	public int getTileSize() {
+		return this.tileSize;
+	}
+
+	/** Returns the first row of tiles shown, at the level drawn. */
+	public int getFirstTileRow() {
+		return this.firstTileRow;
+	}
+
+	/** Returns the first column of tiles shown, at the level drawn. */
+	public int getFirstTileColumn() {
+		return this.firstTileColumn;
+	}
+
+	/** Returns the number of rows of tiles shown. */
+	public int getVisibleRows() {
+		return this.visibleRows;
+	}
+
+	/** Returns the number of columns of tiles shown. */
+	public int getVisibleColumns() {
+		return this.visibleColumns;
+	}
+
+	/** Returns the x-coordinate of the left edge of the i-th column of tiles shown. */
+	public int getTileX(int i) {
+		return this.x0 + i * this.tileSize;
+	}
+
+	/** Returns the y-coordinate of the top edge of the i-th row of tiles shown. */
+	public int getTileY(int i) {
+		return this.y0 + i * this.tileSize;
+	}
+
+	/* ------- */
+	/* Helpers */
+	/* ------- */
+
+	/** Returns true if the whole board fits on the display at the current zoom. */
+	private boolean fits() {
+		return FrameSnapshot.tilesAlong(this.numColumns, this.level) * this.tileSize <= this.width
+				&& FrameSnapshot.tilesAlong(this.numRows, this.level) * this.tileSize <= this.height - this.top;
+	}
+
+	/** Returns true unless the whole board is already a single tile of one pixel. */
+	private boolean canZoomOut() {
+		return this.tileSize > 1 || this.level < this.levelCount - 1;
+	}
+
+	/** Halves the size of tiles, or doubles the cells in a tile at one pixel. */
+	private void zoomOutOneStep() {
+		if (this.tileSize > 1) {
+			this.tileSize /= 2;
+		} else {
+			this.level++;
+		}
+	}
+
+	/** Returns the row of cells in the middle of the view. */
+	private int getCenterRow() {
+		return (this.firstTileRow << this.level) + this.getVisibleCellRows() / 2;
+	}
+
+	/** Returns the column of cells in the middle of the view. */
+	private int getCenterColumn() {
+		return (this.firstTileColumn << this.level) + this.getVisibleCellColumns() / 2;
+	}
+
+	/** Moves the view so the given cell is in the middle, as far as possible. */
+	private void centerOn(int row, int column) {
+		int rowsShown = Math.max(1, (this.height - this.top) / this.tileSize);
+		int columnsShown = Math.max(1, this.width / this.tileSize);
+		this.firstTileRow = (row >> this.level) - rowsShown / 2;
+		this.firstTileColumn = (column >> this.level) - columnsShown / 2;
+		this.update();
+	}
+
+	/**
+	 * Works out which tiles are shown and where, keeping the view on the board
+	 * and centering the board along any side where it fits.
+	 */
+	private void update() {
+		int tilesTall = FrameSnapshot.tilesAlong(this.numRows, this.level);
+		int tilesWide = FrameSnapshot.tilesAlong(this.numColumns, this.level);
+		int spaceTall = this.height - this.top;
+
+		if (tilesWide * this.tileSize <= this.width) {
+			this.firstTileColumn = 0;
+			this.visibleColumns = tilesWide;
+			this.x0 = (this.width - tilesWide * this.tileSize) / 2;
+		} else {
+			int fullColumns = this.width / this.tileSize;
+			this.firstTileColumn = Math.max(0, Math.min(this.firstTileColumn, tilesWide - fullColumns));
+			this.visibleColumns = Math.min(tilesWide - this.firstTileColumn,
+					(this.width + this.tileSize - 1) / this.tileSize);
+			this.x0 = 0;
+		}
+
+		if (tilesTall * this.tileSize <= spaceTall) {
+			this.firstTileRow = 0;
+			this.visibleRows = tilesTall;
+		} else {
+			int fullRows = Math.max(0, spaceTall) / this.tileSize;
+			this.firstTileRow = Math.max(0, Math.min(this.firstTileRow, tilesTall - fullRows));
+			this.visibleRows = Math.min(tilesTall - this.firstTileRow,
+					(Math.max(0, spaceTall) + this.tileSize - 1) / this.tileSize);
+		}
+		this.y0 = this.top;
+		this.changeCount++;
+	}
+
+}